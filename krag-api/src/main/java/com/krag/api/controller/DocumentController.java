@@ -1,13 +1,17 @@
 package com.krag.api.controller;
 
-import com.krag.core.embed.EmbeddingModel;
+import com.krag.core.model.ChunkVector;
+import com.krag.core.model.DocumentInfo;
+import com.krag.core.model.DocumentPage;
 import com.krag.core.model.SearchResult;
 import com.krag.core.store.VectorStore;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
 
@@ -15,12 +19,12 @@ import java.util.*;
 @RequestMapping(path = "/api/v1")
 public class DocumentController {
 
+    private static final int MAX_CHUNK_READS = 3;
+
     private final VectorStore vectorStore;
-    private final EmbeddingModel embeddingModel;
 
-    public DocumentController(VectorStore vectorStore, EmbeddingModel embeddingModel) {
+    public DocumentController(VectorStore vectorStore) {
         this.vectorStore = vectorStore;
-        this.embeddingModel = embeddingModel;
     }
 
     @GetMapping(path = "/docs", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -28,45 +32,43 @@ public class DocumentController {
             @RequestParam(name = "tenantId") String tenantId,
             @RequestParam(name = "kbId") String kbId,
             @RequestParam(name = "page", required = false) Integer page,
-            @RequestParam(name = "size", required = false) Integer size
+            @RequestParam(name = "size", required = false) Integer size,
+            @RequestParam(name = "sort", required = false) String sort,
+            @RequestParam(name = "order", required = false) String order
     ) {
         int p = (page != null && page > 0) ? page : 1;
         int s = (size != null && size > 0) ? size : 10;
-        List<String> ids;
-        try {
-            ids = vectorStore.listDocIds(tenantId, kbId);
-        } catch (RuntimeException ex) {
-            String msg = ex.getMessage();
-            // Gracefully handle empty index namespaces (Lucene IndexNotFoundException)
-            if (msg != null && (msg.contains("IndexNotFoundException") || msg.contains("no segments"))) {
-                ids = Collections.emptyList();
-            } else {
-                throw ex;
-            }
-        }
-        int total = ids.size();
-        int from = Math.min((p - 1) * s, total);
-        int to = Math.min(from + s, total);
-
-        List<Map<String, Object>> items = new ArrayList<>();
-        for (String id : ids.subList(from, to)) {
-            List<SearchResult> chunks = vectorStore.findByDoc(tenantId, kbId, id);
-            Map<String, Object> d = new LinkedHashMap<>();
-            d.put("docId", id);
-            d.put("chunks", chunks.size());
-            items.add(d);
+        DocumentInfo.SortKey key = sortKey(sort);
+        boolean descending = "desc".equalsIgnoreCase(order);
+        if (order != null && !descending && !"asc".equalsIgnoreCase(order)) {
+            throw new IllegalArgumentException("order must be asc or desc");
         }
+        // Served from the namespace's document catalog: cost depends on the page, not the corpus
+        long offset = (long) (p - 1) * s;
+        DocumentPage docs = vectorStore.listDocuments(tenantId, kbId, (int) Math.min(offset, Integer.MAX_VALUE), s, key, descending);
 
         Map<String, Object> resp = new LinkedHashMap<>();
         resp.put("tenantId", tenantId);
         resp.put("kbId", kbId);
         resp.put("page", p);
         resp.put("size", s);
-        resp.put("total", total);
-        resp.put("items", items);
+        resp.put("total", docs.getTotal());
+        resp.put("items", docs.getItems());
         return resp;
     }
 
+    private static DocumentInfo.SortKey sortKey(String sort) {
+        if (sort == null || sort.isBlank()) return DocumentInfo.SortKey.INGESTED_AT;
+        return switch (sort.trim()) {
+            case "docId" -> DocumentInfo.SortKey.DOC_ID;
+            case "source" -> DocumentInfo.SortKey.SOURCE;
+            case "chunks" -> DocumentInfo.SortKey.CHUNKS;
+            case "bytes" -> DocumentInfo.SortKey.BYTES;
+            case "ingestedAt" -> DocumentInfo.SortKey.INGESTED_AT;
+            default -> throw new IllegalArgumentException("sort must be one of docId, source, chunks, bytes, ingestedAt");
+        };
+    }
+
     @GetMapping(path = "/doc/chunks", produces = MediaType.APPLICATION_JSON_VALUE)
     public Map<String, Object> docChunks(
             @RequestParam(name = "tenantId") String tenantId,
@@ -75,14 +77,25 @@ public class DocumentController {
             @RequestParam(name = "includeVectors", required = false) Boolean includeVectors
     ) {
         List<SearchResult> chunks = vectorStore.findByDoc(tenantId, kbId, docId);
+        Map<String, float[]> vectorsById = null;
+        if (Boolean.TRUE.equals(includeVectors)) {
+            // Texts and vectors come from two reads; a write in between can change the chunk set,
+            // so match them by chunkId and read both again until every chunk has its vector
+            for (int attempt = 1; ; attempt++) {
+                vectorsById = new HashMap<>();
+                for (ChunkVector cv : vectorStore.findVectorsByDoc(tenantId, kbId, docId)) {
+                    vectorsById.put(cv.getChunkId(), cv.getVector());
+                }
+                if (attempt == MAX_CHUNK_READS || vectorsById.keySet().containsAll(chunkIds(chunks))) break;
+                chunks = vectorStore.findByDoc(tenantId, kbId, docId);
+            }
+        }
         List<Map<String, Object>> items = new ArrayList<>();
-        List<String> texts = new ArrayList<>();
         for (SearchResult sr : chunks) {
             Map<String, Object> c = new LinkedHashMap<>();
             c.put("chunkId", sr.getChunkId());
             c.put("text", sr.getText());
             items.add(c);
-            texts.add(sr.getText() != null ? sr.getText() : "");
         }
 
         Map<String, Object> resp = new LinkedHashMap<>();
@@ -91,11 +104,41 @@ public class DocumentController {
         resp.put("docId", docId);
         resp.put("chunks", items);
 
-        if (Boolean.TRUE.equals(includeVectors)) {
-            List<float[]> vecs = embeddingModel.embedBatch(texts);
-            resp.put("dimension", embeddingModel.dimension());
+        if (vectorsById != null) {
+            List<float[]> vecs = new ArrayList<>(chunks.size());
+            int dimension = 0;
+            for (SearchResult sr : chunks) {
+                float[] v = vectorsById.get(sr.getChunkId());
+                if (v != null) dimension = v.length;
+                vecs.add(v);
+            }
+            resp.put("dimension", dimension);
             resp.put("vectors", vecs);
         }
         return resp;
     }
+
+    private static Set<String> chunkIds(List<SearchResult> chunks) {
+        Set<String> ids = new HashSet<>();
+        for (SearchResult sr : chunks) ids.add(sr.getChunkId());
+        return ids;
+    }
+
+    /**
+     * Stored vectors of a document's chunks, streamed in the binary layout of {@link VectorEncoding}
+     * ({@code format=f32} or {@code format=int8}); read from the index, never re-embedded.
+     */
+    @GetMapping(path = "/doc/chunks", params = {"format", "format!=json"})
+    public ResponseEntity<StreamingResponseBody> docVectors(
+            @RequestParam(name = "tenantId") String tenantId,
+            @RequestParam(name = "kbId") String kbId,
+            @RequestParam(name = "docId") String docId,
+            @RequestParam(name = "format") String format
+    ) {
+        VectorEncoding encoding = VectorEncoding.fromFormat(format);
+        if (encoding == null) throw new IllegalArgumentException("format must be one of json, f32, int8");
+        List<ChunkVector> vectors = vectorStore.findVectorsByDoc(tenantId, kbId, docId);
+        StreamingResponseBody body = out -> encoding.write(vectors, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(body);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.krag.api.controller;
+
+import com.krag.embedding.CachingEmbeddingModel;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping(path = "/api/v1/embedding")
+public class EmbeddingController {
+
+    private final CachingEmbeddingModel cache;
+
+    public EmbeddingController(CachingEmbeddingModel cache) {
+        this.cache = cache;
+    }
+
+    @GetMapping(path = "/cache/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> cacheStats() {
+        return cache.stats();
+    }
+
+    @DeleteMapping(path = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> clearCache() {
+        cache.clear();
+        return cache.stats();
+    }
+}
@@ -1,9 +1,18 @@
 package com.krag.api.controller;
 
+import com.krag.ingest.bulk.BulkFormat;
+import com.krag.ingest.service.IngestJob;
+import com.krag.ingest.service.IngestJobService;
+import com.krag.ingest.service.IngestOptions;
 import com.krag.ingest.service.IngestionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,37 +20,155 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping(path = "/api/v1")
 public class IngestController {
 
+    // Request params named meta.<key> become chunk metadata (filterable at query time)
+    private static final String META_PARAM_PREFIX = "meta.";
+
     private final IngestionService ingestionService;
+    private final IngestJobService ingestJobService;
 
-    public IngestController(IngestionService ingestionService) {
+    public IngestController(IngestionService ingestionService, IngestJobService ingestJobService) {
         this.ingestionService = ingestionService;
+        this.ingestJobService = ingestJobService;
     }
 
     @PostMapping(path = "/ingest/txt", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Map<String, Object> ingestTxt(@RequestParam("tenantId") String tenantId,
-                                         @RequestParam("kbId") String kbId,
-                                         @RequestPart("file") MultipartFile file) throws Exception {
-        return ingestionService.ingestTxt(tenantId, kbId, file.getInputStream(), file.getOriginalFilename());
+    public ResponseEntity<Map<String, Object>> ingestTxt(@RequestParam("tenantId") String tenantId,
+                                                         @RequestParam("kbId") String kbId,
+                                                         @RequestPart("file") MultipartFile file,
+                                                         @RequestParam(name = "durable", required = false) Boolean durable,
+                                                         @RequestParam(name = "async", required = false) Boolean async,
+                                                         @RequestParam Map<String, String> params) throws Exception {
+        IngestOptions options = options(durable, params);
+        String filename = file.getOriginalFilename();
+        ingestionService.checkSupported(filename);
+        if (Boolean.TRUE.equals(async)) {
+            // The container has already received a multipart body; reserving first at least
+            // spares a full queue our copy of it (/ingest/text rejects before reading anything)
+            try (IngestJobService.Reservation slot = ingestJobService.reserve()) {
+                return accepted(ingestJobService.submitFile(slot, tenantId, kbId, filename, spool(file), options));
+            }
+        }
+        Path spooled = spool(file);
+        try {
+            return ResponseEntity.ok(ingestionService.ingestFile(tenantId, kbId, spooled, filename, options));
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
     }
 
     @PostMapping(path = "/ingest/text", consumes = MediaType.TEXT_PLAIN_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Map<String, Object> ingestText(@RequestParam("tenantId") String tenantId,
+    public ResponseEntity<Map<String, Object>> ingestText(@RequestParam("tenantId") String tenantId,
+                                                          @RequestParam("kbId") String kbId,
+                                                          @RequestParam("filename") String filename,
+                                                          @RequestParam(name = "durable", required = false) Boolean durable,
+                                                          @RequestParam(name = "async", required = false) Boolean async,
+                                                          @RequestParam Map<String, String> params,
+                                                          InputStream body) throws IOException {
+        String fn = validateTextIngestParams(tenantId, kbId, filename);
+        IngestOptions options = options(durable, params);
+        // The body (UTF-8) is streamed into the parser instead of being buffered as one String
+        if (Boolean.TRUE.equals(async)) {
+            // Reserve before reading the body, so a full queue rejects the upload instead of spooling it
+            try (IngestJobService.Reservation slot = ingestJobService.reserve()) {
+                InputStream text = nonBlank(body);
+                Path spooled = Files.createTempFile("krag-ingest-", ".upload");
+                try {
+                    Files.copy(text, spooled, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    Files.deleteIfExists(spooled);
+                    throw e;
+                }
+                return accepted(ingestJobService.submitFile(slot, tenantId, kbId, fn, spooled, options));
+            }
+        }
+        InputStream text = nonBlank(body);
+        return ResponseEntity.ok(ingestionService.ingestTxt(tenantId, kbId, text, fn, options));
+    }
+
+    /**
+     * Many documents in one streamed request: NDJSON records, or a zip / tar / tar.gz of .txt files.
+     */
+    @PostMapping(path = "/ingest/bulk", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> ingestBulk(@RequestParam("tenantId") String tenantId,
                                           @RequestParam("kbId") String kbId,
-                                          @RequestParam("filename") String filename,
-                                          @RequestBody String text) {
-        String fn = validateTextIngestParams(tenantId, kbId, filename, text);
-        ByteArrayInputStream in = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
-        return ingestionService.ingestTxt(tenantId, kbId, in, fn);
+                                          @RequestParam(name = "durable", required = false) Boolean durable,
+                                          @RequestParam Map<String, String> params,
+                                          @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                          InputStream body) throws IOException {
+        if (tenantId == null || tenantId.isBlank()) throw new IllegalArgumentException("tenantId is required");
+        if (kbId == null || kbId.isBlank()) throw new IllegalArgumentException("kbId is required");
+        if (params.containsKey("sourceKey")) {
+            throw new IllegalArgumentException("sourceKey is set per document in bulk requests; use incremental=true to key by filename");
+        }
+        BulkFormat format = BulkFormat.fromContentType(contentType);
+        return ingestionService.ingestBulk(tenantId, kbId, format.open(body), options(durable, params));
+    }
+
+    @GetMapping(path = "/ingest/jobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> ingestJob(@PathVariable("jobId") String jobId) {
+        IngestJob job = ingestJobService.get(jobId);
+        if (job == null) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("error", "Not Found");
+            body.put("message", "unknown or expired ingest job: " + jobId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping(path = "/ingest/jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> ingestJobStats() {
+        return ingestJobService.stats();
+    }
+
+    private static ResponseEntity<Map<String, Object>> accepted(IngestJob job) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("jobId", job.getJobId());
+        resp.put("status", job.getStatus());
+        resp.put("statusUrl", "/api/v1/ingest/jobs/" + job.getJobId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(resp);
     }
 
-    private String validateTextIngestParams(String tenantId, String kbId, String filename, String text) {
+    private static IngestOptions options(Boolean durable, Map<String, String> params) {
+        IngestOptions options = IngestOptions.defaults();
+        options.setWaitDurable(Boolean.TRUE.equals(durable));
+        // Re-ingest: a stable key (or the filename) identifies the document, and only changed chunks are re-embedded
+        String sourceKey = params.get("sourceKey");
+        if (sourceKey != null) {
+            if (sourceKey.isBlank() || sourceKey.length() > 1024) {
+                throw new IllegalArgumentException("sourceKey must be non-blank and at most 1024 characters");
+            }
+            options.setSourceKey(sourceKey.trim());
+        }
+        options.setIncremental(Boolean.parseBoolean(params.get("incremental")));
+        Map<String, String> metadata = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : params.entrySet()) {
+            if (!e.getKey().startsWith(META_PARAM_PREFIX)) continue;
+            String key = e.getKey().substring(META_PARAM_PREFIX.length());
+            if (key.isBlank() || "text".equals(key)) {
+                throw new IllegalArgumentException("invalid metadata key: " + e.getKey());
+            }
+            metadata.put(key, e.getValue());
+        }
+        options.setMetadata(metadata);
+        return options;
+    }
+
+    private String validateTextIngestParams(String tenantId, String kbId, String filename) {
         if (tenantId == null || tenantId.isBlank()) {
             throw new IllegalArgumentException("tenantId is required");
         }
@@ -58,9 +185,38 @@ public class IngestController {
         if (!fn.toLowerCase().endsWith(".txt")) {
             throw new IllegalArgumentException("filename must end with .txt");
         }
-        if (text == null || text.trim().isEmpty()) {
+        return fn;
+    }
+
+    /**
+     * Spool an upload to our own file: an async job may outlive the request (which deletes the
+     * multipart temp file), and a local file can be memory-mapped instead of read through the heap.
+     */
+    private static Path spool(MultipartFile file) throws IOException {
+        Path spooled = Files.createTempFile("krag-ingest-", ".upload");
+        try {
+            file.transferTo(spooled);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        return spooled;
+    }
+
+    /**
+     * {@code in} with every byte intact, failing if it holds nothing but whitespace and control
+     * characters (what {@link String#trim} removes). Only that leading run is buffered to find out.
+     */
+    private static InputStream nonBlank(InputStream in) throws IOException {
+        ByteArrayOutputStream leading = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b <= ' ') {
+            leading.write(b);
+        }
+        if (b == -1) {
             throw new IllegalArgumentException("text content is empty");
         }
-        return fn;
+        leading.write(b);
+        return new SequenceInputStream(new ByteArrayInputStream(leading.toByteArray()), in);
     }
 }
\ No newline at end of file
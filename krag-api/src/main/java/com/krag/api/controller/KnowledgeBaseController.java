@@ -0,0 +1,132 @@
+package com.krag.api.controller;
+
+import com.krag.api.vo.CreateKbRequest;
+import com.krag.core.model.IndexSettings;
+import com.krag.core.store.VectorStore;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping(path = "/api/v1")
+public class KnowledgeBaseController {
+
+    private final VectorStore vectorStore;
+
+    public KnowledgeBaseController(VectorStore vectorStore) {
+        this.vectorStore = vectorStore;
+    }
+
+    @PostMapping(path = "/kb", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> createKb(@RequestBody CreateKbRequest req) {
+        if (req == null) throw new IllegalArgumentException("request body is required");
+        requireId(req.getTenantId(), "tenantId");
+        requireId(req.getKbId(), "kbId");
+        IndexSettings effective = vectorStore.createNamespace(req.getTenantId(), req.getKbId(), req.getSettings());
+        return settingsResponse(req.getTenantId(), req.getKbId(), effective);
+    }
+
+    @GetMapping(path = "/kb/settings", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> kbSettings(@RequestParam(name = "tenantId") String tenantId,
+                                          @RequestParam(name = "kbId") String kbId) {
+        requireId(tenantId, "tenantId");
+        requireId(kbId, "kbId");
+        return settingsResponse(tenantId, kbId, vectorStore.getNamespaceSettings(tenantId, kbId));
+    }
+
+    @GetMapping(path = "/kb/segments", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> segments(@RequestParam(name = "tenantId") String tenantId,
+                                        @RequestParam(name = "kbId") String kbId) {
+        requireId(tenantId, "tenantId");
+        requireId(kbId, "kbId");
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("tenantId", tenantId);
+        resp.put("kbId", kbId);
+        resp.put("stats", vectorStore.segmentStats(tenantId, kbId));
+        return resp;
+    }
+
+    /**
+     * Runs segment maintenance on the namespace now and waits for it: merges down to the target
+     * segment count and expunges deleted documents.
+     */
+    @PostMapping(path = "/kb/maintenance", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> maintain(@RequestParam(name = "tenantId") String tenantId,
+                                        @RequestParam(name = "kbId") String kbId) {
+        requireId(tenantId, "tenantId");
+        requireId(kbId, "kbId");
+        long start = System.currentTimeMillis();
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("tenantId", tenantId);
+        resp.put("kbId", kbId);
+        resp.put("before", vectorStore.segmentStats(tenantId, kbId));
+        resp.put("after", vectorStore.maintain(tenantId, kbId));
+        resp.put("millis", System.currentTimeMillis() - start);
+        return resp;
+    }
+
+    /**
+     * Streams the namespace as a binary snapshot: settings, chunks, metadata and stored vectors.
+     */
+    @GetMapping(path = "/kb/snapshot")
+    public ResponseEntity<StreamingResponseBody> exportSnapshot(@RequestParam(name = "tenantId") String tenantId,
+                                                                @RequestParam(name = "kbId") String kbId) {
+        requireId(tenantId, "tenantId");
+        requireId(kbId, "kbId");
+        StreamingResponseBody body = out -> vectorStore.exportSnapshot(tenantId, kbId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + kbId + ".ksnp\"")
+                .body(body);
+    }
+
+    /**
+     * Loads a snapshot into a new, empty namespace; vectors are taken as-is, nothing is re-embedded.
+     */
+    @PostMapping(path = "/kb/snapshot", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> importSnapshot(@RequestParam(name = "tenantId") String tenantId,
+                                              @RequestParam(name = "kbId") String kbId,
+                                              InputStream body) throws IOException {
+        requireId(tenantId, "tenantId");
+        requireId(kbId, "kbId");
+        long start = System.currentTimeMillis();
+        long chunks;
+        try {
+            chunks = vectorStore.importSnapshot(tenantId, kbId, body);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("truncated snapshot");
+        }
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("tenantId", tenantId);
+        resp.put("kbId", kbId);
+        resp.put("chunks", chunks);
+        resp.put("millis", System.currentTimeMillis() - start);
+        return resp;
+    }
+
+    private static Map<String, Object> settingsResponse(String tenantId, String kbId, IndexSettings settings) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("tenantId", tenantId);
+        resp.put("kbId", kbId);
+        resp.put("settings", settings);
+        return resp;
+    }
+
+    private static void requireId(String v, String name) {
+        if (v == null || v.trim().isEmpty()) throw new IllegalArgumentException(name + " is required");
+    }
+}
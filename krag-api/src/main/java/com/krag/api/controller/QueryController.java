@@ -1,31 +1,51 @@
 package com.krag.api.controller;
 
+import com.krag.api.vo.BatchQueryRequest;
 import com.krag.api.vo.QueryRequest;
 import com.krag.core.embed.EmbeddingModel;
+import com.krag.core.model.MetadataFilter;
 import com.krag.core.model.SearchResult;
+import com.krag.core.model.VectorQuery;
 import com.krag.core.store.VectorStore;
+import com.krag.vector.retrieve.FederatedRetriever;
+import com.krag.vector.retrieve.HybridRetriever;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(path = "/api/v1")
 public class QueryController {
 
+    private static final Set<String> MODES = Set.of("vector", "keyword", "hybrid");
+    private static final Set<String> FUSIONS = Set.of("rrf", "weighted");
+
     private final EmbeddingModel embeddingModel;
     private final VectorStore vectorStore;
+    private final HybridRetriever hybridRetriever;
+    private final FederatedRetriever federatedRetriever;
+    private final int maxBatchQueries;
 
-    public QueryController(EmbeddingModel embeddingModel, VectorStore vectorStore) {
+    public QueryController(EmbeddingModel embeddingModel, VectorStore vectorStore, HybridRetriever hybridRetriever,
+                           FederatedRetriever federatedRetriever,
+                           @Value("${krag.retrieve.batch.max-queries:64}") int maxBatchQueries) {
         this.embeddingModel = embeddingModel;
         this.vectorStore = vectorStore;
+        this.hybridRetriever = hybridRetriever;
+        this.federatedRetriever = federatedRetriever;
+        this.maxBatchQueries = maxBatchQueries;
     }
 
     @PostMapping(path = "/query", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -42,8 +62,8 @@ public class QueryController {
             resp.put("chunks", chunks);
             boolean full = Boolean.TRUE.equals(req.getFull());
             if (full) {
+                // findByDoc returns chunks in document order
                 String fullText = chunks.stream()
-                        .sorted(Comparator.comparingInt(QueryController::chunkIndex))
                         .map(SearchResult::getText)
                         .filter(s -> s != null && !s.isEmpty())
                         .collect(Collectors.joining("\n\n"));
@@ -52,52 +72,186 @@ public class QueryController {
             return resp;
         }
 
-        // Otherwise, perform vector search by query text
+        // Otherwise, perform vector / keyword / hybrid search by query text
         int topK = req.getTopK() != null ? req.getTopK() : 5;
         float minScore = req.getMinScore() != null ? req.getMinScore() : 0f;
-        float[] qv = embeddingModel.embed(req.getQuery());
-        List<SearchResult> results = vectorStore.search(req.getTenantId(), req.getKbId(), qv, topK, minScore);
+        String mode = mode(req);
+        MetadataFilter filter = MetadataFilter.fromMap(req.getFilter());
+        String tenantId = req.getTenantId();
+        String query = req.getQuery();
+        // Embedded once even when several knowledge bases are searched
+        float[] qv = mode.equals("keyword") ? null : embeddingModel.embed(query);
+        Function<String, List<SearchResult>> search = switch (mode) {
+            case "keyword" -> kbId -> vectorStore.keywordSearch(tenantId, kbId, query, topK, filter);
+            case "hybrid" -> {
+                HybridRetriever.Fusion fusion = isBlank(req.getFusion()) ? null
+                        : HybridRetriever.Fusion.valueOf(req.getFusion().trim().toUpperCase(Locale.ROOT));
+                yield kbId -> hybridRetriever.retrieve(tenantId, kbId, query, qv, topK, minScore, fusion, filter);
+            }
+            default -> {
+                VectorQuery vq = new VectorQuery(qv, topK, minScore, filter);
+                vq.setExact(Boolean.TRUE.equals(req.getExact()));
+                vq.setOversample(req.getOversample());
+                yield kbId -> vectorStore.search(tenantId, kbId, vq);
+            }
+        };
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("tenantId", tenantId);
+        if (!federated(req)) {
+            resp.put("kbId", req.getKbId());
+            resp.put("model", embeddingModel.id());
+            resp.put("mode", mode);
+            resp.put("topK", topK);
+            resp.put("results", search.apply(req.getKbId()));
+            return resp;
+        }
+        List<String> kbIds = Boolean.TRUE.equals(req.getAllKbs())
+                ? vectorStore.listNamespaces(tenantId)
+                : req.getKbIds().stream().map(String::trim).distinct().toList();
+        // Vector similarities share one scale across namespaces; BM25 and fused scores do not
+        boolean normalizePerKb = mode.equals("keyword") || mode.equals("hybrid");
+        FederatedRetriever.Result federated = federatedRetriever.retrieve(kbIds, topK, req.getTimeoutMs(), normalizePerKb, search);
+        resp.put("kbIds", kbIds);
+        resp.put("model", embeddingModel.id());
+        resp.put("mode", mode);
+        resp.put("topK", topK);
+        resp.put("partial", federated.isPartial());
+        if (!federated.getTimedOut().isEmpty()) resp.put("timedOut", federated.getTimedOut());
+        if (!federated.getFailed().isEmpty()) resp.put("failed", federated.getFailed());
+        resp.put("results", federated.getResults());
+        return resp;
+    }
+
+    /**
+     * Vector search for many queries at once: one embedBatch call for all query texts, then the
+     * KNN searches run concurrently on one index snapshot. Results come back in request order;
+     * an invalid query gets an error entry instead of failing the batch.
+     */
+    @PostMapping(path = "/query/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> queryBatch(@RequestBody BatchQueryRequest req) {
+        if (req == null) throw new IllegalArgumentException("request body is required");
+        if (isBlank(req.getTenantId())) throw new IllegalArgumentException("tenantId is required");
+        if (isBlank(req.getKbId())) throw new IllegalArgumentException("kbId is required");
+        List<BatchQueryRequest.Item> items = req.getQueries();
+        if (items == null || items.isEmpty()) throw new IllegalArgumentException("queries is required");
+        if (items.size() > maxBatchQueries) {
+            throw new IllegalArgumentException("at most " + maxBatchQueries + " queries per batch");
+        }
+
+        List<Map<String, Object>> entries = new ArrayList<>(items.size());
+        List<VectorQuery> valid = new ArrayList<>(items.size());
+        List<Integer> validAt = new ArrayList<>(items.size());
+        // Identical query texts are embedded once
+        Map<String, Integer> textSlot = new LinkedHashMap<>();
+        List<Integer> slots = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchQueryRequest.Item item = items.get(i);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("index", i);
+            entry.put("query", item == null ? null : item.getQuery());
+            entries.add(entry);
+            try {
+                if (item == null || isBlank(item.getQuery())) throw new IllegalArgumentException("query is required");
+                Integer topK = item.getTopK() != null ? item.getTopK() : req.getTopK();
+                Float minScore = item.getMinScore() != null ? item.getMinScore() : req.getMinScore();
+                validateLimits(topK, minScore);
+                validateOversample(item.getOversample());
+                MetadataFilter filter = MetadataFilter.fromMap(item.getFilter() != null ? item.getFilter() : req.getFilter());
+                int k = topK != null ? topK : 5;
+                entry.put("topK", k);
+                VectorQuery vq = new VectorQuery(null, k, minScore != null ? minScore : 0f, filter);
+                vq.setExact(Boolean.TRUE.equals(item.getExact()));
+                vq.setOversample(item.getOversample());
+                valid.add(vq);
+                validAt.add(i);
+                slots.add(textSlot.computeIfAbsent(item.getQuery(), t -> textSlot.size()));
+            } catch (IllegalArgumentException e) {
+                entry.put("error", e.getMessage());
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            List<float[]> vectors = embeddingModel.embedBatch(new ArrayList<>(textSlot.keySet()));
+            for (int j = 0; j < valid.size(); j++) {
+                valid.get(j).setVector(vectors.get(slots.get(j)));
+            }
+            List<List<SearchResult>> results = vectorStore.searchBatch(req.getTenantId(), req.getKbId(), valid);
+            for (int j = 0; j < valid.size(); j++) {
+                entries.get(validAt.get(j)).put("results", results.get(j));
+            }
+        }
 
         Map<String, Object> resp = new LinkedHashMap<>();
         resp.put("tenantId", req.getTenantId());
         resp.put("kbId", req.getKbId());
         resp.put("model", embeddingModel.id());
-        resp.put("topK", topK);
-        resp.put("results", results);
+        resp.put("mode", "vector");
+        resp.put("queries", entries);
         return resp;
     }
 
     private void validate(QueryRequest req) {
         if (req == null) throw new IllegalArgumentException("request body is required");
         if (isBlank(req.getTenantId())) throw new IllegalArgumentException("tenantId is required");
-        if (isBlank(req.getKbId())) throw new IllegalArgumentException("kbId is required");
+        if (federated(req)) {
+            if (!isBlank(req.getKbId())) throw new IllegalArgumentException("kbId cannot be combined with kbIds or allKbs");
+            if (req.getKbIds() != null && Boolean.TRUE.equals(req.getAllKbs())) {
+                throw new IllegalArgumentException("kbIds cannot be combined with allKbs");
+            }
+            if (req.getKbIds() != null && req.getKbIds().stream().anyMatch(QueryController::isBlank)) {
+                throw new IllegalArgumentException("kbIds must not contain blank ids");
+            }
+            if (!isBlank(req.getDocId())) throw new IllegalArgumentException("docId requires a single kbId");
+        } else if (isBlank(req.getKbId())) {
+            throw new IllegalArgumentException("kbId is required");
+        }
         // If docId provided, query may be empty; otherwise query is required
         if (isBlank(req.getDocId()) && isBlank(req.getQuery())) {
             throw new IllegalArgumentException("query is required when docId is not provided");
         }
-        if (req.getTopK() != null) {
-            if (req.getTopK() <= 0 || req.getTopK() > 50) {
+        validateLimits(req.getTopK(), req.getMinScore());
+        if (!MODES.contains(mode(req))) {
+            throw new IllegalArgumentException("mode must be one of " + MODES);
+        }
+        if (Boolean.TRUE.equals(req.getExact()) && !mode(req).equals("vector")) {
+            throw new IllegalArgumentException("exact is only supported in vector mode");
+        }
+        validateOversample(req.getOversample());
+        if (req.getOversample() != null && !mode(req).equals("vector")) {
+            throw new IllegalArgumentException("oversample is only supported in vector mode");
+        }
+        if (!isBlank(req.getFusion()) && !FUSIONS.contains(req.getFusion().trim().toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("fusion must be one of " + FUSIONS);
+        }
+    }
+
+    private static void validateLimits(Integer topK, Float minScore) {
+        if (topK != null) {
+            if (topK <= 0 || topK > 50) {
                 throw new IllegalArgumentException("topK must be in range [1, 50]");
             }
         }
-        if (req.getMinScore() != null) {
-            if (req.getMinScore() < 0) {
+        if (minScore != null) {
+            if (minScore < 0) {
                 throw new IllegalArgumentException("minScore must be >= 0");
             }
         }
     }
 
-    private static boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
-
-    private static int chunkIndex(SearchResult sr) {
-        String chunkId = sr.getChunkId();
-        if (chunkId == null) return Integer.MAX_VALUE;
-        int idx = chunkId.lastIndexOf('_');
-        if (idx < 0) return Integer.MAX_VALUE;
-        try {
-            return Integer.parseInt(chunkId.substring(idx + 1));
-        } catch (Exception e) {
-            return Integer.MAX_VALUE;
+    private static void validateOversample(Integer oversample) {
+        if (oversample != null && (oversample <= 0 || oversample > 100)) {
+            throw new IllegalArgumentException("oversample must be in range [1, 100]");
         }
     }
-}
\ No newline at end of file
+
+    private static boolean federated(QueryRequest req) {
+        return (req.getKbIds() != null && !req.getKbIds().isEmpty()) || Boolean.TRUE.equals(req.getAllKbs());
+    }
+
+    private static String mode(QueryRequest req) {
+        return isBlank(req.getMode()) ? "vector" : req.getMode().trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
+}
@@ -0,0 +1,81 @@
+package com.krag.api.controller;
+
+import com.krag.core.model.ChunkVector;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encodings of stored chunk vectors, written chunk by chunk. All numbers are
+ * little-endian:
+ * <pre>
+ * header:    "KVEC" | u8 version (1) | u8 encoding (1 = float32, 2 = int8) | u16 reserved | u32 count | u32 dimension
+ * per chunk: u16 chunkId length | chunkId (UTF-8) | vector
+ *   float32: dimension x f32
+ *   int8:    f32 scale | dimension x i8, where value ~= i8 * scale (per-vector symmetric, scale = max|x| / 127)
+ * </pre>
+ */
+enum VectorEncoding {
+    F32(1, "f32"),
+    INT8(2, "int8");
+
+    private static final byte[] MAGIC = {'K', 'V', 'E', 'C'};
+    private static final int VERSION = 1;
+
+    private final int code;
+    private final String format;
+
+    VectorEncoding(int code, String format) {
+        this.code = code;
+        this.format = format;
+    }
+
+    /**
+     * The binary encoding named by {@code format}, or null for JSON.
+     */
+    static VectorEncoding fromFormat(String format) {
+        if (format == null || format.isBlank() || "json".equalsIgnoreCase(format.trim())) return null;
+        for (VectorEncoding e : values()) {
+            if (e.format.equalsIgnoreCase(format.trim())) return e;
+        }
+        throw new IllegalArgumentException("format must be one of json, f32, int8");
+    }
+
+    void write(List<ChunkVector> chunks, OutputStream out) throws IOException {
+        List<ChunkVector> present = new ArrayList<>(chunks.size());
+        for (ChunkVector c : chunks) {
+            if (c.getVector() != null) present.add(c);
+        }
+        int dim = present.isEmpty() ? 0 : present.get(0).getVector().length;
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).put((byte) VERSION).put((byte) code).putShort((short) 0).putInt(present.size()).putInt(dim);
+        out.write(header.array());
+
+        // One reused buffer per chunk record; flushed to the stream as soon as it is filled
+        int vectorBytes = this == F32 ? 4 * dim : 4 + dim;
+        ByteBuffer buf = ByteBuffer.allocate(2 + 4 * 65535 + vectorBytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (ChunkVector c : present) {
+            buf.clear();
+            byte[] id = c.getChunkId() == null ? new byte[0] : c.getChunkId().getBytes(StandardCharsets.UTF_8);
+            if (id.length > 65535) throw new IllegalStateException("chunkId too long: " + c.getChunkId());
+            buf.putShort((short) id.length).put(id);
+            float[] v = c.getVector();
+            if (this == F32) {
+                for (float x : v) buf.putFloat(x);
+            } else {
+                float max = 0f;
+                for (float x : v) max = Math.max(max, Math.abs(x));
+                float scale = max == 0f ? 0f : max / 127f;
+                buf.putFloat(scale);
+                for (float x : v) buf.put(scale == 0f ? 0 : (byte) Math.round(x / scale));
+            }
+            out.write(buf.array(), 0, buf.position());
+        }
+        out.flush();
+    }
+}
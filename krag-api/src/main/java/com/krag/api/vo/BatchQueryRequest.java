@@ -0,0 +1,58 @@
+package com.krag.api.vo;
+
+import java.util.List;
+import java.util.Map;
+
+public class BatchQueryRequest {
+    private String tenantId;
+    private String kbId;
+    private Integer topK;              // 可选：各子查询的默认 topK
+    private Float minScore;            // 可选：各子查询的默认最低分
+    private Map<String, Object> filter; // 可选：各子查询的默认元数据过滤
+    private List<Item> queries;        // 子查询列表，结果按相同顺序返回
+
+    public static class Item {
+        private String query;
+        private Integer topK;              // 可选：覆盖批量默认值
+        private Float minScore;            // 可选：覆盖批量默认值
+        private Map<String, Object> filter; // 可选：覆盖批量默认值
+        private Boolean exact;             // 可选：强制精确检索
+        private Integer oversample;        // 可选：候选倍数，覆盖知识库设置
+
+        public String getQuery() { return query; }
+        public void setQuery(String query) { this.query = query; }
+
+        public Integer getTopK() { return topK; }
+        public void setTopK(Integer topK) { this.topK = topK; }
+
+        public Float getMinScore() { return minScore; }
+        public void setMinScore(Float minScore) { this.minScore = minScore; }
+
+        public Map<String, Object> getFilter() { return filter; }
+        public void setFilter(Map<String, Object> filter) { this.filter = filter; }
+
+        public Boolean getExact() { return exact; }
+        public void setExact(Boolean exact) { this.exact = exact; }
+
+        public Integer getOversample() { return oversample; }
+        public void setOversample(Integer oversample) { this.oversample = oversample; }
+    }
+
+    public String getTenantId() { return tenantId; }
+    public void setTenantId(String tenantId) { this.tenantId = tenantId; }
+
+    public String getKbId() { return kbId; }
+    public void setKbId(String kbId) { this.kbId = kbId; }
+
+    public Integer getTopK() { return topK; }
+    public void setTopK(Integer topK) { this.topK = topK; }
+
+    public Float getMinScore() { return minScore; }
+    public void setMinScore(Float minScore) { this.minScore = minScore; }
+
+    public Map<String, Object> getFilter() { return filter; }
+    public void setFilter(Map<String, Object> filter) { this.filter = filter; }
+
+    public List<Item> getQueries() { return queries; }
+    public void setQueries(List<Item> queries) { this.queries = queries; }
+}
@@ -0,0 +1,18 @@
+package com.krag.api.vo;
+
+import com.krag.core.model.IndexSettings;
+
+public class CreateKbRequest {
+    private String tenantId;
+    private String kbId;
+    private IndexSettings settings;   // 可选：相似度、HNSW 参数、量化方式；缺省字段使用全局默认值
+
+    public String getTenantId() { return tenantId; }
+    public void setTenantId(String tenantId) { this.tenantId = tenantId; }
+
+    public String getKbId() { return kbId; }
+    public void setKbId(String kbId) { this.kbId = kbId; }
+
+    public IndexSettings getSettings() { return settings; }
+    public void setSettings(IndexSettings settings) { this.settings = settings; }
+}
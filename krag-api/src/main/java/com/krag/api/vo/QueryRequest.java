@@ -1,13 +1,24 @@
 package com.krag.api.vo;
 
+import java.util.List;
+import java.util.Map;
+
 public class QueryRequest {
     private String tenantId;
     private String kbId;
+    private List<String> kbIds; // 可选：同时检索多个知识库（与 kbId 二选一）
+    private Boolean allKbs;     // 可选：检索该租户下的全部知识库
+    private Long timeoutMs;     // 可选：多知识库检索的截止时间，超时的知识库不计入结果
     private String query;
     private Integer topK;
     private Float minScore;
     private String docId;      // 可选：指定文档ID进行检索
     private Boolean full;      // 可选：是否返回完整文档文本（拼接所有片段）
+    private String mode;       // 可选：检索模式 vector（默认）/ keyword（BM25）/ hybrid（BM25 + 向量融合）
+    private String fusion;     // 可选：hybrid 模式的融合方式 rrf（默认）/ weighted
+    private Boolean exact;     // 可选：vector 模式下强制精确检索（逐个比较全部向量），用于召回核查
+    private Integer oversample; // 可选：vector 模式下的候选倍数（topK × oversample），覆盖知识库设置，越大召回越高、越慢
+    private Map<String, Object> filter; // 可选：元数据过滤，如 {"source":"a.txt","tag":["x","y"],"year":{"gte":2020}}
 
     public String getTenantId() { return tenantId; }
     public void setTenantId(String tenantId) { this.tenantId = tenantId; }
@@ -15,6 +26,15 @@ public class QueryRequest {
     public String getKbId() { return kbId; }
     public void setKbId(String kbId) { this.kbId = kbId; }
 
+    public List<String> getKbIds() { return kbIds; }
+    public void setKbIds(List<String> kbIds) { this.kbIds = kbIds; }
+
+    public Boolean getAllKbs() { return allKbs; }
+    public void setAllKbs(Boolean allKbs) { this.allKbs = allKbs; }
+
+    public Long getTimeoutMs() { return timeoutMs; }
+    public void setTimeoutMs(Long timeoutMs) { this.timeoutMs = timeoutMs; }
+
     public String getQuery() { return query; }
     public void setQuery(String query) { this.query = query; }
 
@@ -29,4 +49,19 @@ public class QueryRequest {
 
     public Boolean getFull() { return full; }
     public void setFull(Boolean full) { this.full = full; }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public String getFusion() { return fusion; }
+    public void setFusion(String fusion) { this.fusion = fusion; }
+
+    public Boolean getExact() { return exact; }
+    public void setExact(Boolean exact) { this.exact = exact; }
+
+    public Integer getOversample() { return oversample; }
+    public void setOversample(Integer oversample) { this.oversample = oversample; }
+
+    public Map<String, Object> getFilter() { return filter; }
+    public void setFilter(Map<String, Object> filter) { this.filter = filter; }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.krag.core.chunk;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -8,4 +10,14 @@ import java.util.List;
  */
 public interface TextChunker {
     List<String> chunk(List<String> texts, int maxTokensOrChars);
-}
\ No newline at end of file
+
+    /**
+     * Lazily chunk {@code texts}, pulling paragraphs only as needed. The default collects the input
+     * and delegates to {@link #chunk}; streaming implementations override it.
+     */
+    default Iterator<String> chunkStream(Iterator<String> texts, int maxTokensOrChars) {
+        List<String> all = new ArrayList<>();
+        texts.forEachRemaining(all::add);
+        return chunk(all, maxTokensOrChars).iterator();
+    }
+}
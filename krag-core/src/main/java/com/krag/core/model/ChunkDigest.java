@@ -0,0 +1,28 @@
+package com.krag.core.model;
+
+/**
+ * Identity of a stored chunk: enough to decide on re-ingest whether it can be kept as is.
+ */
+public class ChunkDigest {
+    private String chunkId;
+    private String contentHash;     // null for chunks written before hashes were recorded
+    private Integer chunkIndex;     // null if the chunk has no recorded position
+
+    public ChunkDigest() {
+    }
+
+    public ChunkDigest(String chunkId, String contentHash, Integer chunkIndex) {
+        this.chunkId = chunkId;
+        this.contentHash = contentHash;
+        this.chunkIndex = chunkIndex;
+    }
+
+    public String getChunkId() { return chunkId; }
+    public void setChunkId(String chunkId) { this.chunkId = chunkId; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public Integer getChunkIndex() { return chunkIndex; }
+    public void setChunkIndex(Integer chunkIndex) { this.chunkIndex = chunkIndex; }
+}
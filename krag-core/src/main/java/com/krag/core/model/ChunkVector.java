@@ -0,0 +1,23 @@
+package com.krag.core.model;
+
+/**
+ * The stored vector of one chunk.
+ */
+public class ChunkVector {
+    private String chunkId;
+    private float[] vector;
+
+    public ChunkVector() {
+    }
+
+    public ChunkVector(String chunkId, float[] vector) {
+        this.chunkId = chunkId;
+        this.vector = vector;
+    }
+
+    public String getChunkId() { return chunkId; }
+    public void setChunkId(String chunkId) { this.chunkId = chunkId; }
+
+    public float[] getVector() { return vector; }
+    public void setVector(float[] vector) { this.vector = vector; }
+}
@@ -0,0 +1,30 @@
+package com.krag.core.model;
+
+/**
+ * Catalog entry of one document in a namespace.
+ */
+public class DocumentInfo {
+
+    public enum SortKey { DOC_ID, SOURCE, CHUNKS, BYTES, INGESTED_AT }
+
+    private String docId;
+    private String source;
+    private int chunks;
+    private long bytes;         // UTF-8 size of the chunk texts
+    private long ingestedAt;    // epoch millis of the latest write to the document; 0 if unknown
+
+    public String getDocId() { return docId; }
+    public void setDocId(String docId) { this.docId = docId; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public int getChunks() { return chunks; }
+    public void setChunks(int chunks) { this.chunks = chunks; }
+
+    public long getBytes() { return bytes; }
+    public void setBytes(long bytes) { this.bytes = bytes; }
+
+    public long getIngestedAt() { return ingestedAt; }
+    public void setIngestedAt(long ingestedAt) { this.ingestedAt = ingestedAt; }
+}
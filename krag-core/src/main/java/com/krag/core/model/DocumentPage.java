@@ -0,0 +1,25 @@
+package com.krag.core.model;
+
+import java.util.List;
+
+/**
+ * One page of a namespace's document catalog.
+ */
+public class DocumentPage {
+    private int total;
+    private List<DocumentInfo> items;
+
+    public DocumentPage() {
+    }
+
+    public DocumentPage(int total, List<DocumentInfo> items) {
+        this.total = total;
+        this.items = items;
+    }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public List<DocumentInfo> getItems() { return items; }
+    public void setItems(List<DocumentInfo> items) { this.items = items; }
+}
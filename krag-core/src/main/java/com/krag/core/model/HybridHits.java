@@ -0,0 +1,26 @@
+package com.krag.core.model;
+
+import java.util.List;
+
+/**
+ * Ranked hits of the lexical (BM25) and vector (KNN) legs of one hybrid search,
+ * both taken from the same index snapshot. Fusion is left to the caller.
+ */
+public class HybridHits {
+    private List<SearchResult> lexical;
+    private List<SearchResult> vector;
+
+    public HybridHits() {
+    }
+
+    public HybridHits(List<SearchResult> lexical, List<SearchResult> vector) {
+        this.lexical = lexical;
+        this.vector = vector;
+    }
+
+    public List<SearchResult> getLexical() { return lexical; }
+    public void setLexical(List<SearchResult> lexical) { this.lexical = lexical; }
+
+    public List<SearchResult> getVector() { return vector; }
+    public void setVector(List<SearchResult> vector) { this.vector = vector; }
+}
@@ -0,0 +1,41 @@
+package com.krag.core.model;
+
+/**
+ * Per-namespace vector index settings, fixed when the namespace is created.
+ * Null fields fall back to the store's configured defaults.
+ */
+public class IndexSettings {
+
+    public enum Similarity { EUCLIDEAN, COSINE, DOT_PRODUCT, MAXIMUM_INNER_PRODUCT }
+
+    public enum Quantization { NONE, INT8 }
+
+    private Similarity similarity;
+    private Integer hnswM;            // max graph connections per node
+    private Integer hnswBeamWidth;    // candidate list size while building the graph
+    private Quantization quantization;
+    private Boolean rescore;          // re-rank quantized hits against full-precision vectors
+    private Integer oversample;       // candidates fetched per requested hit when rescoring
+    private Integer coarseDims;       // leading components indexed for a coarse first pass, 0 = off
+
+    public Similarity getSimilarity() { return similarity; }
+    public void setSimilarity(Similarity similarity) { this.similarity = similarity; }
+
+    public Integer getHnswM() { return hnswM; }
+    public void setHnswM(Integer hnswM) { this.hnswM = hnswM; }
+
+    public Integer getHnswBeamWidth() { return hnswBeamWidth; }
+    public void setHnswBeamWidth(Integer hnswBeamWidth) { this.hnswBeamWidth = hnswBeamWidth; }
+
+    public Quantization getQuantization() { return quantization; }
+    public void setQuantization(Quantization quantization) { this.quantization = quantization; }
+
+    public Boolean getRescore() { return rescore; }
+    public void setRescore(Boolean rescore) { this.rescore = rescore; }
+
+    public Integer getOversample() { return oversample; }
+    public void setOversample(Integer oversample) { this.oversample = oversample; }
+
+    public Integer getCoarseDims() { return coarseDims; }
+    public void setCoarseDims(Integer coarseDims) { this.coarseDims = coarseDims; }
+}
@@ -0,0 +1,118 @@
+package com.krag.core.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conjunction of metadata conditions that restricts which chunks a search may return.
+ * Built from a JSON-style map, e.g.
+ * {@code {"source": "a.txt", "tag": ["faq", "howto"], "year": {"gte": 2020, "lt": 2025}}}:
+ * a scalar means equality, a list means any-of, an object holds range bounds and/or {@code in}/{@code eq}.
+ */
+public class MetadataFilter {
+
+    public static class Condition {
+        private String field;
+        private List<String> anyOf;   // term match on any of these values
+        private Double min;           // numeric range bounds (null = open)
+        private boolean minInclusive;
+        private Double max;
+        private boolean maxInclusive;
+
+        public String getField() { return field; }
+        public void setField(String field) { this.field = field; }
+
+        public List<String> getAnyOf() { return anyOf; }
+        public void setAnyOf(List<String> anyOf) { this.anyOf = anyOf; }
+
+        public Double getMin() { return min; }
+        public void setMin(Double min) { this.min = min; }
+
+        public boolean isMinInclusive() { return minInclusive; }
+        public void setMinInclusive(boolean minInclusive) { this.minInclusive = minInclusive; }
+
+        public Double getMax() { return max; }
+        public void setMax(Double max) { this.max = max; }
+
+        public boolean isMaxInclusive() { return maxInclusive; }
+        public void setMaxInclusive(boolean maxInclusive) { this.maxInclusive = maxInclusive; }
+
+        public boolean isRange() { return min != null || max != null; }
+    }
+
+    private List<Condition> conditions = new ArrayList<>();
+
+    public List<Condition> getConditions() { return conditions; }
+    public void setConditions(List<Condition> conditions) { this.conditions = conditions; }
+
+    public boolean isEmpty() { return conditions == null || conditions.isEmpty(); }
+
+    /**
+     * Parse the JSON-style form; returns null for a null or empty map.
+     *
+     * @throws IllegalArgumentException on an unsupported value or operator
+     */
+    public static MetadataFilter fromMap(Map<String, Object> spec) {
+        if (spec == null || spec.isEmpty()) return null;
+        MetadataFilter filter = new MetadataFilter();
+        for (Map.Entry<String, Object> e : spec.entrySet()) {
+            String field = e.getKey();
+            if (field == null || field.isBlank()) {
+                throw new IllegalArgumentException("filter field name is required");
+            }
+            Condition c = new Condition();
+            c.setField(field);
+            Object v = e.getValue();
+            if (v instanceof Map<?, ?> ops) {
+                for (Map.Entry<?, ?> op : ops.entrySet()) {
+                    String name = String.valueOf(op.getKey());
+                    switch (name) {
+                        case "eq" -> c.setAnyOf(List.of(scalar(field, op.getValue())));
+                        case "in" -> c.setAnyOf(values(field, op.getValue()));
+                        case "gte", "gt" -> {
+                            c.setMin(number(field, op.getValue()));
+                            c.setMinInclusive(name.equals("gte"));
+                        }
+                        case "lte", "lt" -> {
+                            c.setMax(number(field, op.getValue()));
+                            c.setMaxInclusive(name.equals("lte"));
+                        }
+                        default -> throw new IllegalArgumentException("unsupported filter operator '" + name + "' on " + field);
+                    }
+                }
+            } else {
+                c.setAnyOf(values(field, v));
+            }
+            filter.conditions.add(c);
+        }
+        return filter;
+    }
+
+    private static List<String> values(String field, Object v) {
+        if (v instanceof Collection<?> col) {
+            if (col.isEmpty()) throw new IllegalArgumentException("filter on " + field + " has no values");
+            List<String> out = new ArrayList<>(col.size());
+            for (Object o : col) out.add(scalar(field, o));
+            return out;
+        }
+        return List.of(scalar(field, v));
+    }
+
+    private static String scalar(String field, Object v) {
+        if (v instanceof String || v instanceof Number || v instanceof Boolean) {
+            return String.valueOf(v);
+        }
+        throw new IllegalArgumentException("unsupported filter value for " + field + ": " + v);
+    }
+
+    private static Double number(String field, Object v) {
+        if (v instanceof Number n) return n.doubleValue();
+        try {
+            return Double.parseDouble(String.valueOf(v));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("range bound for " + field + " must be numeric: " + v);
+        }
+    }
+}
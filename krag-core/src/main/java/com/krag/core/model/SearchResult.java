@@ -3,12 +3,16 @@ package com.krag.core.model;
 import java.util.Map;
 
 public class SearchResult {
+    private String kbId;
     private String chunkId;
     private String docId;
     private String text;
     private float score;
     private Map<String, String> metadata;
 
+    public String getKbId() { return kbId; }
+    public void setKbId(String kbId) { this.kbId = kbId; }
+
     public String getChunkId() { return chunkId; }
     public void setChunkId(String chunkId) { this.chunkId = chunkId; }
 
@@ -0,0 +1,67 @@
+package com.krag.core.model;
+
+import java.util.List;
+
+/**
+ * Segment layout of a namespace's index: how many segments searches walk and how much of the
+ * index is deleted documents still waiting to be merged away.
+ */
+public class SegmentStats {
+    private int segmentCount;
+    private long docs;
+    private long deletedDocs;
+    private double deletedRatio;
+    private long sizeBytes;
+    private List<Segment> segments;
+    private boolean shared;    // the namespace lives in a shared pool index; the stats cover the whole pool
+
+    public static class Segment {
+        private String name;
+        private int docs;
+        private int deletedDocs;
+        private long sizeBytes;
+
+        public Segment() {
+        }
+
+        public Segment(String name, int docs, int deletedDocs, long sizeBytes) {
+            this.name = name;
+            this.docs = docs;
+            this.deletedDocs = deletedDocs;
+            this.sizeBytes = sizeBytes;
+        }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public int getDocs() { return docs; }
+        public void setDocs(int docs) { this.docs = docs; }
+
+        public int getDeletedDocs() { return deletedDocs; }
+        public void setDeletedDocs(int deletedDocs) { this.deletedDocs = deletedDocs; }
+
+        public long getSizeBytes() { return sizeBytes; }
+        public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+    }
+
+    public int getSegmentCount() { return segmentCount; }
+    public void setSegmentCount(int segmentCount) { this.segmentCount = segmentCount; }
+
+    public long getDocs() { return docs; }
+    public void setDocs(long docs) { this.docs = docs; }
+
+    public long getDeletedDocs() { return deletedDocs; }
+    public void setDeletedDocs(long deletedDocs) { this.deletedDocs = deletedDocs; }
+
+    public double getDeletedRatio() { return deletedRatio; }
+    public void setDeletedRatio(double deletedRatio) { this.deletedRatio = deletedRatio; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public List<Segment> getSegments() { return segments; }
+    public void setSegments(List<Segment> segments) { this.segments = segments; }
+
+    public boolean isShared() { return shared; }
+    public void setShared(boolean shared) { this.shared = shared; }
+}
@@ -0,0 +1,42 @@
+package com.krag.core.model;
+
+/**
+ * One KNN search: query vector, result size, score floor and optional metadata filter, plus
+ * how the store should search (exact scan, candidate oversampling).
+ */
+public class VectorQuery {
+    private float[] vector;
+    private int topK;
+    private float minScore;
+    private MetadataFilter filter;
+    private boolean exact;
+    private Integer oversample;    // candidates per requested hit for rescoring; null = namespace setting
+
+    public VectorQuery() {
+    }
+
+    public VectorQuery(float[] vector, int topK, float minScore, MetadataFilter filter) {
+        this.vector = vector;
+        this.topK = topK;
+        this.minScore = minScore;
+        this.filter = filter;
+    }
+
+    public float[] getVector() { return vector; }
+    public void setVector(float[] vector) { this.vector = vector; }
+
+    public int getTopK() { return topK; }
+    public void setTopK(int topK) { this.topK = topK; }
+
+    public float getMinScore() { return minScore; }
+    public void setMinScore(float minScore) { this.minScore = minScore; }
+
+    public MetadataFilter getFilter() { return filter; }
+    public void setFilter(MetadataFilter filter) { this.filter = filter; }
+
+    public boolean isExact() { return exact; }
+    public void setExact(boolean exact) { this.exact = exact; }
+
+    public Integer getOversample() { return oversample; }
+    public void setOversample(Integer oversample) { this.oversample = oversample; }
+}
@@ -8,6 +8,8 @@ public class VectorRecord {
     private String source;
     private float[] vector;
     private Map<String, String> metadata;
+    private String contentHash;     // digest of source, metadata and text; lets re-ingest skip unchanged chunks
+    private Integer chunkIndex;     // position within the document
 
     public String getChunkId() { return chunkId; }
     public void setChunkId(String chunkId) { this.chunkId = chunkId; }
@@ -23,4 +25,10 @@ public class VectorRecord {
 
     public Map<String, String> getMetadata() { return metadata; }
     public void setMetadata(Map<String, String> metadata) { this.metadata = metadata; }
-}
\ No newline at end of file
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public Integer getChunkIndex() { return chunkIndex; }
+    public void setChunkIndex(Integer chunkIndex) { this.chunkIndex = chunkIndex; }
+}
@@ -1,9 +1,34 @@
 package com.krag.core.parser;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
 
 public interface DocumentParser {
     boolean supports(String contentTypeOrExt);
     List<String> parseToTexts(InputStream in, String filename);
-}
\ No newline at end of file
+
+    /**
+     * Paragraphs of {@code in}, read lazily as the iterator advances; the caller closes {@code in}.
+     * If the returned iterator is {@link java.io.Closeable}, callers should close it when they stop early.
+     * The default parses everything up front.
+     */
+    default Iterator<String> parseStream(InputStream in, String filename) {
+        return parseToTexts(in, filename).iterator();
+    }
+
+    /**
+     * Paragraphs of a local file, read lazily. The default reads it through {@link #parseToTexts}.
+     */
+    default Iterator<String> parseFile(Path file, String filename) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return parseToTexts(in, filename).iterator();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
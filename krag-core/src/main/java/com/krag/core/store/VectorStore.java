@@ -1,17 +1,139 @@
 package com.krag.core.store;
 
+import com.krag.core.model.ChunkDigest;
+import com.krag.core.model.ChunkVector;
+import com.krag.core.model.DocumentInfo;
+import com.krag.core.model.DocumentPage;
+import com.krag.core.model.HybridHits;
+import com.krag.core.model.IndexSettings;
+import com.krag.core.model.MetadataFilter;
 import com.krag.core.model.SearchResult;
+import com.krag.core.model.SegmentStats;
+import com.krag.core.model.VectorQuery;
 import com.krag.core.model.VectorRecord;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface VectorStore {
     void upsert(String tenantId, String kbId, List<VectorRecord> records);
-    List<SearchResult> search(String tenantId, String kbId, float[] queryVector, int topK, float minScore);
+    default List<SearchResult> search(String tenantId, String kbId, float[] queryVector, int topK, float minScore) {
+        return search(tenantId, kbId, queryVector, topK, minScore, null);
+    }
+    /**
+     * KNN search restricted to chunks matching {@code filter} (null = no restriction). The filter is
+     * applied during the graph search, not to its output, so it does not cost recall.
+     */
+    default List<SearchResult> search(String tenantId, String kbId, float[] queryVector, int topK, float minScore,
+                                      MetadataFilter filter) {
+        return search(tenantId, kbId, queryVector, topK, minScore, filter, false);
+    }
+    /**
+     * As above; {@code exact} forces a brute-force scan of every vector (e.g. to audit recall).
+     * Otherwise the store picks exact search or the HNSW graph depending on the namespace size.
+     */
+    default List<SearchResult> search(String tenantId, String kbId, float[] queryVector, int topK, float minScore,
+                                      MetadataFilter filter, boolean exact) {
+        VectorQuery query = new VectorQuery(queryVector, topK, minScore, filter);
+        query.setExact(exact);
+        return search(tenantId, kbId, query);
+    }
+    /**
+     * KNN search with every option of {@link VectorQuery}; a null oversample takes the namespace's.
+     */
+    List<SearchResult> search(String tenantId, String kbId, VectorQuery query);
+    /**
+     * Run several KNN searches concurrently against the same index snapshot.
+     *
+     * @return one result list per query, in request order
+     */
+    List<List<SearchResult>> searchBatch(String tenantId, String kbId, List<VectorQuery> queries);
+    /**
+     * Full-text (BM25) search over chunk text.
+     */
+    List<SearchResult> keywordSearch(String tenantId, String kbId, String queryText, int topK, MetadataFilter filter);
+    /**
+     * Run a BM25 leg and a KNN leg concurrently against the same index snapshot.
+     * {@code minScore} applies to the vector leg only.
+     */
+    HybridHits hybridSearch(String tenantId, String kbId, String queryText, float[] queryVector, int topK, float minScore,
+                            MetadataFilter filter);
     void deleteByDoc(String tenantId, String kbId, String docId);
+    /**
+     * Chunks of a document in position order.
+     */
     List<SearchResult> findByDoc(String tenantId, String kbId, String docId);
     /**
-     * List distinct document IDs within a tenant+kb namespace.
+     * Stored vectors of a document's chunks, in the same order as {@link #findByDoc}.
+     */
+    List<ChunkVector> findVectorsByDoc(String tenantId, String kbId, String docId);
+    /**
+     * Id, content hash and position of every chunk of a document, without loading text or vectors.
+     */
+    List<ChunkDigest> chunkDigests(String tenantId, String kbId, String docId);
+    /**
+     * Delete chunks by id and move others to new positions in one write; re-ingest uses this to
+     * drop stale chunks and renumber kept ones without rewriting them.
+     */
+    void updateChunks(String tenantId, String kbId, Collection<String> deletedChunkIds, Map<String, Integer> newPositions);
+    /**
+     * Knowledge base ids of a tenant's namespaces, sorted.
+     */
+    List<String> listNamespaces(String tenantId);
+    /**
+     * List distinct document IDs within a tenant+kb namespace, in ingest order.
      */
     List<String> listDocIds(String tenantId, String kbId);
+    /**
+     * A page of the namespace's documents from its catalog; cost depends on the page size, not
+     * on the number of chunks. Ties are broken by docId.
+     */
+    DocumentPage listDocuments(String tenantId, String kbId, int offset, int limit, DocumentInfo.SortKey sort, boolean descending);
+    /**
+     * Block until every write already applied to the namespace is durably committed.
+     * Whether upsert/deleteByDoc are already durable when they return depends on the
+     * store's durability policy.
+     */
+    void flush(String tenantId, String kbId);
+    /**
+     * Create a namespace with explicit index settings; null fields take the store defaults.
+     * Namespaces that are first touched by a write are created implicitly with the defaults.
+     *
+     * @return the effective settings
+     * @throws IllegalArgumentException if the namespace already holds data
+     */
+    IndexSettings createNamespace(String tenantId, String kbId, IndexSettings settings);
+    /**
+     * Effective index settings of a namespace.
+     */
+    IndexSettings getNamespaceSettings(String tenantId, String kbId);
+    /**
+     * Segment count, document and deleted-document counts and size of the namespace's index.
+     */
+    SegmentStats segmentStats(String tenantId, String kbId);
+    /**
+     * Merge the namespace's segments and expunge deleted documents now, regardless of the
+     * background maintenance thresholds.
+     *
+     * @return the segment stats afterwards
+     */
+    SegmentStats maintain(String tenantId, String kbId);
+    /**
+     * Stream a snapshot of the namespace (settings, chunk ids, text, metadata and raw vectors) to {@code out}.
+     *
+     * @return number of chunks written
+     */
+    long exportSnapshot(String tenantId, String kbId, OutputStream out) throws IOException;
+    /**
+     * Load a snapshot written by {@link #exportSnapshot} into a namespace that holds no data yet,
+     * without re-embedding. The namespace takes the snapshot's index settings.
+     *
+     * @return number of chunks loaded
+     * @throws IllegalArgumentException if the namespace already holds data or the snapshot is malformed
+     */
+    long importSnapshot(String tenantId, String kbId, InputStream in) throws IOException;
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.krag.embedding;
+
+import com.krag.core.embed.EmbeddingModel;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches single-text embeddings (query embeddings) in front of another model.
+ * Entries are keyed by model id plus the exact text, bounded by an estimated byte budget
+ * with LRU eviction, and expire after a TTL. Concurrent misses for the same key share one
+ * delegate call. {@link #embedBatch} (document chunks at ingest time) bypasses the cache so
+ * bulk loads do not evict hot query vectors.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+    // Rough per-entry overhead: map node, entry object, key string header, array header
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    private final EmbeddingModel delegate;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Entry> lru = new LinkedHashMap<>(256, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+
+    private static final class Entry {
+        final float[] vector;
+        final long expiresAt;
+        final long size;
+
+        Entry(float[] vector, long expiresAt, long size) {
+            this.vector = vector;
+            this.expiresAt = expiresAt;
+            this.size = size;
+        }
+    }
+
+    /**
+     * @param maxBytes   estimated memory budget for cached vectors and keys
+     * @param ttlSeconds entry lifetime; 0 disables expiry
+     */
+    public CachingEmbeddingModel(EmbeddingModel delegate, boolean enabled, long maxBytes, long ttlSeconds) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("embedding cache max-bytes must be > 0");
+        if (ttlSeconds < 0) throw new IllegalArgumentException("embedding cache ttl-seconds must be >= 0");
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttlSeconds == 0 ? Long.MAX_VALUE : ttlSeconds * 1_000_000_000L;
+    }
+
+    @Override
+    public String id() { return delegate.id(); }
+
+    @Override
+    public int dimension() { return delegate.dimension(); }
+
+    @Override
+    public float[] embed(String text) {
+        if (!enabled) return delegate.embed(text);
+        String key = key(text);
+        float[] cached = get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.clone();
+        }
+        CompletableFuture<float[]> mine = new CompletableFuture<>();
+        CompletableFuture<float[]> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return join(running).clone();
+        }
+        misses.incrementAndGet();
+        try {
+            float[] v = delegate.embed(text);
+            put(key, v.clone());
+            mine.complete(v);
+            return v.clone();
+        } catch (RuntimeException | Error e) {
+            loadFailures.incrementAndGet();
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Override
+    public List<float[]> embedBatch(List<String> texts) {
+        return delegate.embedBatch(texts);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        long h = hits.get();
+        long total = h + misses.get() + coalesced.get();
+        m.put("enabled", enabled);
+        synchronized (lru) {
+            m.put("entries", lru.size());
+            m.put("bytes", bytes);
+        }
+        m.put("maxBytes", maxBytes);
+        m.put("hits", h);
+        m.put("misses", misses.get());
+        m.put("coalesced", coalesced.get());
+        m.put("hitRate", total == 0 ? 0d : (double) (h + coalesced.get()) / total);
+        m.put("evictions", evictions.get());
+        m.put("expirations", expirations.get());
+        m.put("loadFailures", loadFailures.get());
+        return m;
+    }
+
+    public void clear() {
+        synchronized (lru) {
+            lru.clear();
+            bytes = 0;
+        }
+    }
+
+    private float[] get(String key) {
+        synchronized (lru) {
+            Entry e = lru.get(key);
+            if (e == null) return null;
+            if (System.nanoTime() - e.expiresAt >= 0) {
+                lru.remove(key);
+                bytes -= e.size;
+                expirations.incrementAndGet();
+                return null;
+            }
+            return e.vector;
+        }
+    }
+
+    private void put(String key, float[] v) {
+        long size = ENTRY_OVERHEAD_BYTES + 2L * key.length() + 4L * v.length;
+        if (size > maxBytes) return;
+        long expiresAt = ttlNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + ttlNanos;
+        synchronized (lru) {
+            Entry old = lru.put(key, new Entry(v, expiresAt, size));
+            if (old != null) bytes -= old.size;
+            bytes += size;
+            Iterator<Entry> it = lru.values().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Entry eldest = it.next();
+                it.remove();
+                bytes -= eldest.size;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * The exact text the delegate embeds: models may be sensitive to whitespace or Unicode form,
+     * so texts are not normalized, and a cached vector is always the one a miss would compute.
+     */
+    private String key(String text) {
+        return delegate.id() + '\u0000' + text;
+    }
+
+    private static float[] join(CompletableFuture<float[]> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.krag.embedding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class EmbeddingConfig {
+
+    /**
+     * The model injected wherever an {@code EmbeddingModel} is requested: the provider model behind the query cache.
+     */
+    @Bean
+    @Primary
+    public CachingEmbeddingModel cachingEmbeddingModel(DummyEmbeddingModel delegate,
+                                                       @Value("${krag.embedding.cache.enabled:true}") boolean enabled,
+                                                       @Value("${krag.embedding.cache.max-bytes:67108864}") long maxBytes,
+                                                       @Value("${krag.embedding.cache.ttl-seconds:3600}") long ttlSeconds) {
+        return new CachingEmbeddingModel(delegate, enabled, maxBytes, ttlSeconds);
+    }
+}
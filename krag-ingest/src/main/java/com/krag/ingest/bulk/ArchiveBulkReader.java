@@ -0,0 +1,80 @@
+package com.krag.ingest.bulk;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the documents of an archive; the path inside the archive becomes the filename. Hidden
+ * entries (dot-files, {@code __MACOSX/}) and entries that are not documents are skipped, entries
+ * whose data cannot be read are reported as failed documents.
+ */
+abstract class ArchiveBulkReader<E extends ArchiveEntry> implements Iterator<BulkDocument> {
+    private final ArchiveInputStream<E> archive;
+    private BulkDocument next;
+
+    ArchiveBulkReader(ArchiveInputStream<E> archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Whether {@code entry} holds a document, as opposed to a directory, link or device.
+     */
+    abstract boolean isDocument(E entry);
+
+    /**
+     * Why the data of {@code entry} cannot be ingested, or null if it can.
+     */
+    String unreadable(E entry) {
+        return archive.canReadEntryData(entry) ? null : "unsupported archive entry: " + entry.getName();
+    }
+
+    /**
+     * Called once the archive has no more entries.
+     *
+     * @throws IOException if the archive did not end where it should
+     */
+    void finish() throws IOException {
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) return true;
+        try {
+            E e;
+            while ((e = archive.getNextEntry()) != null) {
+                if (!isDocument(e) || BulkFormat.isHidden(e.getName())) continue;
+                String error = unreadable(e);
+                if (error != null) {
+                    next = BulkDocument.failed(e.getName(), error);
+                    return true;
+                }
+                // Consumers must not close the archive when they are done with one entry
+                next = BulkDocument.of(e.getName(), Map.of(), new FilterInputStream(archive) {
+                    @Override
+                    public void close() {
+                    }
+                });
+                return true;
+            }
+            finish();
+            return false;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public BulkDocument next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        BulkDocument d = next;
+        next = null;
+        return d;
+    }
+}
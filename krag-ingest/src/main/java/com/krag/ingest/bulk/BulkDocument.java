@@ -0,0 +1,45 @@
+package com.krag.ingest.bulk;
+
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * One document of a bulk ingest request. {@code content} is only readable until the reader
+ * advances to the next document; {@code error} is set instead when the entry itself is malformed.
+ */
+public class BulkDocument {
+    private final String filename;
+    private final String sourceKey;
+    private final Map<String, String> metadata;
+    private final InputStream content;
+    private final String error;
+
+    private BulkDocument(String filename, String sourceKey, Map<String, String> metadata, InputStream content, String error) {
+        this.filename = filename;
+        this.sourceKey = sourceKey;
+        this.metadata = metadata;
+        this.content = content;
+        this.error = error;
+    }
+
+    public static BulkDocument of(String filename, Map<String, String> metadata, InputStream content) {
+        return new BulkDocument(filename, null, metadata, content, null);
+    }
+
+    /**
+     * @param sourceKey stable identity of the document; its stored version is updated incrementally
+     */
+    public static BulkDocument of(String filename, String sourceKey, Map<String, String> metadata, InputStream content) {
+        return new BulkDocument(filename, sourceKey, metadata, content, null);
+    }
+
+    public static BulkDocument failed(String filename, String error) {
+        return new BulkDocument(filename, null, null, null, error);
+    }
+
+    public String getFilename() { return filename; }
+    public String getSourceKey() { return sourceKey; }
+    public Map<String, String> getMetadata() { return metadata; }
+    public InputStream getContent() { return content; }
+    public String getError() { return error; }
+}
@@ -0,0 +1,67 @@
+package com.krag.ingest.bulk;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Container formats accepted by the bulk ingest endpoint, selected by request content type.
+ */
+public enum BulkFormat {
+    NDJSON, ZIP, TAR;
+
+    /**
+     * @throws IllegalArgumentException for an unsupported content type
+     */
+    public static BulkFormat fromContentType(String contentType) {
+        String ct = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (ct.startsWith("application/x-ndjson") || ct.startsWith("application/ndjson")
+                || ct.startsWith("application/jsonl")) {
+            return NDJSON;
+        }
+        if (ct.startsWith("application/zip") || ct.startsWith("application/x-zip-compressed")) {
+            return ZIP;
+        }
+        if (ct.startsWith("application/x-tar") || ct.startsWith("application/gzip") || ct.startsWith("application/x-gzip")) {
+            return TAR;
+        }
+        throw new IllegalArgumentException("bulk content type must be application/x-ndjson, application/zip, "
+                + "application/x-tar or application/gzip (tar.gz), got: " + contentType);
+    }
+
+    /**
+     * Lazily read documents from {@code in}; gzip compression is detected from the stream itself.
+     */
+    public Iterator<BulkDocument> open(InputStream in) throws IOException {
+        InputStream body = gunzipIfNeeded(in);
+        return switch (this) {
+            case NDJSON -> new NdjsonBulkReader(body);
+            case ZIP -> new ZipBulkReader(body);
+            case TAR -> new TarBulkReader(body);
+        };
+    }
+
+    /**
+     * Archive metadata such as {@code __MACOSX/} resource forks and dot-files, which are not documents.
+     */
+    static boolean isHidden(String path) {
+        for (String segment : path.split("/")) {
+            if (segment.startsWith(".") && !segment.equals(".") || segment.equals("__MACOSX")) return true;
+        }
+        return false;
+    }
+
+    private static InputStream gunzipIfNeeded(InputStream in) throws IOException {
+        BufferedInputStream b = new BufferedInputStream(in, 64 * 1024);
+        b.mark(2);
+        int b0 = b.read();
+        int b1 = b.read();
+        b.reset();
+        // Concatenated gzip members (e.g. appended with cat) form one stream
+        return b0 == 0x1f && b1 == 0x8b ? new GzipCompressorInputStream(b, true) : b;
+    }
+}
@@ -0,0 +1,102 @@
+package com.krag.ingest.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * One JSON object per line: {@code {"filename": "a.txt", "text": "...", "metadata": {"k": "v"}}},
+ * optionally with a {@code "sourceKey"} that identifies the document across re-ingests.
+ * A line that is not such an object yields a failed document instead of aborting the request.
+ */
+final class NdjsonBulkReader implements Iterator<BulkDocument> {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BufferedReader reader;
+    private int lineNo;
+    private BulkDocument next;
+
+    NdjsonBulkReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) return true;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (!line.isBlank()) {
+                    next = parse(line);
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public BulkDocument next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        BulkDocument d = next;
+        next = null;
+        return d;
+    }
+
+    private BulkDocument parse(String line) {
+        String where = "line " + lineNo;
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(line);
+        } catch (JsonProcessingException e) {
+            return BulkDocument.failed(where, "invalid JSON: " + e.getOriginalMessage());
+        }
+        if (node == null || !node.isObject()) {
+            return BulkDocument.failed(where, "record must be a JSON object");
+        }
+        JsonNode filename = node.get("filename");
+        JsonNode text = node.get("text");
+        if (filename == null || !filename.isTextual() || filename.asText().isBlank()) {
+            return BulkDocument.failed(where, "filename is required");
+        }
+        if (text == null || !text.isTextual()) {
+            return BulkDocument.failed(filename.asText(), "text is required");
+        }
+        JsonNode sourceKey = node.get("sourceKey");
+        if (sourceKey != null && !sourceKey.isNull() && (!sourceKey.isTextual() || sourceKey.asText().isBlank())) {
+            return BulkDocument.failed(filename.asText(), "sourceKey must be a non-blank string");
+        }
+        Map<String, String> metadata = new LinkedHashMap<>();
+        JsonNode md = node.get("metadata");
+        if (md != null && !md.isNull()) {
+            if (!md.isObject()) {
+                return BulkDocument.failed(filename.asText(), "metadata must be an object");
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> it = md.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> e = it.next();
+                if (!e.getValue().isValueNode() || e.getValue().isNull()) {
+                    return BulkDocument.failed(filename.asText(), "metadata values must be scalars: " + e.getKey());
+                }
+                metadata.put(e.getKey(), e.getValue().asText());
+            }
+        }
+        byte[] bytes = text.asText().getBytes(StandardCharsets.UTF_8);
+        String key = sourceKey == null || sourceKey.isNull() ? null : sourceKey.asText().trim();
+        return BulkDocument.of(filename.asText().trim(), key, metadata, new ByteArrayInputStream(bytes));
+    }
+}
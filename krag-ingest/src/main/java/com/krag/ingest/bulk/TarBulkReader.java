@@ -0,0 +1,76 @@
+package com.krag.ingest.bulk;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the regular files of a ustar/GNU/pax tar archive, honouring GNU long names and pax
+ * {@code path} records. Links, directories, devices and hidden files are skipped; sparse files
+ * are reported as failed documents.
+ */
+final class TarBulkReader extends ArchiveBulkReader<TarArchiveEntry> {
+    private final CountingStream raw;
+
+    TarBulkReader(InputStream in) {
+        this(new CountingStream(in));
+    }
+
+    private TarBulkReader(CountingStream raw) {
+        super(new TarArchiveInputStream(raw, StandardCharsets.UTF_8.name()));
+        this.raw = raw;
+    }
+
+    @Override
+    boolean isDocument(TarArchiveEntry entry) {
+        byte flag = entry.getLinkFlag();
+        return flag == TarConstants.LF_NORMAL || flag == TarConstants.LF_OLDNORM
+                || flag == TarConstants.LF_CONTIG || flag == TarConstants.LF_GNUTYPE_SPARSE;
+    }
+
+    @Override
+    String unreadable(TarArchiveEntry entry) {
+        if (entry.isSparse()) return "sparse tar entries are not supported: " + entry.getName();
+        return super.unreadable(entry);
+    }
+
+    @Override
+    void finish() throws IOException {
+        // A partial header block reads as the end of the archive; tar archives end on a block boundary
+        if (raw.count % TarConstants.DEFAULT_RCDSIZE != 0) throw new IOException("truncated tar archive");
+    }
+
+    private static final class CountingStream extends FilterInputStream {
+        private long count;
+
+        CountingStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.krag.ingest.bulk;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the file entries of a zip archive. Encrypted entries and unsupported compression
+ * methods are reported as failed documents.
+ */
+final class ZipBulkReader extends ArchiveBulkReader<ZipArchiveEntry> {
+
+    ZipBulkReader(InputStream in) {
+        // Stored entries followed by a data descriptor are what streaming zip writers produce
+        super(new ZipArchiveInputStream(in, StandardCharsets.UTF_8.name(), true, true));
+    }
+
+    @Override
+    boolean isDocument(ZipArchiveEntry entry) {
+        return !entry.isDirectory() && !entry.isUnixSymlink();
+    }
+}
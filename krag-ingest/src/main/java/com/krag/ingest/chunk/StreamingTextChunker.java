@@ -0,0 +1,286 @@
+package com.krag.ingest.chunk;
+
+import com.krag.core.chunk.TextChunker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Chunker that pulls paragraphs lazily and emits chunks one at a time. Each chunk ends at the
+ * best boundary in the second half of its size budget: a paragraph break, then a sentence end
+ * (including CJK punctuation), then whitespace or a CJK clause mark, and only then a hard cut.
+ * Sizes are measured in characters or in approximate tokens; consecutive chunks may overlap.
+ * Besides a reused window buffer, the only allocations are the emitted strings.
+ */
+@Component
+@Primary
+public class StreamingTextChunker implements TextChunker {
+
+    public enum SizeUnit { CHARS, TOKENS }
+
+    // Token estimate: one per CJK character or symbol, one per started run of this many word characters
+    private static final int WORD_PIECE_CHARS = 8;
+    // Consumed window prefix is dropped once it is at least this long and at least half the buffer
+    private static final int COMPACT_THRESHOLD = 8192;
+
+    private final SizeUnit unit;
+    private final int overlap;
+
+    public StreamingTextChunker(@Value("${krag.ingest.chunk.size-unit:CHARS}") SizeUnit unit,
+                                @Value("${krag.ingest.chunk.overlap:0}") int overlap) {
+        if (overlap < 0) throw new IllegalArgumentException("krag.ingest.chunk.overlap must be >= 0");
+        this.unit = unit;
+        this.overlap = overlap;
+    }
+
+    @Override
+    public List<String> chunk(List<String> texts, int maxTokensOrChars) {
+        List<String> out = new ArrayList<>();
+        chunkStream(texts.iterator(), maxTokensOrChars).forEachRemaining(out::add);
+        return out;
+    }
+
+    @Override
+    public Iterator<String> chunkStream(Iterator<String> texts, int maxTokensOrChars) {
+        if (maxTokensOrChars <= 0) throw new IllegalArgumentException("chunk size must be > 0");
+        // Overlap is capped so every chunk still advances by at least half its budget
+        return new ChunkIterator(texts, maxTokensOrChars, Math.min(overlap, maxTokensOrChars / 2));
+    }
+
+    private final class ChunkIterator implements Iterator<String> {
+        private final Iterator<String> source;
+        private final int max;
+        private final int overlap;
+        private final StringBuilder buf = new StringBuilder();
+        private boolean firstParagraph = true;
+        private int pos;           // start of the next chunk in buf
+        private String next;
+        // Starts of "\n\n" in buf, ascending, in breaks[breakHead..breakCount); found once per appended
+        // paragraph so that cut selection need not scan a window for paragraph breaks
+        private int[] breaks = new int[16];
+        private int breakHead;
+        private int breakCount;
+
+        // Incremental token scan of the window starting at pos
+        private int scanIdx;
+        private int scanUsed;
+        private int scanRun;
+        private int limit;         // end of the window once its budget is exhausted
+
+        ChunkIterator(Iterator<String> source, int max, int overlap) {
+            this.source = source;
+            this.max = max;
+            this.overlap = overlap;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) next = advance();
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String s = next;
+            next = null;
+            return s;
+        }
+
+        private String advance() {
+            while (true) {
+                boolean full = windowFull();
+                if (!full && source.hasNext()) {
+                    append(source.next());
+                    continue;
+                }
+                if (pos >= buf.length()) return null;
+                int cut = full ? boundary(limit) : buf.length();
+                String chunk = trimmed(pos, cut);
+                moveTo(full ? overlapStart(cut) : buf.length());
+                if (chunk != null) return chunk;
+            }
+        }
+
+        private void append(String paragraph) {
+            if (paragraph == null) return;
+            int from = Math.max(0, buf.length() - 1);
+            if (!firstParagraph) buf.append("\n\n");
+            firstParagraph = false;
+            buf.append(paragraph);
+            // From one char back: a break may straddle the old end of the buffer
+            for (int i = buf.indexOf("\n\n", from); i >= 0; i = buf.indexOf("\n\n", i + 1)) {
+                if (breakCount == breaks.length) {
+                    breaks = Arrays.copyOf(breaks, breaks.length * 2);
+                }
+                breaks[breakCount++] = i;
+            }
+        }
+
+        /**
+         * True once the budget runs out before the end of the buffered text; {@link #limit} is then
+         * the exclusive end of the largest window that fits.
+         */
+        private boolean windowFull() {
+            if (unit == SizeUnit.CHARS) {
+                limit = pos + max;
+                if (limit >= buf.length()) return false;
+                if (Character.isLowSurrogate(buf.charAt(limit)) && limit - 1 > pos) limit--;
+                return true;
+            }
+            while (scanIdx < buf.length()) {
+                int cp = buf.codePointAt(scanIdx);
+                int cost;
+                if (Character.isWhitespace(cp)) {
+                    scanRun = 0;
+                    cost = 0;
+                } else if (isWordChar(cp)) {
+                    cost = scanRun % WORD_PIECE_CHARS == 0 ? 1 : 0;
+                    scanRun++;
+                } else {
+                    scanRun = 0;
+                    cost = 1;
+                }
+                if (scanUsed + cost > max) {
+                    limit = scanIdx;
+                    return true;
+                }
+                scanUsed += cost;
+                scanIdx += Character.charCount(cp);
+            }
+            return false;
+        }
+
+        /**
+         * Best cut in the second half of [pos, limit); cutting exactly at limit is allowed. Among
+         * cuts of the same kind the latest wins, so the sentence and clause search runs backward
+         * from limit and usually stops after one sentence instead of covering half the window.
+         */
+        private int boundary(int limit) {
+            int mid = pos + (limit - pos) / 2;
+            boolean spaceAtLimit = limit < buf.length() && Character.isWhitespace(buf.charAt(limit));
+            // The window ends right before a paragraph break: a clean cut at full size
+            if (spaceAtLimit && buf.charAt(limit) == '\n' && limit + 1 < buf.length() && buf.charAt(limit + 1) == '\n') {
+                return limit;
+            }
+            while (breakHead < breakCount && breaks[breakHead] <= pos) breakHead++;
+            int paragraph = -1;
+            for (int k = breakHead; k < breakCount && breaks[k] < limit; k++) {
+                if (breaks[k] >= mid) paragraph = breaks[k];
+            }
+            if (paragraph > pos) return paragraph;
+            // No paragraph break in range, so a '\n' here is a line break and ends a sentence
+            int soft = spaceAtLimit ? limit : -1;
+            for (int i = limit - 1; i >= mid; i--) {
+                char c = buf.charAt(i);
+                if (c == '\n' || isSentenceEnd(c, i)) {
+                    return i + 1;
+                } else if (soft < 0 && (Character.isWhitespace(c) || isClauseMark(c))) {
+                    soft = i + 1;
+                }
+            }
+            if (soft > pos) return soft;
+            return limit;
+        }
+
+        private boolean isSentenceEnd(char c, int i) {
+            switch (c) {
+                case '。', '！', '？', '；', '…' -> {
+                    return true;
+                }
+                case '.', '!', '?', ';' -> {
+                    // "3.14" or "e.g" are not sentence ends
+                    return i + 1 >= buf.length() || Character.isWhitespace(buf.charAt(i + 1));
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Where the chunk after one ending at {@code cut} starts: {@code overlap} units back,
+         * moved forward out of any word it would split.
+         */
+        private int overlapStart(int cut) {
+            if (overlap == 0) return cut;
+            int start;
+            if (unit == SizeUnit.CHARS) {
+                start = cut - overlap;
+            } else {
+                start = cut;
+                int used = 0;
+                int run = 0;
+                while (start > pos) {
+                    int cp = Character.codePointBefore(buf, start);
+                    int cost;
+                    if (Character.isWhitespace(cp)) {
+                        run = 0;
+                        cost = 0;
+                    } else if (isWordChar(cp)) {
+                        cost = run % WORD_PIECE_CHARS == 0 ? 1 : 0;
+                        run++;
+                    } else {
+                        run = 0;
+                        cost = 1;
+                    }
+                    if (used + cost > overlap) break;
+                    used += cost;
+                    start -= Character.charCount(cp);
+                }
+            }
+            if (start > 0 && start < cut && Character.isLowSurrogate(buf.charAt(start))) start++;
+            while (start > 0 && start < cut && isWordChar(buf.charAt(start - 1)) && isWordChar(buf.charAt(start))) {
+                start++;
+            }
+            return start > pos ? start : cut;
+        }
+
+        private void moveTo(int newPos) {
+            pos = newPos;
+            if (pos >= COMPACT_THRESHOLD && pos >= buf.length() / 2) {
+                buf.delete(0, pos);
+                int kept = 0;
+                for (int k = breakHead; k < breakCount; k++) {
+                    if (breaks[k] >= pos) breaks[kept++] = breaks[k] - pos;
+                }
+                breakHead = 0;
+                breakCount = kept;
+                pos = 0;
+            }
+            scanIdx = pos;
+            scanUsed = 0;
+            scanRun = 0;
+        }
+
+        private String trimmed(int from, int to) {
+            while (from < to && Character.isWhitespace(buf.charAt(from))) from++;
+            while (to > from && Character.isWhitespace(buf.charAt(to - 1))) to--;
+            return from < to ? buf.substring(from, to) : null;
+        }
+    }
+
+    private static boolean isClauseMark(char c) {
+        return c == '，' || c == '、' || c == '：' || c == ',';
+    }
+
+    /**
+     * Letters and digits of space-delimited scripts; CJK ideographs, kana and hangul count as
+     * standalone tokens instead.
+     */
+    private static boolean isWordChar(int cp) {
+        if (cp < 0x1100) return Character.isLetterOrDigit(cp);   // below the first hangul block: no CJK
+        // Fast path for the common CJK blocks before the general script lookup
+        if ((cp >= 0x4E00 && cp <= 0x9FFF) || (cp >= 0x3040 && cp <= 0x30FF) || (cp >= 0xAC00 && cp <= 0xD7AF)) return false;
+        if (!Character.isLetterOrDigit(cp)) return false;
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script != Character.UnicodeScript.HAN && script != Character.UnicodeScript.HIRAGANA
+                && script != Character.UnicodeScript.KATAKANA && script != Character.UnicodeScript.HANGUL;
+    }
+}
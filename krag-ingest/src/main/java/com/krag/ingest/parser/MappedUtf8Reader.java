@@ -0,0 +1,85 @@
+package com.krag.ingest.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes a UTF-8 file straight from memory-mapped windows, so the bytes are paged in by the OS
+ * instead of being copied through heap buffers. Files larger than one window are mapped piecewise;
+ * a multi-byte sequence split across windows is re-read at the start of the next one.
+ */
+final class MappedUtf8Reader extends Reader {
+    private static final long WINDOW_BYTES = 256L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+    private boolean flushed;
+
+    MappedUtf8Reader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.position() == off) {
+            if (window == null || !window.hasRemaining()) {
+                if (!mapNext()) {
+                    if (!flushed) {
+                        decoder.decode(ByteBuffer.allocate(0), out, true);
+                        decoder.flush(out);
+                        flushed = true;
+                    }
+                    break;
+                }
+            }
+            boolean last = windowEnd >= size;
+            CoderResult r = decoder.decode(window, out, last);
+            if (r.isError()) r.throwException();
+            if (r.isUnderflow() && window.hasRemaining() && !last) {
+                // Incomplete sequence at the window end: remap starting at its first byte
+                windowStart = windowEnd - window.remaining();
+                window = null;
+            }
+        }
+        int n = out.position() - off;
+        return n == 0 ? -1 : n;
+    }
+
+    private boolean mapNext() throws IOException {
+        if (window != null) {
+            windowStart = windowEnd;
+        }
+        if (windowStart >= size) {
+            window = null;
+            return false;
+        }
+        windowEnd = Math.min(size, windowStart + WINDOW_BYTES);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
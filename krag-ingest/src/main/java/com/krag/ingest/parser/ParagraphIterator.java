@@ -0,0 +1,140 @@
+package com.krag.ingest.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily splits text into paragraphs separated by blank lines, with the same rules as
+ * {@link SimpleTxtParser#parseToTexts}: lines of a paragraph are joined by '\n' and a line that is
+ * empty after trimming ends the paragraph. Reads through a fixed char buffer, so memory is bounded
+ * by the longest paragraph; paragraphs beyond {@link #MAX_PARAGRAPH_CHARS} (e.g. single-line logs)
+ * are split at whitespace, or hard at twice that length. Closes the reader at end of input.
+ */
+final class ParagraphIterator implements Iterator<String>, Closeable {
+    static final int MAX_PARAGRAPH_CHARS = 1 << 20;
+
+    private final Reader reader;
+    private final char[] buf = new char[8192];
+    private int bufPos;
+    private int bufLen;
+    private boolean eof;
+
+    private final StringBuilder paragraph = new StringBuilder();
+    private int sepStart;            // paragraph length before the current line (and its '\n')
+    private boolean inLine;          // chars of the current line have been appended
+    private boolean lineHasContent;  // current line has a char that trim() would keep
+    private boolean skipLf;          // previous char was '\r'
+    private String next;
+
+    ParagraphIterator(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !eof) {
+            try {
+                next = advance();
+            } catch (IOException e) {
+                closeQuietly();
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        String p = next;
+        next = null;
+        return p;
+    }
+
+    private String advance() throws IOException {
+        while (true) {
+            if (bufPos == bufLen) {
+                bufLen = reader.read(buf, 0, buf.length);
+                bufPos = 0;
+                if (bufLen <= 0) {
+                    bufLen = 0;
+                    eof = true;
+                    String last = endLine();
+                    if (last == null) last = take();
+                    close();
+                    return last;
+                }
+            }
+            char c = buf[bufPos++];
+            if (skipLf) {
+                skipLf = false;
+                if (c == '\n') continue;
+            }
+            if (c == '\n' || c == '\r') {
+                skipLf = c == '\r';
+                String p = endLine();
+                if (p != null) return p;
+                continue;
+            }
+            if (!inLine) {
+                sepStart = paragraph.length();
+                if (paragraph.length() > 0) paragraph.append('\n');
+                inLine = true;
+                lineHasContent = false;
+            }
+            paragraph.append(c);
+            if (c > ' ') {
+                lineHasContent = true;
+                if (paragraph.length() < 2 * MAX_PARAGRAPH_CHARS) continue;
+            } else if (paragraph.length() < MAX_PARAGRAPH_CHARS) {
+                continue;
+            }
+            // Oversized paragraph: emit what we have and continue the line as a new paragraph
+            String p = take();
+            sepStart = 0;
+            lineHasContent = false;
+            if (p != null) return p;
+        }
+    }
+
+    /**
+     * Finish the current line; returns the paragraph it completes, if any.
+     */
+    private String endLine() {
+        if (inLine && lineHasContent) {
+            inLine = false;
+            return null;
+        }
+        if (inLine) {
+            // Whitespace-only line: drop it and close the paragraph
+            paragraph.setLength(sepStart);
+            inLine = false;
+        }
+        return take();
+    }
+
+    private String take() {
+        if (paragraph.length() == 0) return null;
+        String p = paragraph.toString();
+        paragraph.setLength(0);
+        return p;
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // Already failing
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        eof = true;
+        reader.close();
+    }
+}
@@ -3,11 +3,14 @@ package com.krag.ingest.parser;
 import com.krag.core.parser.DocumentParser;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 @Component
@@ -21,26 +24,22 @@ public class SimpleTxtParser implements DocumentParser {
 
     @Override
     public List<String> parseToTexts(InputStream in, String filename) {
+        List<String> paragraphs = new ArrayList<>();
+        parseStream(in, filename).forEachRemaining(paragraphs::add);
+        return paragraphs.isEmpty() ? List.of("") : paragraphs;
+    }
+
+    @Override
+    public Iterator<String> parseStream(InputStream in, String filename) {
+        return new ParagraphIterator(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Iterator<String> parseFile(Path file, String filename) {
         try {
-            BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
-            List<String> paragraphs = new ArrayList<>();
-            StringBuilder current = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.trim().isEmpty()) {
-                    if (current.length() > 0) {
-                        paragraphs.add(current.toString());
-                        current.setLength(0);
-                    }
-                } else {
-                    if (current.length() > 0) current.append('\n');
-                    current.append(line);
-                }
-            }
-            if (current.length() > 0) paragraphs.add(current.toString());
-            return paragraphs.isEmpty() ? List.of("") : paragraphs;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            return new ParagraphIterator(new MappedUtf8Reader(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
-}
\ No newline at end of file
+}
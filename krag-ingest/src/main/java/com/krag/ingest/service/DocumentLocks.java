@@ -0,0 +1,76 @@
+package com.krag.ingest.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One lock per document key, created on first use and dropped once no thread holds or waits
+ * for it. Ingests only ever wait for ingests of the very same document.
+ */
+final class DocumentLocks {
+
+    private static final class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+        int users;    // holders and waiters; guarded by the map's compute on this key
+    }
+
+    /**
+     * A held document lock; release exactly once, from the thread that acquired it.
+     */
+    final class Held {
+        private final String key;
+        private final Entry entry;
+
+        private Held(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        void release() {
+            entry.lock.unlock();
+            unref(key);
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> locks = new ConcurrentHashMap<>();
+
+    Held lock(String key) {
+        Entry e = ref(key);
+        e.lock.lock();
+        return new Held(key, e);
+    }
+
+    /**
+     * @return the held lock, or null if another ingest kept it for {@code timeoutMs}
+     */
+    Held tryLock(String key, long timeoutMs) throws InterruptedException {
+        Entry e = ref(key);
+        boolean locked = false;
+        try {
+            locked = e.lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+        } finally {
+            if (!locked) unref(key);
+        }
+        return locked ? new Held(key, e) : null;
+    }
+
+    /**
+     * Number of documents currently locked or waited for.
+     */
+    int size() {
+        return locks.size();
+    }
+
+    private Entry ref(String key) {
+        return locks.compute(key, (k, e) -> {
+            Entry entry = e != null ? e : new Entry();
+            entry.users++;
+            return entry;
+        });
+    }
+
+    private void unref(String key) {
+        locks.computeIfPresent(key, (k, e) -> --e.users == 0 ? null : e);
+    }
+}
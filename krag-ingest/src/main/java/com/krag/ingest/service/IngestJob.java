@@ -0,0 +1,62 @@
+package com.krag.ingest.service;
+
+/**
+ * State of one asynchronous ingest, as reported by the job status endpoint.
+ */
+public class IngestJob {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    private final String jobId;
+    private final String tenantId;
+    private final String kbId;
+    private final String filename;
+    private final IngestProgress progress = new IngestProgress();
+    private final long createdAt = System.currentTimeMillis();
+    private volatile Status status = Status.QUEUED;
+    private volatile String docId;       // set on success
+    private volatile String error;       // set on failure
+    private volatile Long startedAt;
+    private volatile Long finishedAt;
+
+    IngestJob(String jobId, String tenantId, String kbId, String filename) {
+        this.jobId = jobId;
+        this.tenantId = tenantId;
+        this.kbId = kbId;
+        this.filename = filename;
+    }
+
+    public String getJobId() { return jobId; }
+    public String getTenantId() { return tenantId; }
+    public String getKbId() { return kbId; }
+    public String getFilename() { return filename; }
+    public Status getStatus() { return status; }
+    public String getDocId() { return docId; }
+    public String getError() { return error; }
+    public int getChunksEmbedded() { return progress.getChunksEmbedded(); }
+    public int getChunksIndexed() { return progress.getChunksIndexed(); }
+    public long getCreatedAt() { return createdAt; }
+    public Long getStartedAt() { return startedAt; }
+    public Long getFinishedAt() { return finishedAt; }
+
+    public boolean isDone() { return status == Status.SUCCEEDED || status == Status.FAILED; }
+
+    IngestProgress progress() { return progress; }
+
+    void started() {
+        startedAt = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    void succeeded(String docId) {
+        this.docId = docId;
+        finishedAt = System.currentTimeMillis();
+        status = Status.SUCCEEDED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finishedAt = System.currentTimeMillis();
+        status = Status.FAILED;
+    }
+}
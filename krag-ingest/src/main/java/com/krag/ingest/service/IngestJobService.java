@@ -0,0 +1,168 @@
+package com.krag.ingest.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs ingests in the background on a bounded worker pool so HTTP threads return immediately.
+ * Submissions beyond the queue capacity are rejected with {@link IngestQueueFullException},
+ * before the upload is read: callers {@link #reserve} a slot first.
+ */
+@Service
+public class IngestJobService implements DisposableBean {
+
+    private final IngestionService ingestionService;
+    private final ThreadPoolExecutor workers;
+    private final long retentionMs;
+    private final ConcurrentHashMap<String, IngestJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong failures = new AtomicLong();
+    // Admitted jobs that have not finished (running or queued), at most workers + queue capacity
+    private final Semaphore admission;
+
+    public IngestJobService(IngestionService ingestionService,
+                            @Value("${krag.ingest.jobs.workers:2}") int workers,
+                            @Value("${krag.ingest.jobs.queue-capacity:64}") int queueCapacity,
+                            @Value("${krag.ingest.jobs.retention-seconds:3600}") long retentionSeconds) {
+        if (workers <= 0) throw new IllegalArgumentException("krag.ingest.jobs.workers must be > 0");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("krag.ingest.jobs.queue-capacity must be > 0");
+        this.ingestionService = ingestionService;
+        this.retentionMs = retentionSeconds * 1000L;
+        this.admission = new Semaphore(workers + queueCapacity);
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "krag-ingest-job-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * A slot for one job, to be taken before spooling its upload so that a saturated server
+     * rejects the request without reading it. Pass it to {@link #submitFile}, or close it to give
+     * the slot back.
+     *
+     * @throws IngestQueueFullException if every slot is taken
+     */
+    public Reservation reserve() {
+        if (!admission.tryAcquire()) {
+            throw new IngestQueueFullException("ingest queue is full, retry later");
+        }
+        return new Reservation();
+    }
+
+    /**
+     * Queue an ingest of {@code file}, which the job takes ownership of and deletes when done.
+     */
+    public IngestJob submitFile(Reservation slot, String tenantId, String kbId, String filename, Path file,
+                                IngestOptions options) {
+        // From here on the slot is released when the job finishes
+        slot.consume();
+        pruneFinished();
+        IngestJob job = new IngestJob(UUID.randomUUID().toString(), tenantId, kbId, filename);
+        options.setProgress(job.progress());
+        jobs.put(job.getJobId(), job);
+        try {
+            workers.execute(() -> run(job, file, options));
+        } catch (RejectedExecutionException e) {
+            // A worker that just finished may not have picked up the queue yet
+            admission.release();
+            jobs.remove(job.getJobId());
+            deleteQuietly(file);
+            throw new IngestQueueFullException("ingest queue is full, retry later");
+        }
+        return job;
+    }
+
+    /**
+     * The job, or null if it is unknown or has expired.
+     */
+    public IngestJob get(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("running", workers.getActiveCount());
+        m.put("queued", workers.getQueue().size());
+        m.put("queueCapacity", workers.getQueue().size() + workers.getQueue().remainingCapacity());
+        m.put("workers", workers.getMaximumPoolSize());
+        m.put("failures", failures.get());
+        return m;
+    }
+
+    private void run(IngestJob job, Path file, IngestOptions options) {
+        job.started();
+        try {
+            Map<String, Object> result = ingestionService.ingestFile(job.getTenantId(), job.getKbId(), file, job.getFilename(), options);
+            job.succeeded(String.valueOf(result.get("docId")));
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            job.failed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            deleteQuietly(file);
+            admission.release();
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Temp file; the OS cleans up eventually
+        }
+    }
+
+    private void pruneFinished() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        for (Iterator<IngestJob> it = jobs.values().iterator(); it.hasNext(); ) {
+            IngestJob j = it.next();
+            if (j.isDone() && j.getFinishedAt() != null && j.getFinishedAt() < cutoff) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * See {@link #reserve}.
+     */
+    public final class Reservation implements AutoCloseable {
+        private boolean held = true;
+
+        private void consume() {
+            if (!held) throw new IllegalStateException("reservation already used");
+            held = false;
+        }
+
+        @Override
+        public void close() {
+            if (held) {
+                held = false;
+                admission.release();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+    }
+}
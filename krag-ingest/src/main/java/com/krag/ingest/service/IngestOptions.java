@@ -0,0 +1,32 @@
+package com.krag.ingest.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-request ingest options.
+ */
+public class IngestOptions {
+    private boolean waitDurable;                          // block until the chunks are committed, not just searchable
+    private Map<String, String> metadata = new LinkedHashMap<>(); // copied onto every chunk; filterable at query time
+    private IngestProgress progress;                      // optional live counters (async jobs)
+    private String sourceKey;                             // stable document identity; re-ingest updates the stored version
+    private boolean incremental;                          // use the filename as source key when none is given
+
+    public static IngestOptions defaults() { return new IngestOptions(); }
+
+    public boolean isWaitDurable() { return waitDurable; }
+    public void setWaitDurable(boolean waitDurable) { this.waitDurable = waitDurable; }
+
+    public Map<String, String> getMetadata() { return metadata; }
+    public void setMetadata(Map<String, String> metadata) { this.metadata = metadata; }
+
+    public IngestProgress getProgress() { return progress; }
+    public void setProgress(IngestProgress progress) { this.progress = progress; }
+
+    public String getSourceKey() { return sourceKey; }
+    public void setSourceKey(String sourceKey) { this.sourceKey = sourceKey; }
+
+    public boolean isIncremental() { return incremental; }
+    public void setIncremental(boolean incremental) { this.incremental = incremental; }
+}
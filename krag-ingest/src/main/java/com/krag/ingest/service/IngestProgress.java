@@ -0,0 +1,17 @@
+package com.krag.ingest.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live chunk counters of one ingest, updated by the pipeline as batches complete.
+ */
+public class IngestProgress {
+    private final AtomicInteger chunksEmbedded = new AtomicInteger();
+    private final AtomicInteger chunksIndexed = new AtomicInteger();
+
+    public int getChunksEmbedded() { return chunksEmbedded.get(); }
+    public int getChunksIndexed() { return chunksIndexed.get(); }
+
+    void embedded(int n) { chunksEmbedded.addAndGet(n); }
+    void indexed(int n) { chunksIndexed.addAndGet(n); }
+}
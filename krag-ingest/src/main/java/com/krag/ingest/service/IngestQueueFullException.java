@@ -0,0 +1,10 @@
+package com.krag.ingest.service;
+
+/**
+ * Thrown when an async ingest is submitted while the job queue is full; the client should retry later.
+ */
+public class IngestQueueFullException extends RuntimeException {
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -2,57 +2,626 @@ package com.krag.ingest.service;
 
 import com.krag.core.chunk.TextChunker;
 import com.krag.core.embed.EmbeddingModel;
+import com.krag.core.model.ChunkDigest;
 import com.krag.core.model.VectorRecord;
 import com.krag.core.parser.DocumentParser;
 import com.krag.core.store.VectorStore;
+import com.krag.ingest.bulk.BulkDocument;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
-public class IngestionService {
+public class IngestionService implements DisposableBean {
+
+    // A bulk request holds the locks of all its keyed documents until the end; bounding the wait
+    // for each one keeps two such requests from deadlocking on each other
+    private static final long BULK_DOC_LOCK_WAIT_MS = 30_000;
 
     private final DocumentParser parser;
     private final TextChunker chunker;
     private final EmbeddingModel embeddingModel;
     private final VectorStore vectorStore;
 
-    public IngestionService(DocumentParser parser, TextChunker chunker, EmbeddingModel embeddingModel, VectorStore vectorStore) {
+    private final int chunkSize;
+    private final int embedBatchSize;
+    private final int maxInFlightBatches;
+    private final int writeBatchSize;
+    // Shared by all ingests; each ingest bounds its own share via maxInFlightBatches
+    private final ThreadPoolExecutor embedPool;
+    // Serialize re-ingests of the same document: the stored version is read, diffed and replaced
+    // under the lock, so two of them cannot both keep or both delete the same chunks
+    private final DocumentLocks docLocks = new DocumentLocks();
+
+    public IngestionService(DocumentParser parser, TextChunker chunker, EmbeddingModel embeddingModel, VectorStore vectorStore,
+                            @Value("${krag.ingest.chunk.max-size:800}") int chunkSize,
+                            @Value("${krag.ingest.embed-batch-size:32}") int embedBatchSize,
+                            @Value("${krag.ingest.embed-threads:0}") int embedThreads,
+                            @Value("${krag.ingest.max-in-flight-batches:0}") int maxInFlightBatches,
+                            @Value("${krag.ingest.write-batch-size:512}") int writeBatchSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("krag.ingest.chunk.max-size must be > 0");
+        if (embedBatchSize <= 0) throw new IllegalArgumentException("krag.ingest.embed-batch-size must be > 0");
+        if (writeBatchSize <= 0) throw new IllegalArgumentException("krag.ingest.write-batch-size must be > 0");
         this.parser = parser;
         this.chunker = chunker;
         this.embeddingModel = embeddingModel;
         this.vectorStore = vectorStore;
+        int threads = embedThreads > 0 ? embedThreads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = chunkSize;
+        this.embedBatchSize = embedBatchSize;
+        this.maxInFlightBatches = maxInFlightBatches > 0 ? maxInFlightBatches : threads * 2;
+        this.writeBatchSize = writeBatchSize;
+        AtomicInteger seq = new AtomicInteger();
+        this.embedPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "krag-embed-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.embedPool.allowCoreThreadTimeOut(true);
     }
 
     public Map<String, Object> ingestTxt(String tenantId, String kbId, InputStream in, String filename) {
-        String ext = filename != null ? filename.toLowerCase() : "";
-        if (!parser.supports(ext)) {
-            throw new IllegalArgumentException("Unsupported file type: " + filename);
+        return ingestTxt(tenantId, kbId, in, filename, IngestOptions.defaults());
+    }
+
+    /**
+     * Ingest a document read from {@code in}; the stream is consumed lazily and closed by the caller.
+     */
+    public Map<String, Object> ingestTxt(String tenantId, String kbId, InputStream in, String filename, IngestOptions options) {
+        checkSupported(filename);
+        return ingest(tenantId, kbId, parser.parseStream(in, filename), filename, options);
+    }
+
+    /**
+     * Ingest a local file (e.g. a spooled upload); the parser may memory-map it instead of streaming it through the heap.
+     */
+    public Map<String, Object> ingestFile(String tenantId, String kbId, Path file, String filename, IngestOptions options) {
+        checkSupported(filename);
+        return ingest(tenantId, kbId, parser.parseFile(file, filename), filename, options);
+    }
+
+    private Map<String, Object> ingest(String tenantId, String kbId, Iterator<String> paragraphs, String filename,
+                                       IngestOptions options) {
+        String sourceKey = options.getSourceKey() != null ? options.getSourceKey()
+                : options.isIncremental() ? filename : null;
+        ChunkDelta delta = new ChunkDelta();
+        DocumentChunks doc;
+        DocumentLocks.Held docLock = sourceKey != null ? docLocks.lock(docLockKey(tenantId, kbId, sourceKey)) : null;
+        try {
+            // Paragraphs, chunks and embedding batches are all pulled on demand, so memory is
+            // bounded by the pipeline's batch sizes rather than by the document size
+            Iterator<String> chunks = chunker.chunkStream(paragraphs, chunkSize);
+            doc = openDocument(tenantId, kbId, chunks, sourceKey, filename, options.getMetadata(), delta);
+            new ChunkPipeline(tenantId, kbId, options).run(doc, delta);
+        } finally {
+            if (docLock != null) docLock.release();
+            closeQuietly(paragraphs);
+        }
+        if (options.isWaitDurable()) {
+            vectorStore.flush(tenantId, kbId);
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("docId", doc.docId);
+        resp.put("chunks", doc.count());
+        resp.put("dimension", embeddingModel.dimension());
+        if (sourceKey != null) {
+            putDelta(resp, doc);
         }
-        List<String> paragraphs = parser.parseToTexts(in, filename);
-        List<String> chunks = chunker.chunk(paragraphs, 800);
-        List<float[]> vectors = embeddingModel.embedBatch(chunks);
-
-        String docId = UUID.randomUUID().toString();
-        List<VectorRecord> records = new ArrayList<>();
-        for (int i = 0; i < chunks.size(); i++) {
-            VectorRecord r = new VectorRecord();
-            r.setDocId(docId);
-            r.setChunkId(docId + "_" + i);
-            r.setSource(filename);
-            r.setVector(vectors.get(i));
-            Map<String, String> md = new HashMap<>();
-            md.put("text", chunks.get(i));
-            r.setMetadata(md);
-            records.add(r);
-        }
-        vectorStore.upsert(tenantId, kbId, records);
+        return resp;
+    }
 
+    /**
+     * Ingest many documents in one pass: chunks of consecutive documents share embedding batches
+     * and index writes. Documents that cannot be parsed are reported and skipped; a failure of the
+     * embedding model or the store aborts the whole request and removes what was written.
+     */
+    public Map<String, Object> ingestBulk(String tenantId, String kbId, Iterator<BulkDocument> documents,
+                                          IngestOptions options) {
+        BulkChunks chunks = new BulkChunks(tenantId, kbId, documents, options);
+        int embedded;
+        try {
+            embedded = new ChunkPipeline(tenantId, kbId, options).run(chunks, chunks.delta);
+        } finally {
+            chunks.finishCurrent();
+            chunks.unlockDocuments();
+        }
+        if (options.isWaitDurable()) {
+            vectorStore.flush(tenantId, kbId);
+        }
+
+        int failed = 0;
+        for (Map<String, Object> r : chunks.results) {
+            if (r.containsKey("error")) failed++;
+        }
         Map<String, Object> resp = new LinkedHashMap<>();
-        resp.put("docId", docId);
-        resp.put("chunks", chunks.size());
+        resp.put("documents", chunks.results.size());
+        resp.put("failed", failed);
+        resp.put("chunks", chunks.totalChunks);
+        resp.put("embedded", embedded);
         resp.put("dimension", embeddingModel.dimension());
+        resp.put("results", chunks.results);
         return resp;
     }
-}
\ No newline at end of file
+
+    /**
+     * A document's chunk stream. With a source key the docId is derived from the key and the
+     * chunks are diffed against the version already stored under it; without one the document
+     * gets a fresh random docId.
+     */
+    private DocumentChunks openDocument(String tenantId, String kbId, Iterator<String> chunks, String sourceKey,
+                                        String source, Map<String, String> metadata, ChunkDelta delta) {
+        if (sourceKey == null) {
+            return new DocumentChunks(chunks, UUID.randomUUID().toString(), source, metadata, List.of(), delta);
+        }
+        String docId = sourceDocId(sourceKey);
+        return new DocumentChunks(chunks, docId, source, metadata, vectorStore.chunkDigests(tenantId, kbId, docId), delta);
+    }
+
+    private static String sourceDocId(String sourceKey) {
+        return UUID.nameUUIDFromBytes(("source:" + sourceKey).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static String docLockKey(String tenantId, String kbId, String sourceKey) {
+        return tenantId + ":" + kbId + ":" + sourceDocId(sourceKey);
+    }
+
+    private static void putDelta(Map<String, Object> resp, DocumentChunks doc) {
+        resp.put("embedded", doc.count() - doc.kept);
+        resp.put("kept", doc.kept);
+        resp.put("deleted", doc.deleted);
+    }
+
+    private static void closeQuietly(Object o) {
+        if (o instanceof Closeable c) {
+            try {
+                c.close();
+            } catch (IOException ignored) {
+                // Input is fully consumed or abandoned either way
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if no parser handles {@code filename}
+     */
+    public void checkSupported(String filename) {
+        String ext = filename != null ? filename.toLowerCase() : "";
+        if (!parser.supports(ext)) {
+            throw new IllegalArgumentException("Unsupported file type: " + filename);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        embedPool.shutdownNow();
+    }
+
+    /**
+     * Embeds chunks in micro-batches on the embed pool while the calling thread keeps feeding new
+     * batches and writes finished ones in order. Batches may span documents. At most
+     * maxInFlightBatches batches are being embedded and at most writeBatchSize records wait for
+     * the index, so memory stays flat however large the input is. Once everything is written the
+     * re-ingest delta (stale chunks, renumbered kept chunks) is applied in one more write. On
+     * failure everything written is removed again: whole documents that are new, only the new
+     * chunks of documents that replace an earlier version.
+     */
+    private final class ChunkPipeline {
+        private final String tenantId;
+        private final String kbId;
+        private final IngestOptions options;
+
+        private final Deque<Batch> inFlight = new ArrayDeque<>();
+        private final List<VectorRecord> pending = new ArrayList<>();
+        private final Set<String> writtenDocs = new LinkedHashSet<>();
+        private final List<String> writtenChunks = new ArrayList<>();
+        private int written;
+
+        private ChunkPipeline(String tenantId, String kbId, IngestOptions options) {
+            this.tenantId = tenantId;
+            this.kbId = kbId;
+            this.options = options;
+        }
+
+        /**
+         * @return number of chunks embedded and written
+         */
+        int run(Iterator<PendingChunk> chunks, ChunkDelta delta) {
+            try {
+                while (chunks.hasNext()) {
+                    List<PendingChunk> items = new ArrayList<>(embedBatchSize);
+                    while (items.size() < embedBatchSize && chunks.hasNext()) {
+                        items.add(chunks.next());
+                    }
+                    inFlight.add(new Batch(items, embedPool.submit(() -> embed(items))));
+                    // Backpressure: stop reading ahead until the oldest batch is written
+                    if (inFlight.size() >= maxInFlightBatches) {
+                        drainOldest();
+                    }
+                }
+                while (!inFlight.isEmpty()) {
+                    drainOldest();
+                }
+                writePending();
+                // Old chunks go only after the new version is complete, so the document never disappears
+                if (!delta.isEmpty()) {
+                    vectorStore.updateChunks(tenantId, kbId, delta.deleted, delta.moved);
+                }
+                return written;
+            } catch (RuntimeException | Error e) {
+                abort();
+                throw e;
+            }
+        }
+
+        private void drainOldest() {
+            Batch b = inFlight.poll();
+            List<float[]> vectors = await(b.vectors);
+            if (vectors.size() != b.items.size()) {
+                throw new IllegalStateException("embedding model returned " + vectors.size() + " vectors for " + b.items.size() + " texts");
+            }
+            for (int i = 0; i < b.items.size(); i++) {
+                PendingChunk c = b.items.get(i);
+                VectorRecord r = new VectorRecord();
+                r.setDocId(c.doc.docId);
+                r.setChunkId(c.chunkId);
+                r.setSource(c.doc.source);
+                r.setVector(vectors.get(i));
+                r.setContentHash(c.contentHash);
+                r.setChunkIndex(c.index);
+                Map<String, String> md = new HashMap<>(c.doc.metadata);
+                md.put("text", c.text);
+                r.setMetadata(md);
+                pending.add(r);
+                if (c.doc.replacing) {
+                    writtenChunks.add(c.chunkId);
+                } else {
+                    writtenDocs.add(c.doc.docId);
+                }
+            }
+            if (pending.size() >= writeBatchSize) {
+                writePending();
+            }
+        }
+
+        private List<float[]> embed(List<PendingChunk> items) {
+            List<String> texts = new ArrayList<>(items.size());
+            for (PendingChunk c : items) texts.add(c.text);
+            List<float[]> vectors = embeddingModel.embedBatch(texts);
+            if (options.getProgress() != null) {
+                options.getProgress().embedded(vectors.size());
+            }
+            return vectors;
+        }
+
+        private void writePending() {
+            if (pending.isEmpty()) return;
+            // One addDocuments call (and at most one commit) per write batch
+            vectorStore.upsert(tenantId, kbId, new ArrayList<>(pending));
+            written += pending.size();
+            if (options.getProgress() != null) {
+                options.getProgress().indexed(pending.size());
+            }
+            pending.clear();
+        }
+
+        private void abort() {
+            for (Batch b : inFlight) {
+                b.vectors.cancel(true);
+            }
+            inFlight.clear();
+            pending.clear();
+            for (String docId : writtenDocs) {
+                vectorStore.deleteByDoc(tenantId, kbId, docId);
+            }
+            if (!writtenChunks.isEmpty()) {
+                vectorStore.updateChunks(tenantId, kbId, writtenChunks, Map.of());
+            }
+        }
+
+        private List<float[]> await(Future<List<float[]>> f) {
+            try {
+                return f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException re ? re : new RuntimeException(cause);
+            }
+        }
+    }
+
+    /**
+     * A chunk waiting to be embedded.
+     */
+    private static final class PendingChunk {
+        final DocumentChunks doc;
+        final String chunkId;
+        final int index;
+        final String text;
+        final String contentHash;
+
+        PendingChunk(DocumentChunks doc, String chunkId, int index, String text, String contentHash) {
+            this.doc = doc;
+            this.chunkId = chunkId;
+            this.index = index;
+            this.text = text;
+            this.contentHash = contentHash;
+        }
+    }
+
+    private static final class Batch {
+        final List<PendingChunk> items;
+        final Future<List<float[]>> vectors;
+
+        Batch(List<PendingChunk> items, Future<List<float[]>> vectors) {
+            this.items = items;
+            this.vectors = vectors;
+        }
+    }
+
+    /**
+     * Store changes that complete a re-ingest once the new chunks are written.
+     */
+    private static final class ChunkDelta {
+        final List<String> deleted = new ArrayList<>();
+        final Map<String, Integer> moved = new HashMap<>();
+
+        boolean isEmpty() { return deleted.isEmpty() && moved.isEmpty(); }
+    }
+
+    /**
+     * Chunks of one document, numbered in order, minus those already stored with the same
+     * content hash: each of those claims one stored chunk, which is kept (and renumbered if its
+     * position changed) instead of being embedded and written again. Stored chunks left
+     * unclaimed when the document ends are scheduled for deletion.
+     */
+    private static final class DocumentChunks implements Iterator<PendingChunk> {
+        private final Iterator<String> chunks;
+        final String docId;
+        final String source;
+        final Map<String, String> metadata;
+        // An earlier version is stored: roll back by chunk, not by document
+        final boolean replacing;
+        private final List<ChunkDigest> stored;
+        private final Map<String, Deque<ChunkDigest>> unclaimed = new HashMap<>();
+        private final Set<String> keptIds = new HashSet<>();
+        private final ChunkDelta delta;
+        private final MessageDigest sha256;
+        private final byte[] hashPrefix;
+        private int position;
+        private int nextId;
+        private PendingChunk next;
+        private boolean finished;
+        int kept;
+        int deleted;
+
+        DocumentChunks(Iterator<String> chunks, String docId, String source, Map<String, String> metadata,
+                       List<ChunkDigest> stored, ChunkDelta delta) {
+            this.chunks = chunks;
+            this.docId = docId;
+            this.source = source;
+            this.metadata = metadata;
+            this.replacing = !stored.isEmpty();
+            this.stored = stored;
+            this.delta = delta;
+            for (ChunkDigest d : stored) {
+                if (d.getContentHash() != null) {
+                    unclaimed.computeIfAbsent(d.getContentHash(), h -> new ArrayDeque<>()).add(d);
+                }
+                // New chunk ids continue after the stored ones so the two versions never share an id
+                nextId = Math.max(nextId, idSuffix(d.getChunkId()) + 1);
+            }
+            try {
+                this.sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            this.hashPrefix = hashPrefix(source, metadata);
+        }
+
+        int count() { return position; }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && chunks.hasNext()) {
+                String text = chunks.next();
+                int index = position++;
+                String hash = contentHash(text);
+                Deque<ChunkDigest> same = unclaimed.get(hash);
+                ChunkDigest match = same != null ? same.poll() : null;
+                if (match == null) {
+                    next = new PendingChunk(this, docId + "_" + nextId++, index, text, hash);
+                } else {
+                    kept++;
+                    keptIds.add(match.getChunkId());
+                    if (match.getChunkIndex() == null || match.getChunkIndex() != index) {
+                        delta.moved.put(match.getChunkId(), index);
+                    }
+                }
+            }
+            if (next == null) finish();
+            return next != null;
+        }
+
+        @Override
+        public PendingChunk next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            PendingChunk c = next;
+            next = null;
+            return c;
+        }
+
+        private void finish() {
+            if (finished) return;
+            finished = true;
+            for (ChunkDigest d : stored) {
+                if (!keptIds.contains(d.getChunkId())) {
+                    delta.deleted.add(d.getChunkId());
+                    deleted++;
+                }
+            }
+        }
+
+        /**
+         * Covers everything written into the chunk besides its vector, so a chunk is only kept
+         * when it would be stored identically.
+         */
+        private String contentHash(String text) {
+            sha256.update(hashPrefix);
+            sha256.update(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha256.digest());
+        }
+
+        private static byte[] hashPrefix(String source, Map<String, String> metadata) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(source).append('\u0000');
+            for (Map.Entry<String, String> e : new TreeMap<>(metadata).entrySet()) {
+                sb.append(e.getKey()).append('=').append(e.getValue()).append('\u0000');
+            }
+            return sb.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static int idSuffix(String chunkId) {
+            int i = chunkId == null ? -1 : chunkId.lastIndexOf('_');
+            if (i < 0) return -1;
+            try {
+                return Integer.parseInt(chunkId.substring(i + 1));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Chunks of all documents of a bulk request, opening each document only after the previous
+     * one is exhausted (archive entries can only be read in order). Documents that cannot be
+     * ingested are recorded as failed and skipped.
+     */
+    private final class BulkChunks implements Iterator<PendingChunk> {
+        private final String tenantId;
+        private final String kbId;
+        private final Iterator<BulkDocument> documents;
+        private final IngestOptions options;
+        private final List<Map<String, Object>> results = new ArrayList<>();
+        private final ChunkDelta delta = new ChunkDelta();
+        private final Set<String> sourceKeys = new HashSet<>();
+        private final List<DocumentLocks.Held> heldLocks = new ArrayList<>();
+        private Iterator<String> paragraphs;
+        private DocumentChunks current;
+        private Map<String, Object> currentResult;
+        private boolean currentKeyed;
+        private int totalChunks;
+
+        BulkChunks(String tenantId, String kbId, Iterator<BulkDocument> documents, IngestOptions options) {
+            this.tenantId = tenantId;
+            this.kbId = kbId;
+            this.documents = documents;
+            this.options = options;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                finishCurrent();
+                if (!documents.hasNext()) return false;
+                open(documents.next());
+            }
+            return true;
+        }
+
+        @Override
+        public PendingChunk next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+
+        private void open(BulkDocument d) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("filename", d.getFilename());
+            results.add(result);
+            try {
+                if (d.getError() != null) throw new IllegalArgumentException(d.getError());
+                checkSupported(d.getFilename());
+                Map<String, String> metadata = new HashMap<>(options.getMetadata());
+                if (d.getMetadata() != null) {
+                    if (d.getMetadata().containsKey("text")) throw new IllegalArgumentException("invalid metadata key: text");
+                    metadata.putAll(d.getMetadata());
+                }
+                String sourceKey = d.getSourceKey() != null ? d.getSourceKey()
+                        : options.isIncremental() ? d.getFilename() : null;
+                // The stored version is read before earlier documents of this request are written,
+                // so a key seen twice would leave both copies behind
+                if (sourceKey != null && !sourceKeys.add(sourceKey)) {
+                    throw new IllegalArgumentException("duplicate sourceKey in request: " + sourceKey);
+                }
+                if (sourceKey != null) {
+                    lockDocument(sourceKey);
+                }
+                paragraphs = parser.parseStream(d.getContent(), d.getFilename());
+                current = openDocument(tenantId, kbId, chunker.chunkStream(paragraphs, chunkSize), sourceKey,
+                        d.getFilename(), metadata, delta);
+                result.put("docId", current.docId);
+                currentResult = result;
+                currentKeyed = sourceKey != null;
+            } catch (IllegalArgumentException e) {
+                closeQuietly(paragraphs);
+                paragraphs = null;
+                result.put("error", e.getMessage());
+            }
+        }
+
+        /**
+         * Held until the pipeline has applied the re-ingest delta or rolled back.
+         */
+        private void lockDocument(String sourceKey) {
+            DocumentLocks.Held lock;
+            try {
+                lock = docLocks.tryLock(docLockKey(tenantId, kbId, sourceKey), BULK_DOC_LOCK_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            if (lock == null) {
+                throw new IllegalArgumentException("document is being re-ingested concurrently: " + sourceKey);
+            }
+            heldLocks.add(lock);
+        }
+
+        private void unlockDocuments() {
+            for (DocumentLocks.Held lock : heldLocks) {
+                lock.release();
+            }
+            heldLocks.clear();
+        }
+
+        private void finishCurrent() {
+            if (current == null) return;
+            currentResult.put("chunks", current.count());
+            if (currentKeyed) {
+                putDelta(currentResult, current);
+            }
+            totalChunks += current.count();
+            closeQuietly(paragraphs);
+            current = null;
+            currentResult = null;
+            paragraphs = null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.krag.ingest.bulk;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ArchiveBulkReaderTest {
+
+    private static final String LONG_NAME = "deeply/nested/" + "directory-name-".repeat(12) + "/notes.txt";
+
+    /**
+     * Filename to content of every document, or to "error: ..." for failed ones.
+     */
+    private static Map<String, String> read(BulkFormat format, byte[] archive) throws IOException {
+        Map<String, String> out = new LinkedHashMap<>();
+        Iterator<BulkDocument> it = format.open(new ByteArrayInputStream(archive));
+        while (it.hasNext()) {
+            BulkDocument d = it.next();
+            out.put(d.getFilename(), d.getError() != null ? "error: " + d.getError()
+                    : new String(d.getContent().readAllBytes(), StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    private static void addFile(TarArchiveOutputStream tar, String name, String content) throws IOException {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry e = new TarArchiveEntry(name);
+        e.setSize(data.length);
+        tar.putArchiveEntry(e);
+        tar.write(data);
+        tar.closeArchiveEntry();
+    }
+
+    private static void addEntry(TarArchiveOutputStream tar, TarArchiveEntry e) throws IOException {
+        tar.putArchiveEntry(e);
+        tar.closeArchiveEntry();
+    }
+
+    private static byte[] tar(int longFileMode, String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            tar.setLongFileMode(longFileMode);
+            tar.setAddPaxHeadersForNonAsciiNames(longFileMode == TarArchiveOutputStream.LONGFILE_POSIX);
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                addFile(tar, namesAndContents[i], namesAndContents[i + 1]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void gnuLongNamesAreUsedAsFilenames() throws IOException {
+        byte[] archive = tar(TarArchiveOutputStream.LONGFILE_GNU, LONG_NAME, "long", "short.txt", "short");
+        assertEquals(Map.of(LONG_NAME, "long", "short.txt", "short"), read(BulkFormat.TAR, archive));
+    }
+
+    @Test
+    void paxPathRecordsAreUsedAsFilenames() throws IOException {
+        String unicode = "文档/说明.txt";
+        byte[] archive = tar(TarArchiveOutputStream.LONGFILE_POSIX, LONG_NAME, "long", unicode, "unicode");
+        assertEquals(Map.of(LONG_NAME, "long", unicode, "unicode"), read(BulkFormat.TAR, archive));
+    }
+
+    @Test
+    void nonRegularAndHiddenEntriesAreSkipped() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            addEntry(tar, new TarArchiveEntry("docs/"));
+            TarArchiveEntry symlink = new TarArchiveEntry("docs/link.txt", TarConstants.LF_SYMLINK);
+            symlink.setLinkName("a.txt");
+            addEntry(tar, symlink);
+            TarArchiveEntry hardLink = new TarArchiveEntry("docs/hard.txt", TarConstants.LF_LINK);
+            hardLink.setLinkName("docs/a.txt");
+            addEntry(tar, hardLink);
+            addEntry(tar, new TarArchiveEntry("docs/pipe", TarConstants.LF_FIFO));
+            addEntry(tar, new TarArchiveEntry("docs/dev", TarConstants.LF_CHR));
+            addFile(tar, "docs/a.txt", "alpha");
+            addFile(tar, "docs/.DS_Store", "junk");
+            addFile(tar, "__MACOSX/docs/._a.txt", "junk");
+            addFile(tar, "docs/b.txt", "beta");
+        }
+        assertEquals(Map.of("docs/a.txt", "alpha", "docs/b.txt", "beta"), read(BulkFormat.TAR, bytes.toByteArray()));
+    }
+
+    @Test
+    void sparseEntriesAreReportedAsFailed() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            addEntry(tar, new TarArchiveEntry("disk.img", TarConstants.LF_GNUTYPE_SPARSE));
+            addFile(tar, "after.txt", "still read");
+        }
+        Map<String, String> docs = read(BulkFormat.TAR, bytes.toByteArray());
+        assertEquals("error: sparse tar entries are not supported: disk.img", docs.get("disk.img"));
+        assertEquals("still read", docs.get("after.txt"));
+    }
+
+    @Test
+    void unreadEntriesAreSkippedWithTheirPadding() throws IOException {
+        byte[] archive = tar(TarArchiveOutputStream.LONGFILE_GNU, "a.txt", "x".repeat(700), "b.txt", "beta");
+        Iterator<BulkDocument> it = BulkFormat.TAR.open(new ByteArrayInputStream(archive));
+        assertEquals("a.txt", it.next().getFilename());
+        BulkDocument b = it.next();
+        assertEquals("b.txt", b.getFilename());
+        assertEquals("beta", new String(b.getContent().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(false, it.hasNext());
+    }
+
+    @Test
+    void truncatedEntryDataFails() throws IOException {
+        byte[] archive = tar(TarArchiveOutputStream.LONGFILE_GNU, "a.txt", "alpha", "b.txt", "b".repeat(2000));
+        // Cut in the middle of b.txt's data
+        byte[] truncated = Arrays.copyOf(archive, 512 * 4 + 100);
+        Iterator<BulkDocument> it = BulkFormat.TAR.open(new ByteArrayInputStream(truncated));
+        assertEquals("alpha", new String(it.next().getContent().readAllBytes(), StandardCharsets.UTF_8));
+        BulkDocument b = it.next();
+        assertThrows(IOException.class, () -> b.getContent().readAllBytes());
+    }
+
+    @Test
+    void truncatedEntryFailsWhenSkipped() throws IOException {
+        byte[] archive = tar(TarArchiveOutputStream.LONGFILE_GNU, "a.txt", "a".repeat(2000), "b.txt", "beta");
+        byte[] truncated = Arrays.copyOf(archive, 512 + 1000);
+        Iterator<BulkDocument> it = BulkFormat.TAR.open(new ByteArrayInputStream(truncated));
+        assertEquals("a.txt", it.next().getFilename());
+        assertThrows(UncheckedIOException.class, it::hasNext);
+    }
+
+    @Test
+    void truncatedHeaderFails() throws IOException {
+        byte[] archive = tar(TarArchiveOutputStream.LONGFILE_GNU, "a.txt", "alpha", "b.txt", "beta");
+        // a.txt's header and data block, then half of b.txt's header
+        byte[] truncated = Arrays.copyOf(archive, 512 * 2 + 256);
+        Iterator<BulkDocument> it = BulkFormat.TAR.open(new ByteArrayInputStream(truncated));
+        assertEquals("a.txt", it.next().getFilename());
+        assertThrows(UncheckedIOException.class, it::hasNext);
+    }
+
+    @Test
+    void gzippedTarIsDetectedFromTheStream() throws IOException {
+        byte[] archive = tar(TarArchiveOutputStream.LONGFILE_GNU, "a.txt", "alpha");
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+            out.write(archive);
+        }
+        assertEquals(Map.of("a.txt", "alpha"), read(BulkFormat.TAR, gz.toByteArray()));
+    }
+
+    @Test
+    void zipSkipsDirectoriesAndHiddenEntries() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(bytes)) {
+            zip.putArchiveEntry(new ZipArchiveEntry("docs/"));
+            zip.closeArchiveEntry();
+            for (String name : new String[]{"docs/a.txt", "__MACOSX/docs/._a.txt", "docs/b.txt"}) {
+                zip.putArchiveEntry(new ZipArchiveEntry(name));
+                zip.write(name.getBytes(StandardCharsets.UTF_8));
+                zip.closeArchiveEntry();
+            }
+        }
+        assertEquals(Map.of("docs/a.txt", "docs/a.txt", "docs/b.txt", "docs/b.txt"),
+                read(BulkFormat.ZIP, bytes.toByteArray()));
+    }
+}
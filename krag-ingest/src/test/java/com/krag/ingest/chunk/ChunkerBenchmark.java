@@ -0,0 +1,103 @@
+package com.krag.ingest.chunk;
+
+import com.krag.core.chunk.TextChunker;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Throughput of {@link StreamingTextChunker} against {@link SimpleTextChunker} on generated
+ * English and CJK prose, warm (after untimed rounds) in one JVM. Not a test; run with
+ * <pre>
+ * mvn -q -pl krag-ingest -am test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.krag.ingest.chunk.ChunkerBenchmark [-Dexec.args="chars rounds"]
+ * </pre>
+ */
+public final class ChunkerBenchmark {
+    private static final int CHUNK_SIZE = 800;
+
+    public static void main(String[] args) {
+        int chars = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        run("english", english(chars, new Random(1)), rounds);
+        run("cjk", cjk(chars / 2, new Random(2)), rounds);
+    }
+
+    private static void run(String name, List<String> paragraphs, int rounds) {
+        long chars = 0;
+        for (String p : paragraphs) chars += p.length();
+        TextChunker simple = new SimpleTextChunker();
+        TextChunker streaming = new StreamingTextChunker(StreamingTextChunker.SizeUnit.CHARS, 0);
+        TextChunker tokens = new StreamingTextChunker(StreamingTextChunker.SizeUnit.TOKENS, 0);
+        for (int warm = 0; warm < 3; warm++) {
+            time(simple, paragraphs);
+            time(streaming, paragraphs);
+            time(tokens, paragraphs);
+        }
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int r = 0; r < rounds; r++) {
+            best[0] = Math.min(best[0], time(simple, paragraphs));
+            best[1] = Math.min(best[1], time(streaming, paragraphs));
+            best[2] = Math.min(best[2], time(tokens, paragraphs));
+        }
+        System.out.printf("%-8s %,d chars: simple %d ms, streaming %d ms, streaming (tokens) %d ms (best of %d)%n",
+                name, chars, best[0] / 1_000_000, best[1] / 1_000_000, best[2] / 1_000_000, rounds);
+    }
+
+    private static long time(TextChunker chunker, List<String> paragraphs) {
+        long start = System.nanoTime();
+        long sink = 0;
+        for (Iterator<String> it = chunker.chunkStream(paragraphs.iterator(), CHUNK_SIZE); it.hasNext(); ) {
+            sink += it.next().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.print("");
+        return elapsed;
+    }
+
+    private static List<String> english(int chars, Random rnd) {
+        String[] words = {"the", "index", "retrieval", "of", "a", "segment", "vector", "and", "query", "document",
+                "is", "merged", "into", "search", "results", "with", "knowledge", "base", "tenant", "chunk"};
+        List<String> out = new ArrayList<>();
+        StringBuilder p = new StringBuilder();
+        int total = 0;
+        while (total < chars) {
+            p.setLength(0);
+            int sentences = 2 + rnd.nextInt(8);
+            for (int s = 0; s < sentences; s++) {
+                int n = 6 + rnd.nextInt(18);
+                for (int w = 0; w < n; w++) {
+                    if (w > 0) p.append(rnd.nextInt(12) == 0 ? ", " : " ");
+                    p.append(words[rnd.nextInt(words.length)]);
+                }
+                p.append(". ");
+            }
+            out.add(p.toString().trim());
+            total += p.length();
+        }
+        return out;
+    }
+
+    private static List<String> cjk(int chars, Random rnd) {
+        List<String> out = new ArrayList<>();
+        StringBuilder p = new StringBuilder();
+        int total = 0;
+        while (total < chars) {
+            p.setLength(0);
+            int sentences = 2 + rnd.nextInt(8);
+            for (int s = 0; s < sentences; s++) {
+                int n = 10 + rnd.nextInt(40);
+                for (int c = 0; c < n; c++) {
+                    p.append((char) (0x4E00 + rnd.nextInt(2000)));
+                    if (rnd.nextInt(15) == 0) p.append('，');
+                }
+                p.append('。');
+            }
+            out.add(p.toString());
+            total += p.length();
+        }
+        return out;
+    }
+}
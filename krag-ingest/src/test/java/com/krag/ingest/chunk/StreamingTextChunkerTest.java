@@ -0,0 +1,138 @@
+package com.krag.ingest.chunk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingTextChunkerTest {
+
+    private static List<String> chars(int max, int overlap, String... paragraphs) {
+        return new StreamingTextChunker(StreamingTextChunker.SizeUnit.CHARS, overlap).chunk(Arrays.asList(paragraphs), max);
+    }
+
+    private static List<String> tokens(int max, String... paragraphs) {
+        return new StreamingTextChunker(StreamingTextChunker.SizeUnit.TOKENS, 0).chunk(Arrays.asList(paragraphs), max);
+    }
+
+    @Test
+    void shortTextIsOneChunkWithParagraphsJoinedByBlankLine() {
+        assertEquals(List.of("hello\n\nworld"), chars(100, 0, "hello", null, "world"));
+    }
+
+    @Test
+    void blankInputProducesNoChunks() {
+        assertEquals(List.of(), chars(10, 0, "   ", "\t"));
+        assertEquals(List.of(), chars(10, 0));
+    }
+
+    @Test
+    void paragraphBreakBeatsLaterSentenceEnd() {
+        assertEquals(List.of("aaaa bbbb cc", "dd. eeee ffff gggg", "hhhh"),
+                chars(20, 0, "aaaa bbbb cc", "dd. eeee ffff gggg hhhh"));
+    }
+
+    @Test
+    void sentenceEndBeatsLaterWhitespace() {
+        assertEquals(List.of("aaaaaa.", "bb cc dd", "ee"), chars(10, 0, "aaaaaa. bb cc dd ee"));
+    }
+
+    @Test
+    void periodInsideNumberIsNotSentenceEnd() {
+        assertEquals(List.of("aaaa 3.14", "bbbbbbbbbb"), chars(10, 0, "aaaa 3.14 bbbbbbbbbb"));
+    }
+
+    @Test
+    void cjkSentenceEnd() {
+        assertEquals(List.of("你好世界。", "再见朋友们"), chars(6, 0, "你好世界。再见朋友们"));
+    }
+
+    @Test
+    void cjkClauseMarkIsSoftBoundary() {
+        assertEquals(List.of("一二三四，", "五六七八九十"), chars(6, 0, "一二三四，五六七八九十"));
+    }
+
+    @Test
+    void whitespaceBeatsHardCut() {
+        assertEquals(List.of("aaaaaaa", "bbbbbbb"), chars(10, 0, "aaaaaaa bbbbbbb"));
+    }
+
+    @Test
+    void boundaryOnlyInFirstHalfIsIgnored() {
+        // The space at 2 would leave a 3-char chunk; the cut stays in the second half of the budget
+        assertEquals(List.of("ab cdefghi", "jklmn"), chars(10, 0, "ab cdefghijklmn"));
+    }
+
+    @Test
+    void textWithoutBoundariesIsCutHard() {
+        assertEquals(List.of("abcdefghij", "klmnopqrst", "uvwxy"), chars(10, 0, "abcdefghijklmnopqrstuvwxy"));
+    }
+
+    @Test
+    void hardCutNeverSplitsSurrogatePair() {
+        String emoji = "😀";
+        assertEquals(List.of(emoji + emoji, emoji + emoji, emoji + emoji), chars(5, 0, emoji.repeat(6)));
+    }
+
+    @Test
+    void overlapRepeatsWholeWords() {
+        assertEquals(List.of("a b c d e", "d e f g h", "g h i j k", "j k l"), chars(10, 4, "a b c d e f g h i j k l"));
+    }
+
+    @Test
+    void overlapIsCappedAtHalfTheChunkSize() {
+        // An overlap of 100 behaves like 5 (half of 10): every chunk still advances
+        assertEquals(chars(10, 5, "a b c d e f g h i j k l"), chars(10, 100, "a b c d e f g h i j k l"));
+    }
+
+    @Test
+    void overlapMovesOutOfSplitWord() {
+        // Three chars back would start inside "abcdefghij"; the overlap moves forward past the word
+        assertEquals(List.of("abcdefghij", "klmno"), chars(10, 3, "abcdefghij klmno"));
+    }
+
+    @Test
+    void tokenEstimateCountsCjkCharsAndWordPieces() {
+        assertEquals(List.of("一二三", "四五六"), tokens(3, "一二三四五六"));
+        // 16 letters are two 8-char word pieces; whitespace is free
+        assertEquals(List.of("abcdefghijklmnop qr"), tokens(3, "abcdefghijklmnop qr"));
+        assertEquals(List.of("abcdefghijklmnop", "qr"), tokens(2, "abcdefghijklmnop qr"));
+        // Punctuation is a token of its own
+        assertEquals(List.of("a,b"), tokens(3, "a,b"));
+        assertEquals(2, tokens(2, "a,b").size());
+    }
+
+    @Test
+    void pullsParagraphsOnlyAsNeeded() {
+        List<String> paragraphs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) paragraphs.add("word ".repeat(10).trim());
+        int[] pulled = {0};
+        Iterator<String> source = new Iterator<>() {
+            final Iterator<String> in = paragraphs.iterator();
+
+            @Override
+            public boolean hasNext() { return in.hasNext(); }
+
+            @Override
+            public String next() {
+                pulled[0]++;
+                return in.next();
+            }
+        };
+        Iterator<String> chunks = new StreamingTextChunker(StreamingTextChunker.SizeUnit.CHARS, 0).chunkStream(source, 60);
+        chunks.next();
+        assertTrue(pulled[0] <= 3, "pulled " + pulled[0] + " paragraphs for the first chunk");
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new StreamingTextChunker(StreamingTextChunker.SizeUnit.CHARS, -1));
+        assertThrows(IllegalArgumentException.class, () -> chars(0, 0, "text"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.krag.ingest.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentLocksTest {
+
+    private final DocumentLocks locks = new DocumentLocks();
+
+    @Test
+    void otherDocumentsAreNotBlocked() throws Exception {
+        DocumentLocks.Held a = locks.lock("t1:kb1:a");
+        // Same docId in another tenant
+        CompletableFuture.runAsync(() -> locks.lock("t2:kb1:a").release()).get(5, TimeUnit.SECONDS);
+        a.release();
+        assertEquals(0, locks.size());
+    }
+
+    @Test
+    void sameDocumentWaitsForTheHolder() throws Exception {
+        DocumentLocks.Held held = locks.lock("t1:kb1:a");
+        assertNull(CompletableFuture.supplyAsync(() -> {
+            try {
+                return locks.tryLock("t1:kb1:a", 50);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }).get(5, TimeUnit.SECONDS));
+        // The timed-out waiter gave up its reference, the holder still has the lock
+        assertEquals(1, locks.size());
+
+        CountDownLatch waiting = new CountDownLatch(1);
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            waiting.countDown();
+            DocumentLocks.Held h = locks.lock("t1:kb1:a");
+            h.release();
+            return true;
+        });
+        waiting.await();
+        Thread.sleep(50);
+        assertFalse(waiter.isDone());
+        held.release();
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(0, locks.size());
+    }
+
+    @Test
+    void entriesAreDroppedOnceReleased() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            DocumentLocks.Held h = locks.tryLock("t1:kb1:doc" + i, 1000);
+            assertNotNull(h);
+            h.release();
+        }
+        assertEquals(0, locks.size());
+    }
+}
@@ -0,0 +1,173 @@
+package com.krag.ingest.service;
+
+import com.krag.core.embed.EmbeddingModel;
+import com.krag.core.model.SearchResult;
+import com.krag.ingest.bulk.BulkDocument;
+import com.krag.ingest.chunk.StreamingTextChunker;
+import com.krag.ingest.parser.SimpleTxtParser;
+import com.krag.vector.LuceneMemoryVectorStore;
+import com.krag.vector.LuceneStoreSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionServiceTest {
+
+    private static final String TENANT = "t1";
+    private static final String KB = "kb1";
+
+    private final LuceneMemoryVectorStore store = new LuceneMemoryVectorStore(new LuceneStoreSettings());
+    private final IngestionService service = new IngestionService(new SimpleTxtParser(),
+            new StreamingTextChunker(StreamingTextChunker.SizeUnit.CHARS, 0), new SlowEmbeddingModel(), store,
+            40, 2, 2, 0, 4);
+
+    @AfterEach
+    void close() throws Exception {
+        service.destroy();
+        store.destroy();
+    }
+
+    private Map<String, Object> ingest(String sourceKey, String text) {
+        IngestOptions options = IngestOptions.defaults();
+        options.setSourceKey(sourceKey);
+        return service.ingestTxt(TENANT, KB, new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), "doc.txt",
+                options);
+    }
+
+    private List<String> storedTexts(String docId) {
+        List<String> texts = new ArrayList<>();
+        for (SearchResult r : store.findByDoc(TENANT, KB, docId)) texts.add(r.getText());
+        texts.sort(null);
+        return texts;
+    }
+
+    private static String version(String tag, int paragraphs) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < paragraphs; i++) {
+            sb.append("paragraph ").append(i % 3 == 0 ? "shared" : tag).append(' ').append(i).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void reingestKeepsUnchangedChunks() {
+        String v1 = version("one", 6);
+        Map<String, Object> first = ingest("key", v1);
+        Map<String, Object> second = ingest("key", v1);
+        assertEquals(first.get("docId"), second.get("docId"));
+        assertEquals(first.get("chunks"), second.get("kept"));
+        assertEquals(0, second.get("embedded"));
+    }
+
+    @Test
+    void concurrentReingestsOfOneDocumentLeaveExactlyOneVersion() throws Exception {
+        String a = version("alpha", 12);
+        String b = version("beta", 9);
+        String docId = (String) ingest("key", b).get("docId");
+        List<String> expectedB = storedTexts(docId);
+        ingest("key", a);
+        List<String> expectedA = storedTexts(docId);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> fa = pool.submit(() -> {
+                    start.await();
+                    return ingest("key", a);
+                });
+                Future<?> fb = pool.submit(() -> {
+                    start.await();
+                    return ingest("key", b);
+                });
+                start.countDown();
+                fa.get();
+                fb.get();
+                List<String> stored = storedTexts(docId);
+                assertTrue(stored.equals(expectedA) || stored.equals(expectedB),
+                        "round " + round + " left a mix of versions: " + stored);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Iterator<BulkDocument> keyedBulk(String prefix, int documents) {
+        List<BulkDocument> docs = new ArrayList<>();
+        for (int i = 0; i < documents; i++) {
+            String text = "document " + prefix + i + "\n\nsecond paragraph of " + prefix + i;
+            docs.add(BulkDocument.of(prefix + i + ".txt", prefix + i, Map.of(),
+                    new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+        }
+        return docs.iterator();
+    }
+
+    @Test
+    void concurrentBulksWithDisjointDocumentsDoNotBlockEachOther() throws Exception {
+        // More keyed documents per bulk than there were lock stripes, so a striped lock table
+        // would make the two requests wait on each other for documents they do not share
+        int documents = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Map<String, Object>>> bulks = new ArrayList<>();
+            for (String prefix : new String[]{"a", "b"}) {
+                bulks.add(pool.submit(() -> {
+                    start.await();
+                    return service.ingestBulk(TENANT, KB, keyedBulk(prefix, documents), IngestOptions.defaults());
+                }));
+            }
+            start.countDown();
+            for (Future<Map<String, Object>> bulk : bulks) {
+                Map<String, Object> resp = bulk.get(20, TimeUnit.SECONDS);
+                assertEquals(documents, resp.get("documents"));
+                assertEquals(0, resp.get("failed"), () -> resp.get("results").toString());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2 * documents, store.listDocIds(TENANT, KB).size());
+    }
+
+    /**
+     * Deterministic vectors, with a pause per batch so concurrent ingests interleave.
+     */
+    private static final class SlowEmbeddingModel implements EmbeddingModel {
+        @Override
+        public String id() { return "test"; }
+
+        @Override
+        public int dimension() { return 4; }
+
+        @Override
+        public float[] embed(String text) {
+            int h = text.hashCode();
+            return new float[]{h & 0xff, (h >> 8) & 0xff, (h >> 16) & 0xff, 1};
+        }
+
+        @Override
+        public List<float[]> embedBatch(List<String> texts) {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<float[]> out = new ArrayList<>(texts.size());
+            for (String t : texts) out.add(embed(t));
+            return out;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.krag.vector;
+
+import com.krag.core.model.DocumentInfo;
+import com.krag.core.model.DocumentPage;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Per-document summary of one namespace (source, chunk count, text size, last ingest time) kept
+ * in memory and updated by every write, so listing documents never touches chunks. It is built
+ * once from the index on first use, from doc values every chunk carries for that purpose.
+ * An ordered view per sort key is built on first use and from then on kept in order by every
+ * change, so paging never sorts the whole catalog again.
+ * Mutations run under the namespace write lock.
+ */
+final class DocumentCatalog {
+    static final String DOC_FIELD = "catalog.docId";
+    static final String BYTES_FIELD = "catalog.bytes";
+    static final String TIME_FIELD = "catalog.ingestedAt";
+
+    // Chunks written before the catalog fields existed are read from stored fields instead
+    private static final Set<String> LEGACY_FIELDS = Set.of("docId", "source", "text");
+
+    private static final Comparator<Entry> BY_DOC_ID = Comparator.comparing(e -> e.docId);
+    private static final Map<DocumentInfo.SortKey, Comparator<Entry>> ORDERS = new EnumMap<>(Map.of(
+            DocumentInfo.SortKey.DOC_ID, BY_DOC_ID,
+            DocumentInfo.SortKey.SOURCE, Comparator.<Entry, String>comparing(e -> e.source, Comparator.nullsFirst(Comparator.naturalOrder())).thenComparing(BY_DOC_ID),
+            DocumentInfo.SortKey.CHUNKS, Comparator.<Entry>comparingInt(e -> e.chunks).thenComparing(BY_DOC_ID),
+            DocumentInfo.SortKey.BYTES, Comparator.<Entry>comparingLong(e -> e.bytes).thenComparing(BY_DOC_ID),
+            DocumentInfo.SortKey.INGESTED_AT, Comparator.<Entry>comparingLong(e -> e.ingestedAt).thenComparing(BY_DOC_ID)));
+
+    private static final class Entry {
+        final String docId;
+        String source;
+        boolean sourceKnown;
+        int chunks;
+        long bytes;
+        long ingestedAt;
+
+        Entry(String docId) {
+            this.docId = docId;
+        }
+    }
+
+    /**
+     * Catalog-relevant values of one stored chunk.
+     */
+    static final class ChunkStat {
+        final String docId;
+        final long bytes;
+
+        ChunkStat(String docId, long bytes) {
+            this.docId = docId;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<DocumentInfo.SortKey, TreeSet<Entry>> sorted = new EnumMap<>(DocumentInfo.SortKey.class);
+    private volatile boolean loaded;
+
+    boolean isLoaded() { return loaded; }
+
+    /**
+     * The catalog doc values of a chunk.
+     */
+    static void addFields(Document doc, String docId, long bytes, long ingestedAt) {
+        doc.add(new SortedDocValuesField(DOC_FIELD, new BytesRef(docId)));
+        doc.add(new NumericDocValuesField(BYTES_FIELD, bytes));
+        doc.add(new NumericDocValuesField(TIME_FIELD, ingestedAt));
+    }
+
+    static long utf8Length(String s) {
+        if (s == null) return 0;
+        long n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) n += 1;
+            else if (c < 0x800) n += 2;
+            else if (Character.isHighSurrogate(c)) {
+                n += 4;
+                i++;
+            } else n += 3;
+        }
+        return n;
+    }
+
+    /**
+     * Rebuild from {@code reader}, which must reflect every write applied so far.
+     */
+    synchronized void load(IndexReader reader) throws IOException {
+        entries.clear();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            LeafReader r = leaf.reader();
+            Bits live = r.getLiveDocs();
+            SortedDocValues docIds = DocValues.getSorted(r, DOC_FIELD);
+            NumericDocValues bytes = DocValues.getNumeric(r, BYTES_FIELD);
+            NumericDocValues times = DocValues.getNumeric(r, TIME_FIELD);
+            // Chunks of a document are mostly adjacent, so resolve each ordinal only once per segment
+            Entry[] byOrd = new Entry[docIds.getValueCount()];
+            for (int doc = 0; doc < r.maxDoc(); doc++) {
+                if (live != null && !live.get(doc)) continue;
+                Entry e;
+                long size;
+                long time;
+                if (docIds.advanceExact(doc)) {
+                    int ord = docIds.ordValue();
+                    e = byOrd[ord];
+                    if (e == null) {
+                        e = byOrd[ord] = entries.computeIfAbsent(docIds.lookupOrd(ord).utf8ToString(), Entry::new);
+                    }
+                    if (!e.sourceKnown) {
+                        e.source = r.storedFields().document(doc, Set.of("source")).get("source");
+                        e.sourceKnown = true;
+                    }
+                    size = bytes.advanceExact(doc) ? bytes.longValue() : 0;
+                    time = times.advanceExact(doc) ? times.longValue() : 0;
+                } else {
+                    Document d = r.storedFields().document(doc, LEGACY_FIELDS);
+                    if (d.get("docId") == null) continue;
+                    e = entries.computeIfAbsent(d.get("docId"), Entry::new);
+                    e.source = d.get("source");
+                    e.sourceKnown = true;
+                    size = utf8Length(d.get("text"));
+                    time = 0;
+                }
+                e.chunks++;
+                e.bytes += size;
+                e.ingestedAt = Math.max(e.ingestedAt, time);
+            }
+        }
+        sorted.clear();
+        loaded = true;
+    }
+
+    synchronized void add(String docId, String source, long bytes, long ingestedAt) {
+        Entry e = entries.get(docId);
+        if (e == null) {
+            e = new Entry(docId);
+            entries.put(docId, e);
+        } else {
+            detach(e);
+        }
+        if (source != null || !e.sourceKnown) {
+            e.source = source;
+            e.sourceKnown = true;
+        }
+        e.chunks++;
+        e.bytes += bytes;
+        e.ingestedAt = Math.max(e.ingestedAt, ingestedAt);
+        attach(e);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        sorted.clear();
+    }
+
+    synchronized void removeDoc(String docId) {
+        Entry e = entries.remove(docId);
+        if (e != null) {
+            detach(e);
+        }
+    }
+
+    /**
+     * Take {@code e} out of the ordered views; must happen before any field they sort by changes.
+     */
+    private void detach(Entry e) {
+        for (TreeSet<Entry> view : sorted.values()) {
+            view.remove(e);
+        }
+    }
+
+    private void attach(Entry e) {
+        for (TreeSet<Entry> view : sorted.values()) {
+            view.add(e);
+        }
+    }
+
+    /**
+     * Look up chunks that are about to be deleted, so {@link #removeChunks} can subtract them.
+     */
+    static List<ChunkStat> lookup(IndexSearcher searcher, Collection<String> chunkIds) throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        List<ChunkStat> stats = new ArrayList<>(chunkIds.size());
+        for (String chunkId : chunkIds) {
+            TopDocs td = searcher.search(new TermQuery(new Term("chunkId", chunkId)), 1);
+            if (td.scoreDocs.length == 0) continue;
+            int global = td.scoreDocs[0].doc;
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(global, leaves));
+            LeafReader r = leaf.reader();
+            int doc = global - leaf.docBase;
+            SortedDocValues docIds = DocValues.getSorted(r, DOC_FIELD);
+            if (docIds.advanceExact(doc)) {
+                NumericDocValues bytes = DocValues.getNumeric(r, BYTES_FIELD);
+                stats.add(new ChunkStat(docIds.lookupOrd(docIds.ordValue()).utf8ToString(),
+                        bytes.advanceExact(doc) ? bytes.longValue() : 0));
+            } else {
+                Document d = r.storedFields().document(doc, LEGACY_FIELDS);
+                if (d.get("docId") != null) stats.add(new ChunkStat(d.get("docId"), utf8Length(d.get("text"))));
+            }
+        }
+        return stats;
+    }
+
+    synchronized void removeChunks(List<ChunkStat> stats) {
+        for (ChunkStat c : stats) {
+            Entry e = entries.get(c.docId);
+            if (e == null) continue;
+            detach(e);
+            e.bytes -= c.bytes;
+            if (--e.chunks <= 0) {
+                entries.remove(c.docId);
+            } else {
+                attach(e);
+            }
+        }
+    }
+
+    synchronized DocumentPage page(int offset, int limit, DocumentInfo.SortKey sort, boolean descending) {
+        TreeSet<Entry> view = sorted.get(sort);
+        if (view == null) {
+            view = new TreeSet<>(ORDERS.get(sort));
+            view.addAll(entries.values());
+            sorted.put(sort, view);
+        }
+        int total = view.size();
+        int from = Math.min(Math.max(offset, 0), total);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), total);
+        List<DocumentInfo> items = new ArrayList<>(to - from);
+        Iterator<Entry> it = descending ? view.descendingIterator() : view.iterator();
+        for (int i = 0; i < from; i++) {
+            it.next();
+        }
+        for (int i = from; i < to; i++) {
+            Entry e = it.next();
+            DocumentInfo d = new DocumentInfo();
+            d.setDocId(e.docId);
+            d.setSource(e.source);
+            d.setChunks(e.chunks);
+            d.setBytes(e.bytes);
+            d.setIngestedAt(e.ingestedAt);
+            items.add(d);
+        }
+        return new DocumentPage(total, items);
+    }
+}
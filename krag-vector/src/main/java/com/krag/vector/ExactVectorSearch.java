@@ -0,0 +1,138 @@
+package com.krag.vector;
+
+import org.apache.lucene.index.FloatVectorValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+
+import java.io.IOException;
+
+/**
+ * Brute-force KNN: scores every live (and filter-matching) vector of the index against the
+ * query. Vectors are read in place from each segment's vector data, which in mmap mode is an
+ * off-heap float matrix, and compared with Lucene's similarity functions (SIMD through the
+ * Panama vector API on JDKs that Lucene vectorizes for, scalar otherwise). Scores are the same
+ * as the HNSW search returns, so results are interchangeable; only recall differs.
+ */
+final class ExactVectorSearch {
+
+    private ExactVectorSearch() {
+    }
+
+    /**
+     * @param filter restricts the candidates, or null
+     * @return the top {@code k} hits, best first
+     */
+    static ScoreDoc[] search(IndexSearcher searcher, String field, float[] query, VectorSimilarityFunction similarity,
+                             int k, Query filter) throws IOException {
+        TopKHeap heap = new TopKHeap(k);
+        Weight filterWeight = filter == null ? null
+                : searcher.createWeight(searcher.rewrite(filter), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+            FloatVectorValues values = leaf.reader().getFloatVectorValues(field);
+            if (values == null) continue;
+            DocIdSetIterator candidates = values;
+            if (filterWeight != null) {
+                Scorer scorer = filterWeight.scorer(leaf);
+                if (scorer == null) continue;
+                candidates = scorer.iterator();
+            }
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            for (int doc = candidates.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = candidates.nextDoc()) {
+                if (liveDocs != null && !liveDocs.get(doc)) continue;
+                if (candidates != values) {
+                    // Filter-driven: bring the vector iterator to the candidate, if it has a vector
+                    int vectorDoc = values.docID() < doc ? values.advance(doc) : values.docID();
+                    if (vectorDoc != doc) continue;
+                }
+                heap.offer(leaf.docBase + doc, similarity.compare(query, values.vectorValue()));
+            }
+        }
+        return heap.drain();
+    }
+
+    /**
+     * Bounded min-heap over parallel primitive arrays: the root is the weakest of the best
+     * {@code k} seen so far, so a candidate that cannot make the cut costs one comparison.
+     */
+    private static final class TopKHeap {
+        private final int[] docs;
+        private final float[] scores;
+        private int size;
+
+        TopKHeap(int k) {
+            this.docs = new int[k];
+            this.scores = new float[k];
+        }
+
+        void offer(int doc, float score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                up(size++);
+            } else if (score > scores[0]) {
+                docs[0] = doc;
+                scores[0] = score;
+                down(0);
+            }
+        }
+
+        /**
+         * Empties the heap into hits ordered best first (ties by doc id, like TopDocs).
+         */
+        ScoreDoc[] drain() {
+            ScoreDoc[] out = new ScoreDoc[size];
+            for (int i = size - 1; i >= 0; i--) {
+                out[i] = new ScoreDoc(docs[0], scores[0]);
+                size--;
+                if (size > 0) {
+                    docs[0] = docs[size];
+                    scores[0] = scores[size];
+                    down(0);
+                }
+            }
+            return out;
+        }
+
+        // Weaker = lower score, or same score and higher doc id
+        private boolean weaker(int a, int b) {
+            return scores[a] < scores[b] || (scores[a] == scores[b] && docs[a] > docs[b]);
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!weaker(i, parent)) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) break;
+                int child = left + 1 < size && weaker(left + 1, left) ? left + 1 : left;
+                if (!weaker(child, i)) break;
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int d = docs[a];
+            docs[a] = docs[b];
+            docs[b] = d;
+            float s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.krag.vector;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One physical Lucene index: a writer, its NRT searcher manager and commit bookkeeping. It backs
+ * either a single dedicated namespace or a pool shared by many small ones.
+ */
+final class LuceneIndex implements Closeable {
+    final Directory directory;
+    final NamespaceSettings settings;
+    final Analyzer analyzer = new StandardAnalyzer();
+    final IndexWriter writer;
+    // Near-real-time searchers opened from the writer; acquired/released per request
+    final SearcherManager searcherManager;
+    // Dimension of the vector field, fixed by the first vector ever written
+    volatile Integer dimension;
+
+    // Commit bookkeeping in IndexWriter sequence numbers: every op with seqNo <= committedSeq is durable
+    private final Object commitMonitor = new Object();
+    private final AtomicLong lastWriteSeq = new AtomicLong(-1);
+    private final AtomicLong pendingDocs = new AtomicLong();
+    private volatile long committedSeq = -1;
+    // Commits that threw; guarded by commitMonitor, lets waiters stop waiting for a commit that failed
+    private long failedCommits;
+    // Every op with seqNo <= seq is visible to the searcher whose reader has readerVersion
+    private volatile Visible visible;
+    // Captured before each reopen; only touched by the refreshing thread under the manager's refresh lock
+    private long refreshingSeq;
+
+    private static final class Visible {
+        final long readerVersion;
+        final long seq;
+
+        Visible(long readerVersion, long seq) {
+            this.readerVersion = readerVersion;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * @param create discard any index already in {@code directory} instead of appending to it
+     * @param searcherFactory creates the NRT searchers, or null for plain single-threaded ones
+     */
+    LuceneIndex(Directory directory, NamespaceSettings settings, boolean create,
+                LuceneStoreSettings storeSettings, SearcherFactory searcherFactory) throws IOException {
+        this.directory = directory;
+        this.settings = settings;
+        ConcurrentMergeScheduler mergeScheduler = new ConcurrentMergeScheduler();
+        double forceMergeMbPerSec = storeSettings.getMaintenanceMergeMbPerSec();
+        // Only forced merges (segment maintenance) are limited; regular merges keep the auto IO throttle
+        mergeScheduler.setForceMergeMBPerSec(forceMergeMbPerSec > 0 ? forceMergeMbPerSec : Double.POSITIVE_INFINITY);
+        IndexWriterConfig iwc = new IndexWriterConfig(analyzer)
+                .setCodec(settings.codec())
+                .setMergeScheduler(mergeScheduler)
+                .setOpenMode(create ? IndexWriterConfig.OpenMode.CREATE : IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.writer = new IndexWriter(directory, iwc);
+        // Carried by every subsequent commit
+        this.writer.setLiveCommitData(settings.toUserData().entrySet());
+        long openedThrough = writer.getMaxCompletedSequenceNumber();
+        this.searcherManager = new SearcherManager(writer, searcherFactory);
+        this.visible = new Visible(currentReaderVersion(), openedThrough);
+        // Same bookkeeping as ControlledRealTimeReopenThread: ops completed before a reopen are in the reopened reader
+        this.searcherManager.addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {
+                refreshingSeq = writer.getMaxCompletedSequenceNumber();
+            }
+
+            @Override
+            public void afterRefresh(boolean didRefresh) throws IOException {
+                long version = currentReaderVersion();
+                // No reopen means the reader was already current, so it covers refreshingSeq as well
+                if (didRefresh || version == visible.readerVersion) {
+                    visible = new Visible(version, refreshingSeq);
+                }
+            }
+        });
+        this.dimension = readDimension();
+    }
+
+    private long currentReaderVersion() throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return ((DirectoryReader) searcher.getIndexReader()).getVersion();
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Highest sequence number whose op is visible through a reader of {@code readerVersion}, or
+     * {@link Long#MIN_VALUE} if that is not the current searcher's reader (e.g. one replaced since).
+     */
+    long visibleSeq(long readerVersion) {
+        Visible v = visible;
+        return v.readerVersion == readerVersion ? v.seq : Long.MIN_VALUE;
+    }
+
+    /**
+     * Settings recorded in the latest commit of {@code directory}, or null if there is no index
+     * there yet (or it was written before settings were recorded).
+     */
+    static NamespaceSettings readStoredSettings(Directory directory, LuceneStoreSettings defaults) throws IOException {
+        if (!DirectoryReader.indexExists(directory)) {
+            return null;
+        }
+        return NamespaceSettings.fromUserData(SegmentInfos.readLatestCommit(directory).getUserData(), defaults);
+    }
+
+    /**
+     * True while nothing has ever been written to the index.
+     */
+    boolean isPristine() {
+        return writer.getDocStats().maxDoc == 0 && lastWriteSeq.get() < 0;
+    }
+
+    /**
+     * Recover the vector dimension from an index reopened from disk; null for a fresh index.
+     */
+    private Integer readDimension() throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            FieldInfo fi = FieldInfos.getMergedFieldInfos(searcher.getIndexReader()).fieldInfo(NamespaceIndex.VECTOR_FIELD);
+            return fi != null && fi.getVectorDimension() > 0 ? fi.getVectorDimension() : null;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Record a write that returned sequence number {@code seqNo} and touched {@code docs} documents.
+     */
+    void recordWrite(long seqNo, int docs) {
+        lastWriteSeq.accumulateAndGet(seqNo, Math::max);
+        pendingDocs.addAndGet(docs);
+    }
+
+    long lastWriteSeq() { return lastWriteSeq.get(); }
+
+    long pendingDocs() { return pendingDocs.get(); }
+
+    boolean hasUncommittedWrites() { return lastWriteSeq.get() > committedSeq; }
+
+    /**
+     * Commit unless {@code seqNo} is already durable. Concurrent callers coalesce: whoever
+     * commits first covers everyone whose write completed before that commit started.
+     */
+    void commitThrough(long seqNo) throws IOException {
+        if (committedSeq >= seqNo) return;
+        synchronized (commitMonitor) {
+            if (committedSeq >= seqNo) return;
+            commit();
+        }
+    }
+
+    /**
+     * Commit even if every write is already durable, e.g. to persist the result of a merge and
+     * let the files of the merged-away segments be deleted.
+     */
+    void forceCommit() throws IOException {
+        synchronized (commitMonitor) {
+            commit();
+        }
+    }
+
+    private void commit() throws IOException {
+        long target = lastWriteSeq.get();
+        pendingDocs.set(0);
+        long seq;
+        try {
+            seq = writer.commit();
+        } catch (IOException | RuntimeException e) {
+            failedCommits++;
+            commitMonitor.notifyAll();
+            throw e;
+        }
+        committedSeq = Math.max(committedSeq, Math.max(seq, target));
+        commitMonitor.notifyAll();
+    }
+
+    /**
+     * Wait up to {@code timeoutMs} for a commit issued by someone else (e.g. the group-commit
+     * ticker) to cover {@code seqNo}.
+     *
+     * @return false if it did not within the timeout or a commit failed meanwhile; the caller
+     *         should then commit itself, so that a failure reaches it
+     */
+    boolean awaitCommitted(long seqNo, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (commitMonitor) {
+            long failed = failedCommits;
+            while (committedSeq < seqNo) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0 || failedCommits != failed) return false;
+                TimeUnit.NANOSECONDS.timedWait(commitMonitor, left);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Close without committing anything written since the last commit; an index that was never
+     * committed leaves no index behind in its directory.
+     */
+    void discard() throws IOException {
+        searcherManager.close();
+        writer.rollback();
+        directory.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+}
@@ -1,171 +1,1313 @@
 package com.krag.vector;
 
+import com.krag.core.model.ChunkDigest;
+import com.krag.core.model.ChunkVector;
+import com.krag.core.model.DocumentInfo;
+import com.krag.core.model.DocumentPage;
+import com.krag.core.model.HybridHits;
+import com.krag.core.model.IndexSettings;
+import com.krag.core.model.MetadataFilter;
 import com.krag.core.model.SearchResult;
+import com.krag.core.model.SegmentStats;
+import com.krag.core.model.VectorQuery;
 import com.krag.core.model.VectorRecord;
 import com.krag.core.store.VectorStore;
-import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.*;
 import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.FloatVectorValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.LiveIndexWriterConfig;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.search.KnnVectorQuery;
+import org.apache.lucene.search.KnnFloatVectorQuery;
 import org.apache.lucene.search.TermQuery;
-import org.apache.lucene.index.MultiFields;
-import org.apache.lucene.index.Fields;
-import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.QueryBuilder;
+import org.apache.lucene.util.StringHelper;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
-public class LuceneMemoryVectorStore implements VectorStore {
+public class LuceneMemoryVectorStore implements VectorStore, DisposableBean {
+
+    private static final String TEXT_FIELD = "text";
+    static final String CONTENT_HASH_FIELD = "contentHash";
+    // Doc values only, so re-ingest can renumber a chunk without rewriting it
+    static final String CHUNK_INDEX_FIELD = "chunkIndex";
+    private static final Sort BY_POSITION = new Sort(new SortField(CHUNK_INDEX_FIELD, SortField.Type.INT), SortField.FIELD_DOC);
+
+    // How many group-commit windows flush() waits for the ticker before committing itself
+    private static final int GROUP_FLUSH_WAIT_WINDOWS = 4;
+
+    // Directory of pool i under the data root; tenant directories never start with '.' (see pathSegment)
+    private static final String POOL_DIR_PREFIX = ".pool-";
+
+    private final ConcurrentHashMap<String, NamespaceIndex> indices = new ConcurrentHashMap<>();
+    // Shared indexes of pooled namespaces, each opened on first use; guarded by itself
+    private final LuceneIndex[] pools;
+    private final LuceneStoreSettings settings;
+    private final ScheduledExecutorService refresher;
+    // Background committer for GROUP/NRT durability; null when every write commits inline
+    private final ScheduledExecutorService committer;
+    // Runs secondary search legs; when saturated the caller runs the task itself
+    private final ThreadPoolExecutor searchExecutor;
+    // Per-segment tasks of single queries on large namespaces; null when disabled
+    private final ThreadPoolExecutor segmentExecutor;
+    private final SearcherFactory searcherFactory;
+    // Segment maintenance, one namespace at a time; scheduled runs and admin requests share it
+    private final ScheduledExecutorService maintainer;
+
+    public LuceneMemoryVectorStore(LuceneStoreSettings settings) {
+        this.settings = settings;
+        this.pools = new LuceneIndex[settings.isSharedEnabled() ? settings.getSharedPools() : 0];
+        checkPoolCount();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "krag-searcher-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(10L, settings.getRefreshMaxStaleMs());
+        this.refresher.scheduleWithFixedDelay(this::refreshAll, period, period, TimeUnit.MILLISECONDS);
+
+        LuceneStoreSettings.Durability durability = settings.getDurability();
+        if (durability == LuceneStoreSettings.Durability.SYNC) {
+            this.committer = null;
+        } else {
+            this.committer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "krag-index-commit");
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = Math.max(1L, durability == LuceneStoreSettings.Durability.GROUP
+                    ? settings.getGroupWindowMs() : settings.getNrtCommitIntervalMs());
+            this.committer.scheduleWithFixedDelay(this::commitAll, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        int searchThreads = settings.getSearchThreads();
+        AtomicInteger searchThreadSeq = new AtomicInteger();
+        this.searchExecutor = new ThreadPoolExecutor(searchThreads, searchThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(searchThreads * 64), r -> {
+                    Thread t = new Thread(r, "krag-search-" + searchThreadSeq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.searchExecutor.allowCoreThreadTimeOut(true);
 
-    private static class NamespaceIndex {
-        final Directory directory = new ByteBuffersDirectory();
-        final Analyzer analyzer = new StandardAnalyzer();
-        final IndexWriter writer;
-        Integer dimension = null;
-        NamespaceIndex() {
+        // On a single core, forking segment tasks only adds overhead
+        if (settings.isSegmentSearchEnabled() && Runtime.getRuntime().availableProcessors() > 1) {
+            int segmentThreads = settings.getSegmentSearchThreads();
+            AtomicInteger segmentThreadSeq = new AtomicInteger();
+            // Separate from searchExecutor: a leg waiting on its segment tasks must never wait behind other legs.
+            // The short queue plus CallerRunsPolicy makes a saturated pool fall back to searching on the caller.
+            this.segmentExecutor = new ThreadPoolExecutor(segmentThreads, segmentThreads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(segmentThreads * 2), r -> {
+                        Thread t = new Thread(r, "krag-segment-search-" + segmentThreadSeq.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            this.segmentExecutor.allowCoreThreadTimeOut(true);
+            this.searcherFactory = new SlicedSearcherFactory(segmentExecutor, settings.getSegmentSearchMinDocs(),
+                    settings.getSegmentSearchMaxDocsPerSlice(), settings.getSegmentSearchMaxSegmentsPerSlice());
+        } else {
+            this.segmentExecutor = null;
+            this.searcherFactory = null;
+        }
+
+        this.maintainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "krag-index-maintenance");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        if (settings.isMaintenanceEnabled()) {
+            long maintenanceInterval = Math.max(1000L, settings.getMaintenanceIntervalMs());
+            this.maintainer.scheduleWithFixedDelay(this::maintainAll, maintenanceInterval, maintenanceInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    NamespaceIndex ns(String tenantId, String kbId) {
+        String key = tenantId + ":" + kbId;
+        // Namespaces (including ones already on disk) are opened lazily on first access,
+        // so startup cost does not depend on how many namespaces or chunks exist
+        return indices.computeIfAbsent(key, k -> {
             try {
-                this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+                return openNamespace(tenantId, kbId);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
+        });
+    }
+
+    private NamespaceIndex openNamespace(String tenantId, String kbId) throws IOException {
+        NamespaceSettings defaults = NamespaceSettings.resolve(null, settings);
+        if (settings.isSharedEnabled()) {
+            String term = poolTerm(tenantId, kbId);
+            if (!dedicatedIndexExists(tenantId, kbId)) {
+                LuceneIndex pool = pool(term);
+                NamespaceIndex ni = new NamespaceIndex(tenantId, kbId, pool, term, settings);
+                // A new namespace joins the pool only while the pool has the defaults it would be created with
+                if (pool.settings.equals(defaults) || ni.liveDocs() > 0) {
+                    return ni;
+                }
+            } else {
+                purgePoolCopy(term);
+            }
         }
+        Directory dir = openDirectory(tenantId, kbId);
+        NamespaceSettings stored = LuceneIndex.readStoredSettings(dir, settings);
+        NamespaceSettings effective = stored != null ? stored : defaults;
+        return new NamespaceIndex(tenantId, kbId, new LuceneIndex(dir, effective, false, settings, searcherFactory), null, settings);
     }
 
-    private final Map<String, NamespaceIndex> indices = new HashMap<>();
+    @Override
+    public IndexSettings createNamespace(String tenantId, String kbId, IndexSettings requested) {
+        return createNamespace(tenantId, kbId, requested, settings.isSharedEnabled());
+    }
 
-    private NamespaceIndex ns(String tenantId, String kbId) {
+    /**
+     * @param mayPool place the namespace in a pool if its settings match the pool's
+     */
+    private IndexSettings createNamespace(String tenantId, String kbId, IndexSettings requested, boolean mayPool) {
         String key = tenantId + ":" + kbId;
-        return indices.computeIfAbsent(key, k -> new NamespaceIndex());
+        NamespaceSettings resolved = NamespaceSettings.resolve(requested, settings);
+        NamespaceIndex created = indices.compute(key, (k, existing) -> {
+            try {
+                boolean onDisk = existing == null && dedicatedIndexExists(tenantId, kbId);
+                if (existing != null) {
+                    if (!existing.isPristine()) {
+                        throw new IllegalArgumentException("namespace already exists: " + k);
+                    }
+                    existing.close();
+                }
+                if (settings.isSharedEnabled() && existing == null && !onDisk) {
+                    String term = poolTerm(tenantId, kbId);
+                    LuceneIndex pool = pool(term);
+                    NamespaceIndex ni = new NamespaceIndex(tenantId, kbId, pool, term, settings);
+                    if (ni.liveDocs() > 0) {
+                        throw new IllegalArgumentException("namespace already exists: " + k);
+                    }
+                    if (mayPool && pool.settings.equals(resolved)) {
+                        return ni;
+                    }
+                } else if (mayPool && existing != null && existing.pooled() && existing.index.settings.equals(resolved)) {
+                    return new NamespaceIndex(tenantId, kbId, existing.index, existing.poolTerm, settings);
+                }
+                Directory dir = openDirectory(tenantId, kbId);
+                if (existing == null && hasDocuments(dir)) {
+                    dir.close();
+                    throw new IllegalArgumentException("namespace already exists: " + k);
+                }
+                NamespaceIndex ni = new NamespaceIndex(tenantId, kbId,
+                        new LuceneIndex(dir, resolved, true, settings, searcherFactory), null, settings);
+                // Persist the settings right away so they survive a restart before the first write
+                ni.writer.commit();
+                return ni;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        return created.settings.toIndexSettings();
     }
 
     @Override
-    public synchronized void upsert(String tenantId, String kbId, List<VectorRecord> records) {
+    public IndexSettings getNamespaceSettings(String tenantId, String kbId) {
+        return ns(tenantId, kbId).settings.toIndexSettings();
+    }
+
+    private static boolean hasDocuments(Directory dir) throws IOException {
+        return DirectoryReader.indexExists(dir) && SegmentInfos.readLatestCommit(dir).totalMaxDoc() > 0;
+    }
+
+    private Directory openDirectory(String tenantId, String kbId) throws IOException {
+        return openDirectory(Paths.get(settings.getDataRoot(), pathSegment(tenantId), pathSegment(kbId)));
+    }
+
+    private Directory openDirectory(Path path) throws IOException {
+        if (!settings.isMmap()) {
+            return new ByteBuffersDirectory();
+        }
+        // Vectors and HNSW graph are read through the OS page cache, not the Java heap
+        Files.createDirectories(path);
+        return new MMapDirectory(path);
+    }
+
+    /**
+     * Whether the namespace has its own index on disk; in memory mode only open namespaces exist.
+     */
+    private boolean dedicatedIndexExists(String tenantId, String kbId) throws IOException {
+        if (!settings.isMmap()) return false;
+        Path path = Paths.get(settings.getDataRoot(), pathSegment(tenantId), pathSegment(kbId));
+        if (!Files.isDirectory(path)) return false;
+        try (Directory dir = new MMapDirectory(path)) {
+            return DirectoryReader.indexExists(dir);
+        }
+    }
+
+    /**
+     * Value of {@link NamespaceScope#FIELD} for a pooled namespace; unambiguous because path
+     * segments never contain '/'.
+     */
+    private static String poolTerm(String tenantId, String kbId) {
+        return pathSegment(tenantId) + "/" + pathSegment(kbId);
+    }
+
+    private LuceneIndex pool(String poolTerm) throws IOException {
+        // String.hashCode is specified, so a namespace maps to the same pool across restarts
+        return pool(Math.floorMod(poolTerm.hashCode(), pools.length));
+    }
+
+    private LuceneIndex pool(int i) throws IOException {
+        synchronized (pools) {
+            if (pools[i] == null) {
+                Directory dir = openDirectory(Paths.get(settings.getDataRoot(), POOL_DIR_PREFIX + i));
+                NamespaceSettings stored = LuceneIndex.readStoredSettings(dir, settings);
+                pools[i] = new LuceneIndex(dir, stored != null ? stored : NamespaceSettings.resolve(null, settings),
+                        false, settings, searcherFactory);
+            }
+            return pools[i];
+        }
+    }
+
+    /**
+     * Pools on disk beyond the configured count hold namespaces nothing would find any more.
+     */
+    private void checkPoolCount() {
+        if (!settings.isMmap()) return;
+        Path root = Paths.get(settings.getDataRoot());
+        if (!Files.isDirectory(root)) return;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, POOL_DIR_PREFIX + "*")) {
+            for (Path dir : dirs) {
+                int i = Integer.parseInt(dir.getFileName().toString().substring(POOL_DIR_PREFIX.length()));
+                if (i >= pools.length) {
+                    throw new IllegalStateException("found pool index " + dir + " but krag.store.shared is "
+                            + (pools.length == 0 ? "disabled" : "configured with " + pools.length + " pools")
+                            + "; the pool count cannot change once pools hold data");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Delete what a graduation interrupted by a crash left of a namespace in its pool; the
+     * dedicated index was committed first, so it is the complete copy.
+     */
+    private void purgePoolCopy(String poolTerm) throws IOException {
+        LuceneIndex pool = pool(poolTerm);
+        Term term = new Term(NamespaceScope.FIELD, poolTerm);
+        IndexSearcher searcher = pool.searcherManager.acquire();
+        try {
+            if (searcher.getIndexReader().docFreq(term) == 0) return;
+        } finally {
+            pool.searcherManager.release(searcher);
+        }
+        pool.recordWrite(pool.writer.deleteDocuments(term), 0);
+    }
+
+    /**
+     * Encode an id as a single safe path segment (no separators, never "." or "..").
+     */
+    private static String pathSegment(String id) {
+        String enc = URLEncoder.encode(id, StandardCharsets.UTF_8);
+        return enc.startsWith(".") ? "%2E" + enc.substring(1) : enc;
+    }
+
+    private List<NamespaceIndex> snapshotIndices() {
+        return new ArrayList<>(indices.values());
+    }
+
+    /**
+     * Every open physical index: dedicated ones and pools, each once.
+     */
+    private List<LuceneIndex> snapshotLuceneIndexes() {
+        List<LuceneIndex> out = new ArrayList<>();
+        for (NamespaceIndex ni : indices.values()) {
+            if (!ni.pooled()) out.add(ni.index);
+        }
+        synchronized (pools) {
+            for (LuceneIndex pool : pools) {
+                if (pool != null) out.add(pool);
+            }
+        }
+        return out;
+    }
+
+    private void refreshAll() {
+        for (LuceneIndex index : snapshotLuceneIndexes()) {
+            try {
+                // Non-blocking: skips the index if another thread is already refreshing it
+                index.searcherManager.maybeRefresh();
+            } catch (Exception ignored) {
+                // Best effort; the next tick (or the next write) retries
+            }
+        }
+    }
+
+    private void maintainAll() {
+        for (LuceneIndex index : snapshotLuceneIndexes()) {
+            try {
+                maintain(index, false);
+            } catch (Exception ignored) {
+                // Best effort; the namespace is looked at again on the next tick
+            }
+        }
+    }
+
+    /**
+     * Merge an index down to the target segment count and expunge its deleted documents when
+     * it is past the configured thresholds, or unconditionally with {@code force}. Merges run
+     * beside concurrent writes and searches, rate limited by the merge scheduler.
+     */
+    private void maintain(LuceneIndex index, boolean force) throws IOException {
+        SegmentStats stats = segmentStats(index);
+        int target = settings.getMaintenanceTargetSegments();
+        boolean merge = stats.getSegmentCount() > (force ? target : Math.max(target, settings.getMaintenanceMaxSegments()));
+        boolean expunge = stats.getDeletedDocs() > 0
+                && (force || stats.getDeletedRatio() >= settings.getMaintenanceDeletedRatio());
+        if (!merge && !expunge) return;
+        if (merge) {
+            index.writer.forceMerge(target, true);
+        }
+        if (expunge) {
+            // Segments the merge above did not touch may still carry deletes
+            index.writer.forceMergeDeletes(true);
+        }
+        index.forceCommit();
+        index.searcherManager.maybeRefreshBlocking();
+    }
+
+    private SegmentStats segmentStats(LuceneIndex index) throws IOException {
+        IndexSearcher searcher = index.searcherManager.acquire();
+        try {
+            List<SegmentStats.Segment> segments = new ArrayList<>();
+            long docs = 0;
+            long deleted = 0;
+            long bytes = 0;
+            for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                SegmentReader reader = (SegmentReader) FilterLeafReader.unwrap(leaf.reader());
+                long size = reader.getSegmentInfo().sizeInBytes();
+                segments.add(new SegmentStats.Segment(reader.getSegmentName(), reader.numDocs(), reader.numDeletedDocs(), size));
+                docs += reader.numDocs();
+                deleted += reader.numDeletedDocs();
+                bytes += size;
+            }
+            SegmentStats stats = new SegmentStats();
+            stats.setSegmentCount(segments.size());
+            stats.setDocs(docs);
+            stats.setDeletedDocs(deleted);
+            stats.setDeletedRatio(docs + deleted == 0 ? 0d : (double) deleted / (docs + deleted));
+            stats.setSizeBytes(bytes);
+            stats.setSegments(segments);
+            return stats;
+        } finally {
+            index.searcherManager.release(searcher);
+        }
+    }
+
+    @Override
+    public SegmentStats segmentStats(String tenantId, String kbId) {
+        NamespaceIndex ni = ns(tenantId, kbId);
+        try {
+            ni.refresh();
+            SegmentStats stats = segmentStats(ni.index);
+            stats.setShared(ni.pooled());
+            return stats;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public SegmentStats maintain(String tenantId, String kbId) {
+        NamespaceIndex ni = ns(tenantId, kbId);
+        try {
+            ni.refresh();
+            // On the maintenance thread, so it never overlaps a scheduled run
+            maintainer.submit(() -> {
+                maintain(ni.index, true);
+                return null;
+            }).get();
+            SegmentStats stats = segmentStats(ni.index);
+            stats.setShared(ni.pooled());
+            return stats;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException re ? re : new RuntimeException(cause);
+        }
+    }
+
+    private void commitAll() {
+        for (LuceneIndex index : snapshotLuceneIndexes()) {
+            if (!index.hasUncommittedWrites()) continue;
+            try {
+                index.commitThrough(index.lastWriteSeq());
+            } catch (Exception ignored) {
+                // Best effort; pending writes stay uncommitted and the next tick retries
+            }
+        }
+    }
+
+    /**
+     * Apply the durability policy and searcher visibility to a write that returned {@code seqNo}.
+     * Runs outside the write lock so concurrent writers to one namespace share commits and reopens.
+     */
+    private void afterWrite(NamespaceIndex ni, long seqNo) {
+        try {
+            switch (settings.getDurability()) {
+                case SYNC -> ni.commitThrough(seqNo);
+                case GROUP -> {
+                    if (ni.pendingDocs() >= settings.getGroupMaxDocs()) {
+                        ni.commitThrough(seqNo);
+                    }
+                }
+                case NRT -> { /* committed by the background ticker */ }
+            }
+            if (settings.isRefreshOnWrite()) {
+                ni.refresh();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            // Entries are tagged with the namespace's write seq and could not hit anyway; this just frees them early
+            ni.resultCache.invalidate();
+        }
+        if (ni.pooled()) {
+            maybeGraduate(ni);
+        }
+    }
+
+    /**
+     * Queue a check whether a pooled namespace has outgrown its pool; at most one per namespace.
+     */
+    private void maybeGraduate(NamespaceIndex ni) {
+        if (!ni.graduationPending.compareAndSet(false, true)) return;
+        try {
+            maintainer.submit(() -> {
+                ni.graduationPending.set(false);
+                try {
+                    if (!ni.isRetired() && ni.liveDocs() > settings.getSharedGraduateDocs()) {
+                        graduate(ni);
+                    }
+                } catch (Exception ignored) {
+                    // Best effort; the namespace's next write checks again
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the next write after a restart checks again
+            ni.graduationPending.set(false);
+        }
+    }
+
+    /**
+     * Move a pooled namespace to its own index: its chunks are copied segment by segment
+     * (vectors, postings and the HNSW graph are rebuilt by the dedicated writer), the copy is
+     * committed, and only then are they deleted from the pool. Readers holding the pooled
+     * instance follow it to the new index; writers wait on the write lock and look it up again.
+     *
+     * @return the dedicated namespace
+     */
+    private NamespaceIndex graduate(NamespaceIndex pooled) throws IOException {
+        pooled.writeLock.lock();
+        try {
+            if (pooled.isRetired()) {
+                return ns(pooled.tenantId, pooled.kbId);
+            }
+            LuceneIndex pool = pooled.index;
+            LuceneIndex dedicated = new LuceneIndex(openDirectory(pooled.tenantId, pooled.kbId), pool.settings, true,
+                    settings, searcherFactory);
+            NamespaceIndex next;
+            try {
+                pool.searcherManager.maybeRefreshBlocking();
+                IndexSearcher searcher = pool.searcherManager.acquire();
+                try {
+                    dedicated.writer.addIndexes(NamespaceScope.codecReaders(searcher.getIndexReader(),
+                            new Term(NamespaceScope.FIELD, pooled.poolTerm)));
+                } finally {
+                    pool.searcherManager.release(searcher);
+                }
+                dedicated.forceCommit();
+                dedicated.searcherManager.maybeRefreshBlocking();
+                dedicated.dimension = pooled.dimension;
+                next = new NamespaceIndex(pooled.tenantId, pooled.kbId, dedicated, null, settings);
+            } catch (IOException | RuntimeException e) {
+                dedicated.discard();
+                throw e;
+            }
+            // Pool-only fields (NamespaceScope.FIELD, POOL_CHUNK_FIELD) come along but are never queried again
+            indices.put(pooled.key, next);
+            pooled.retire(next);
+            long seqNo = pool.writer.deleteDocuments(new Term(NamespaceScope.FIELD, pooled.poolTerm));
+            pool.recordWrite(seqNo, 0);
+            return next;
+        } finally {
+            pooled.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void flush(String tenantId, String kbId) {
         NamespaceIndex ni = ns(tenantId, kbId);
+        long seqNo = ni.lastWriteSeq();
         try {
+            // Ride the next group commit instead of forcing an extra fsync, but only for a few
+            // windows: if the ticker's commit fails or the ticker is gone, commit here and let a
+            // failure reach the caller
+            long timeoutMs = GROUP_FLUSH_WAIT_WINDOWS * Math.max(1L, settings.getGroupWindowMs());
+            if (settings.getDurability() != LuceneStoreSettings.Durability.GROUP || !ni.awaitCommitted(seqNo, timeoutMs)) {
+                ni.commitThrough(seqNo);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void upsert(String tenantId, String kbId, List<VectorRecord> records) {
+        NamespaceIndex ni = lockForWrite(tenantId, kbId);
+        long seqNo;
+        try {
+            // Validate the whole batch up front so a mismatch never leaves a partial write behind
+            Integer dim = ni.dimension;
             for (VectorRecord r : records) {
-                if (ni.dimension == null) {
-                    ni.dimension = r.getVector().length;
+                if (dim == null) {
+                    dim = r.getVector().length;
                 }
-                if (r.getVector().length != ni.dimension) {
+                if (r.getVector().length != dim) {
                     throw new IllegalArgumentException("Vector dimension mismatch for namespace " + tenantId + ":" + kbId);
                 }
-                Document doc = new Document();
-                doc.add(new StringField("docId", r.getDocId(), Field.Store.YES));
-                doc.add(new StringField("chunkId", r.getChunkId(), Field.Store.YES));
-                if (r.getSource() != null) {
-                    doc.add(new StringField("source", r.getSource(), Field.Store.YES));
+            }
+            if (dim != null) {
+                checkCoarseDims(ni, dim);
+                if (ni.pooled() && ni.dimension == null && !claimPoolDimension(ni.index, dim)) {
+                    // The pool's vector field already has another dimension; the namespace needs its own index
+                    NamespaceIndex next = graduate(ni);
+                    next.writeLock.lock();
+                    ni.writeLock.unlock();
+                    ni = next;
                 }
-                // Store original text if provided in metadata under key 'text'
-                String text = r.getMetadata() != null ? r.getMetadata().getOrDefault("text", null) : null;
-                if (text != null) {
-                    doc.add(new StoredField("text", text));
+            }
+            ni.dimension = dim;
+            long now = System.currentTimeMillis();
+            long[] sizes = new long[records.size()];
+            List<Document> docs = new ArrayList<>(records.size());
+            for (VectorRecord r : records) {
+                sizes[docs.size()] = DocumentCatalog.utf8Length(textOf(r));
+                docs.add(toDocument(ni, r, sizes[docs.size()], now));
+            }
+            // We don't dedupe here; callers replace chunks via deleteByDoc or updateChunks
+            seqNo = ni.writer.addDocuments(docs);
+            ni.recordWrite(seqNo, docs.size());
+            DocumentCatalog catalog = ni.loadedCatalog();
+            if (catalog != null) {
+                for (int i = 0; i < records.size(); i++) {
+                    catalog.add(records.get(i).getDocId(), records.get(i).getSource(), sizes[i], now);
                 }
-                doc.add(new KnnVectorField("vector", r.getVector()));
-                // We don't dedupe here; caller can call deleteByDoc before upsert if needed
-                ni.writer.addDocument(doc);
             }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            ni.writeLock.unlock();
+        }
+        afterWrite(ni, seqNo);
+    }
+
+    /**
+     * Look up a namespace and take its write lock, following it if it moved out of its pool meanwhile.
+     */
+    private NamespaceIndex lockForWrite(String tenantId, String kbId) {
+        while (true) {
+            NamespaceIndex ni = ns(tenantId, kbId);
+            ni.writeLock.lock();
+            if (!ni.isRetired()) return ni;
+            ni.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Fix the vector dimension of a pool on its first vector; namespaces of a pool write under
+     * their own locks, so this is what keeps them from racing on it.
+     *
+     * @return whether vectors of {@code dimension} fit the pool
+     */
+    private static boolean claimPoolDimension(LuceneIndex pool, int dimension) {
+        synchronized (pool) {
+            if (pool.dimension == null) {
+                pool.dimension = dimension;
+            }
+            return pool.dimension == dimension;
+        }
+    }
+
+    /**
+     * Lucene document for one chunk; {@code bytes} is its text size as recorded in the catalog.
+     */
+    private static Document toDocument(NamespaceIndex ni, VectorRecord r, long bytes, long ingestedAt) {
+        Document doc = new Document();
+        doc.add(new StringField("docId", r.getDocId(), Field.Store.YES));
+        doc.add(new StringField("chunkId", r.getChunkId(), Field.Store.YES));
+        if (r.getSource() != null) {
+            doc.add(new StringField("source", r.getSource(), Field.Store.YES));
+        }
+        if (r.getContentHash() != null) {
+            doc.add(new StringField(CONTENT_HASH_FIELD, r.getContentHash(), Field.Store.YES));
+        }
+        if (r.getChunkIndex() != null) {
+            doc.add(new NumericDocValuesField(CHUNK_INDEX_FIELD, r.getChunkIndex()));
+        }
+        // Store original text if provided in metadata under key 'text'; also indexed for BM25
+        String text = textOf(r);
+        if (text != null) {
+            doc.add(new TextField(TEXT_FIELD, text, Field.Store.YES));
+        }
+        DocumentCatalog.addFields(doc, r.getDocId(), bytes, ingestedAt);
+        MetadataFields.addTo(doc, r.getMetadata());
+        ni.addScopeFields(doc, r.getChunkId());
+        doc.add(new KnnFloatVectorField(NamespaceIndex.VECTOR_FIELD, r.getVector(), ni.settings.similarityFunction()));
+        if (ni.settings.twoStage()) {
+            doc.add(new KnnFloatVectorField(NamespaceIndex.COARSE_VECTOR_FIELD, ni.settings.coarse(r.getVector()),
+                    ni.settings.coarseSimilarityFunction()));
+        }
+        return doc;
+    }
+
+    private static void checkCoarseDims(NamespaceIndex ni, int dimension) {
+        if (ni.settings.coarseDims >= dimension) {
+            throw new IllegalArgumentException("coarseDims (" + ni.settings.coarseDims
+                    + ") must be less than the vector dimension (" + dimension + ") of namespace " + ni.key);
+        }
+    }
+
+    private static String textOf(VectorRecord r) {
+        return r.getMetadata() != null ? r.getMetadata().get("text") : null;
+    }
+
+    @Override
+    public long exportSnapshot(String tenantId, String kbId, OutputStream out) throws IOException {
+        NamespaceIndex ni = ns(tenantId, kbId);
+        // Point in time: writes that land during the export are not part of it
+        ni.refresh();
+        IndexSearcher searcher = ni.acquire();
+        try {
+            Integer dim = ni.dimension;
+            return NamespaceSnapshot.write(searcher.getIndexReader(), ni.settings.toUserData(), dim == null ? 0 : dim, out);
+        } finally {
+            ni.release(searcher);
+        }
+    }
+
+    @Override
+    public long importSnapshot(String tenantId, String kbId, InputStream in) throws IOException {
+        NamespaceSnapshot.Reader snapshot = new NamespaceSnapshot.Reader(in);
+        NamespaceSettings snapshotSettings = NamespaceSettings.fromUserData(snapshot.settings(), settings);
+        if (snapshotSettings == null) {
+            throw new IllegalArgumentException("snapshot has no index settings");
+        }
+        // Always a dedicated index: the rollback below clears the whole index on failure
+        createNamespace(tenantId, kbId, snapshotSettings.toIndexSettings(), false);
+        NamespaceIndex ni = lockForWrite(tenantId, kbId);
+        // Checked under the write lock and outside the rollback: another writer may have filled
+        // the namespace since it was created, and its data must not be cleared with ours
+        try {
+            if (!ni.isPristine()) {
+                throw new IllegalArgumentException("namespace already exists: " + ni.key);
+            }
+        } catch (IOException | RuntimeException e) {
+            ni.writeLock.unlock();
+            throw e;
+        }
+        long rows = 0;
+        long seqNo = -1;
+        LiveIndexWriterConfig config = ni.writer.getConfig();
+        double ramBufferMb = config.getRAMBufferSizeMB();
+        try {
+            // Bulk load: segments are flushed only when the large buffer fills and there is a
+            // single commit at the end, instead of the per-write commit/refresh of upsert
+            config.setRAMBufferSizeMB(settings.getImportRamBufferMb());
+            if (snapshot.dimension() > 0) {
+                checkCoarseDims(ni, snapshot.dimension());
+                ni.dimension = snapshot.dimension();
+            }
+            DocumentCatalog catalog = ni.loadedCatalog();
+            for (NamespaceSnapshot.Block block; (block = snapshot.next()) != null; ) {
+                List<VectorRecord> records = block.records;
+                long[] sizes = new long[records.size()];
+                List<Document> docs = new ArrayList<>(records.size());
+                for (int i = 0; i < records.size(); i++) {
+                    sizes[i] = DocumentCatalog.utf8Length(textOf(records.get(i)));
+                    docs.add(toDocument(ni, records.get(i), sizes[i], block.ingestedAt[i]));
+                }
+                seqNo = ni.writer.addDocuments(docs);
+                if (catalog != null) {
+                    for (int i = 0; i < records.size(); i++) {
+                        catalog.add(records.get(i).getDocId(), records.get(i).getSource(), sizes[i], block.ingestedAt[i]);
+                    }
+                }
+                rows += docs.size();
+            }
+            ni.recordWrite(seqNo, (int) Math.min(rows, Integer.MAX_VALUE));
+            ni.commitThrough(seqNo);
+        } catch (IOException | RuntimeException e) {
+            // Leave the namespace empty rather than half loaded
+            ni.writer.deleteAll();
             ni.writer.commit();
+            ni.dimension = null;
+            DocumentCatalog catalog = ni.loadedCatalog();
+            if (catalog != null) {
+                catalog.clear();
+            }
+            throw e;
+        } finally {
+            config.setRAMBufferSizeMB(ramBufferMb);
+            ni.writeLock.unlock();
+        }
+        ni.refresh();
+        ni.resultCache.invalidate();
+        return rows;
+    }
+
+    @Override
+    public List<SearchResult> search(String tenantId, String kbId, VectorQuery query) {
+        NamespaceIndex ni = ns(tenantId, kbId);
+        Query filterQuery = MetadataFields.toQuery(query.getFilter());
+        try {
+            IndexSearcher searcher = ni.acquire();
+            try {
+                return cachedVectorLeg(ni, searcher, query, filterQuery);
+            } finally {
+                ni.release(searcher);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
-    public synchronized List<SearchResult> search(String tenantId, String kbId, float[] queryVector, int topK, float minScore) {
+    public List<List<SearchResult>> searchBatch(String tenantId, String kbId, List<VectorQuery> queries) {
         NamespaceIndex ni = ns(tenantId, kbId);
+        List<Query> filters = new ArrayList<>(queries.size());
+        for (VectorQuery q : queries) {
+            filters.add(MetadataFields.toQuery(q.getFilter()));
+        }
+        List<Future<List<SearchResult>>> pending = new ArrayList<>(queries.size());
         try {
-            DirectoryReader reader = DirectoryReader.open(ni.directory);
-            IndexSearcher searcher = new IndexSearcher(reader);
-            TopDocs topDocs = searcher.search(new KnnVectorQuery("vector", queryVector, topK), topK);
-            List<SearchResult> results = new ArrayList<>();
-            for (ScoreDoc sd : topDocs.scoreDocs) {
-                if (sd.score < minScore) continue;
-                Document doc = searcher.doc(sd.doc);
-                SearchResult sr = new SearchResult();
-                sr.setDocId(doc.get("docId"));
-                sr.setChunkId(doc.get("chunkId"));
-                sr.setText(doc.get("text"));
-                sr.setScore(sd.score);
-                results.add(sr);
+            IndexSearcher searcher = ni.acquire();
+            try {
+                // Every query but the first goes to the search pool; this thread takes the first,
+                // so the batch costs about as much as its slowest query
+                for (int i = 1; i < queries.size(); i++) {
+                    VectorQuery q = queries.get(i);
+                    Query filterQuery = filters.get(i);
+                    pending.add(searchExecutor.submit(() -> cachedVectorLeg(ni, searcher, q, filterQuery)));
+                }
+                List<List<SearchResult>> out = new ArrayList<>(queries.size());
+                if (!queries.isEmpty()) {
+                    out.add(cachedVectorLeg(ni, searcher, queries.get(0), filters.get(0)));
+                }
+                for (Future<List<SearchResult>> f : pending) {
+                    out.add(f.get());
+                }
+                return out;
+            } finally {
+                // Never release the searcher while a pooled search may still be reading from it
+                for (Future<List<SearchResult>> f : pending) {
+                    awaitQuietly(f);
+                }
+                ni.release(searcher);
             }
-            reader.close();
-            return results;
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException re ? re : new RuntimeException(cause);
         }
     }
 
     @Override
-    public synchronized void deleteByDoc(String tenantId, String kbId, String docId) {
+    public List<SearchResult> keywordSearch(String tenantId, String kbId, String queryText, int topK, MetadataFilter filter) {
         NamespaceIndex ni = ns(tenantId, kbId);
+        Query filterQuery = MetadataFields.toQuery(filter);
         try {
-            ni.writer.deleteDocuments(new Term("docId", docId));
-            ni.writer.commit();
+            IndexSearcher searcher = ni.acquire();
+            try {
+                return lexicalLeg(ni, searcher, queryText, topK, filterQuery);
+            } finally {
+                ni.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public HybridHits hybridSearch(String tenantId, String kbId, String queryText, float[] queryVector, int topK, float minScore,
+                                   MetadataFilter filter) {
+        NamespaceIndex ni = ns(tenantId, kbId);
+        Query filterQuery = MetadataFields.toQuery(filter);
+        try {
+            IndexSearcher searcher = ni.acquire();
+            Future<List<SearchResult>> lexical = null;
+            try {
+                // BM25 leg on the search pool while this thread runs KNN, so latency ~ the slower leg
+                lexical = searchExecutor.submit(() -> lexicalLeg(ni, searcher, queryText, topK, filterQuery));
+                List<SearchResult> vector = vectorLeg(ni, searcher, new VectorQuery(queryVector, topK, minScore, null), filterQuery);
+                return new HybridHits(lexical.get(), vector);
+            } finally {
+                // Never release the searcher while the other leg may still be reading from it
+                awaitQuietly(lexical);
+                ni.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException re ? re : new RuntimeException(cause);
+        }
+    }
+
+    private static void awaitQuietly(Future<?> f) {
+        if (f == null) return;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                f.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (Exception ignored) {
+                // Failure is reported by whoever consumed the result
+                break;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * @param filter {@code query}'s metadata filter, already translated to a Lucene query
+     */
+    private List<SearchResult> cachedVectorLeg(NamespaceIndex ni, IndexSearcher searcher, VectorQuery query,
+                                               Query filter) throws IOException {
+        if (!ni.resultCache.enabled()) {
+            return vectorLeg(ni, searcher, query, filter);
+        }
+        // Tagged with the namespace's own last write rather than the reader version, which in a
+        // pool also moves on every write to the other namespaces sharing it
+        long generation = ni.ownWriteSeq();
+        if (ni.visibleSeq(searcher) < generation) {
+            // The searcher may predate that write (or is no longer the current one): bypass
+            return vectorLeg(ni, searcher, query, filter);
+        }
+        SearchResultCache.Key cacheKey = new SearchResultCache.Key(query.getVector(), query.getTopK(), query.getMinScore(),
+                filter, query.isExact(), query.getOversample());
+        List<SearchResult> cached = ni.resultCache.get(cacheKey, generation);
+        if (cached != null) {
+            return cached;
+        }
+        List<SearchResult> results = vectorLeg(ni, searcher, query, filter);
+        ni.resultCache.put(cacheKey, generation, results);
+        return results;
+    }
+
+    /**
+     * Exact scan when {@code query} asks for it or the namespace is small enough that a scan is as
+     * fast as the graph. Otherwise HNSW for topK x oversample candidates, rescored against the full
+     * vectors: in two-stage namespaces the graph walk runs on the short coarse vectors, so only
+     * the few candidates pay for full-dimension distances.
+     */
+    private List<SearchResult> vectorLeg(NamespaceIndex ni, IndexSearcher searcher, VectorQuery query,
+                                         Query filter) throws IOException {
+        NamespaceSettings nsSettings = ni.settings;
+        filter = ni.scoped(filter);
+        float[] queryVector = query.getVector();
+        int topK = query.getTopK();
+        ScoreDoc[] hits;
+        if (query.isExact() || searcher.getIndexReader().numDocs() <= settings.getExactMaxDocs()) {
+            hits = ExactVectorSearch.search(searcher, NamespaceIndex.VECTOR_FIELD, queryVector,
+                    nsSettings.similarityFunction(), topK, filter);
+        } else {
+            int k = nsSettings.candidates(topK, query.getOversample());
+            KnnFloatVectorQuery knn = nsSettings.twoStage()
+                    ? new KnnFloatVectorQuery(NamespaceIndex.COARSE_VECTOR_FIELD, nsSettings.coarse(queryVector), k, filter)
+                    : new KnnFloatVectorQuery(NamespaceIndex.VECTOR_FIELD, queryVector, k, filter);
+            // Pre-filter: the graph search only collects matching docs, and Lucene switches to exact
+            // scoring of the matching docs when the filter is more selective than the graph walk
+            hits = searcher.search(knn, k).scoreDocs;
+            if (nsSettings.rescores()) {
+                hits = VectorRescorer.rescore(searcher, NamespaceIndex.VECTOR_FIELD, hits, queryVector,
+                        nsSettings.similarityFunction(), topK);
+            } else if (hits.length > topK) {
+                hits = Arrays.copyOf(hits, topK);
+            }
+        }
+        StoredFields storedFields = searcher.storedFields();
+        List<SearchResult> results = new ArrayList<>();
+        for (ScoreDoc sd : hits) {
+            if (sd.score < query.getMinScore()) continue;
+            results.add(toResult(ni, storedFields.document(sd.doc), sd.score));
+        }
+        return results;
+    }
+
+    private List<SearchResult> lexicalLeg(NamespaceIndex ni, IndexSearcher searcher, String queryText, int topK,
+                                          Query filter) throws IOException {
+        Query query = new QueryBuilder(ni.analyzer).createBooleanQuery(TEXT_FIELD, queryText == null ? "" : queryText);
+        if (query == null) {
+            // Text analyzed to no terms (e.g. only punctuation)
+            return new ArrayList<>();
+        }
+        filter = ni.scoped(filter);
+        if (filter != null) {
+            query = new BooleanQuery.Builder()
+                    .add(query, BooleanClause.Occur.MUST)
+                    .add(filter, BooleanClause.Occur.FILTER)
+                    .build();
+        }
+        TopDocs topDocs = searcher.search(query, topK);
+        StoredFields storedFields = searcher.storedFields();
+        List<SearchResult> results = new ArrayList<>();
+        for (ScoreDoc sd : topDocs.scoreDocs) {
+            results.add(toResult(ni, storedFields.document(sd.doc), sd.score));
+        }
+        return results;
+    }
+
+    @Override
+    public void deleteByDoc(String tenantId, String kbId, String docId) {
+        NamespaceIndex ni = lockForWrite(tenantId, kbId);
+        long seqNo;
+        try {
+            seqNo = ni.deleteDoc(docId);
+            ni.recordWrite(seqNo, 1);
+            DocumentCatalog catalog = ni.loadedCatalog();
+            if (catalog != null) {
+                catalog.removeDoc(docId);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            ni.writeLock.unlock();
         }
+        afterWrite(ni, seqNo);
     }
 
     @Override
-    public synchronized List<SearchResult> findByDoc(String tenantId, String kbId, String docId) {
+    public List<SearchResult> findByDoc(String tenantId, String kbId, String docId) {
         NamespaceIndex ni = ns(tenantId, kbId);
         try {
-            DirectoryReader reader = DirectoryReader.open(ni.directory);
-            IndexSearcher searcher = new IndexSearcher(reader);
-            TopDocs topDocs = searcher.search(new TermQuery(new Term("docId", docId)), Integer.MAX_VALUE);
-            List<SearchResult> results = new ArrayList<>();
-            for (ScoreDoc sd : topDocs.scoreDocs) {
-                Document doc = searcher.doc(sd.doc);
-                SearchResult sr = new SearchResult();
-                sr.setDocId(doc.get("docId"));
-                sr.setChunkId(doc.get("chunkId"));
-                sr.setText(doc.get("text"));
-                sr.setScore(sd.score);
-                results.add(sr);
+            IndexSearcher searcher = ni.acquire();
+            try {
+                // Chunks without a recorded position sort as 0 and keep their (write) order
+                TopDocs topDocs = searcher.search(new TermQuery(new Term("docId", docId)), Integer.MAX_VALUE, BY_POSITION, true);
+                StoredFields storedFields = searcher.storedFields();
+                List<SearchResult> results = new ArrayList<>();
+                for (ScoreDoc sd : topDocs.scoreDocs) {
+                    results.add(toResult(ni, storedFields.document(sd.doc), sd.score));
+                }
+                return results;
+            } finally {
+                ni.release(searcher);
             }
-            reader.close();
-            return results;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
-    public synchronized List<String> listDocIds(String tenantId, String kbId) {
+    public List<ChunkVector> findVectorsByDoc(String tenantId, String kbId, String docId) {
         NamespaceIndex ni = ns(tenantId, kbId);
+        Set<String> fields = Set.of("chunkId");
         try {
-            DirectoryReader reader = DirectoryReader.open(ni.directory);
-            IndexSearcher searcher = new IndexSearcher(reader);
-            LinkedHashSet<String> ids = new LinkedHashSet<>();
-            TopDocs topDocs = searcher.search(new org.apache.lucene.search.MatchAllDocsQuery(), Integer.MAX_VALUE);
-            for (ScoreDoc sd : topDocs.scoreDocs) {
-                Document doc = searcher.doc(sd.doc);
-                String id = doc.get("docId");
-                if (id != null) {
-                    ids.add(id);
+            IndexSearcher searcher = ni.acquire();
+            try {
+                ScoreDoc[] hits = searcher.search(new TermQuery(new Term("docId", docId)), Integer.MAX_VALUE, BY_POSITION).scoreDocs;
+                // Vector values are forward-only iterators: read in doc id order, return in position order
+                Integer[] byDoc = new Integer[hits.length];
+                for (int i = 0; i < hits.length; i++) byDoc[i] = i;
+                Arrays.sort(byDoc, Comparator.comparingInt(i -> hits[i].doc));
+                List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+                ChunkVector[] out = new ChunkVector[hits.length];
+                int leafOrd = -1;
+                FloatVectorValues values = null;
+                for (int i : byDoc) {
+                    int doc = hits[i].doc;
+                    int ord = ReaderUtil.subIndex(doc, leaves);
+                    LeafReaderContext leaf = leaves.get(ord);
+                    if (ord != leafOrd) {
+                        leafOrd = ord;
+                        values = leaf.reader().getFloatVectorValues(NamespaceIndex.VECTOR_FIELD);
+                    }
+                    int target = doc - leaf.docBase;
+                    float[] vector = null;
+                    if (values != null && (values.docID() == target || (values.docID() < target && values.advance(target) == target))) {
+                        // The iterator reuses its buffer
+                        vector = values.vectorValue().clone();
+                    }
+                    out[i] = new ChunkVector(leaf.reader().storedFields().document(target, fields).get("chunkId"), vector);
+                }
+                return Arrays.asList(out);
+            } finally {
+                ni.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<ChunkDigest> chunkDigests(String tenantId, String kbId, String docId) {
+        NamespaceIndex ni = ns(tenantId, kbId);
+        Set<String> fields = Set.of("chunkId", CONTENT_HASH_FIELD);
+        try {
+            // Re-ingest decides what to delete from this, so it must see every write already applied
+            ni.refresh();
+            IndexSearcher searcher = ni.acquire();
+            try {
+                Query query = searcher.rewrite(new TermQuery(new Term("docId", docId)));
+                Weight weight = searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1f);
+                List<ChunkDigest> digests = new ArrayList<>();
+                for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                    Scorer scorer = weight.scorer(leaf);
+                    if (scorer == null) continue;
+                    Bits live = leaf.reader().getLiveDocs();
+                    StoredFields storedFields = leaf.reader().storedFields();
+                    NumericDocValues positions = DocValues.getNumeric(leaf.reader(), CHUNK_INDEX_FIELD);
+                    DocIdSetIterator it = scorer.iterator();
+                    for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+                        if (live != null && !live.get(doc)) continue;
+                        Document d = storedFields.document(doc, fields);
+                        Integer position = positions.advanceExact(doc) ? (int) positions.longValue() : null;
+                        digests.add(new ChunkDigest(d.get("chunkId"), d.get(CONTENT_HASH_FIELD), position));
+                    }
+                }
+                return digests;
+            } finally {
+                ni.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateChunks(String tenantId, String kbId, Collection<String> deletedChunkIds, Map<String, Integer> newPositions) {
+        if (deletedChunkIds.isEmpty() && newPositions.isEmpty()) return;
+        NamespaceIndex ni = lockForWrite(tenantId, kbId);
+        long seqNo = -1;
+        try {
+            DocumentCatalog catalog = ni.loadedCatalog();
+            List<DocumentCatalog.ChunkStat> removed = List.of();
+            if (catalog != null && !deletedChunkIds.isEmpty()) {
+                // Which documents lose which chunks; the refreshed searcher sees every write so far
+                ni.refresh();
+                IndexSearcher searcher = ni.acquire();
+                try {
+                    removed = DocumentCatalog.lookup(searcher, deletedChunkIds);
+                } finally {
+                    ni.release(searcher);
+                }
+            }
+            if (!deletedChunkIds.isEmpty()) {
+                Term[] terms = new Term[deletedChunkIds.size()];
+                int i = 0;
+                for (String id : deletedChunkIds) terms[i++] = ni.chunkTerm(id);
+                seqNo = ni.writer.deleteDocuments(terms);
+            }
+            for (Map.Entry<String, Integer> e : newPositions.entrySet()) {
+                // An in-place doc-values update: the chunk's postings, stored fields and vector stay as they are
+                seqNo = ni.writer.updateNumericDocValue(ni.chunkTerm(e.getKey()), CHUNK_INDEX_FIELD, e.getValue());
+            }
+            ni.recordWrite(seqNo, deletedChunkIds.size() + newPositions.size());
+            if (catalog != null) {
+                catalog.removeChunks(removed);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            ni.writeLock.unlock();
+        }
+        afterWrite(ni, seqNo);
+    }
+
+    @Override
+    public List<String> listNamespaces(String tenantId) {
+        Set<String> kbIds = new TreeSet<>();
+        for (NamespaceIndex ni : snapshotIndices()) {
+            if (ni.tenantId.equals(tenantId)) kbIds.add(ni.kbId);
+        }
+        if (settings.isMmap()) {
+            // Namespaces on disk that have not been opened since startup
+            Path tenantDir = Paths.get(settings.getDataRoot(), pathSegment(tenantId));
+            if (Files.isDirectory(tenantDir)) {
+                try (DirectoryStream<Path> dirs = Files.newDirectoryStream(tenantDir, Files::isDirectory)) {
+                    for (Path dir : dirs) {
+                        kbIds.add(URLDecoder.decode(dir.getFileName().toString(), StandardCharsets.UTF_8));
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        if (settings.isSharedEnabled()) {
+            try {
+                listPooledNamespaces(tenantId, kbIds);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return new ArrayList<>(kbIds);
+    }
+
+    /**
+     * Add the tenant's namespaces that have chunks in a pool; their terms sort together because
+     * every one starts with the tenant's path segment and '/'.
+     */
+    private void listPooledNamespaces(String tenantId, Set<String> kbIds) throws IOException {
+        BytesRef prefix = new BytesRef(pathSegment(tenantId) + "/");
+        for (int i = 0; i < pools.length; i++) {
+            if (settings.isMmap() && Files.isDirectory(Paths.get(settings.getDataRoot(), POOL_DIR_PREFIX + i))) {
+                pool(i);
+            }
+            LuceneIndex pool;
+            synchronized (pools) {
+                pool = pools[i];
+            }
+            if (pool == null) continue;
+            IndexSearcher searcher = pool.searcherManager.acquire();
+            try {
+                Terms terms = MultiTerms.getTerms(searcher.getIndexReader(), NamespaceScope.FIELD);
+                if (terms == null) continue;
+                TermsEnum te = terms.iterator();
+                if (te.seekCeil(prefix) == TermsEnum.SeekStatus.END) continue;
+                for (BytesRef term = te.term(); term != null && StringHelper.startsWith(term, prefix); term = te.next()) {
+                    // Terms outlive their documents until a merge; only count namespaces with live chunks
+                    if (searcher.count(new TermQuery(new Term(NamespaceScope.FIELD, BytesRef.deepCopyOf(term)))) == 0) continue;
+                    String kbSegment = term.utf8ToString().substring(prefix.length);
+                    kbIds.add(URLDecoder.decode(kbSegment, StandardCharsets.UTF_8));
                 }
+            } finally {
+                pool.searcherManager.release(searcher);
             }
-            reader.close();
-            return new ArrayList<>(ids);
-        } catch (org.apache.lucene.index.IndexNotFoundException e) {
-            // No index segments exist yet for this namespace; return empty list gracefully
-            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public List<String> listDocIds(String tenantId, String kbId) {
+        DocumentPage all = listDocuments(tenantId, kbId, 0, Integer.MAX_VALUE, DocumentInfo.SortKey.INGESTED_AT, false);
+        List<String> ids = new ArrayList<>(all.getItems().size());
+        for (DocumentInfo d : all.getItems()) {
+            ids.add(d.getDocId());
+        }
+        return ids;
+    }
+
+    @Override
+    public DocumentPage listDocuments(String tenantId, String kbId, int offset, int limit, DocumentInfo.SortKey sort,
+                                      boolean descending) {
+        try {
+            return ns(tenantId, kbId).catalog().page(offset, limit, sort, descending);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+        searchExecutor.shutdownNow();
+        maintainer.shutdownNow();
+        if (segmentExecutor != null) {
+            segmentExecutor.shutdownNow();
+        }
+        if (committer != null) {
+            committer.shutdownNow();
+        }
+        // IndexWriter.close() commits, so GROUP/NRT writes still pending are persisted on shutdown
+        for (LuceneIndex index : snapshotLuceneIndexes()) {
+            try {
+                index.close();
+            } catch (IOException ignored) {
+                // Shutting down; nothing left to do with a failed close
+            }
+        }
+    }
+
+    private static SearchResult toResult(NamespaceIndex ni, Document doc, float score) {
+        SearchResult sr = new SearchResult();
+        sr.setKbId(ni.kbId);
+        sr.setDocId(doc.get("docId"));
+        sr.setChunkId(doc.get("chunkId"));
+        sr.setText(doc.get("text"));
+        sr.setScore(score);
+        Map<String, String> md = MetadataFields.read(doc);
+        String source = doc.get("source");
+        if (source != null) {
+            if (md == null) md = new LinkedHashMap<>();
+            md.put("source", source);
+        }
+        sr.setMetadata(md);
+        return sr;
+    }
+}
@@ -0,0 +1,251 @@
+package com.krag.vector;
+
+import com.krag.core.model.IndexSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning knobs for {@link LuceneMemoryVectorStore}, bound from {@code krag.store.*}.
+ */
+@Component
+public class LuceneStoreSettings {
+
+    /**
+     * When writes become durable: {@code SYNC} commits every write before it returns, {@code GROUP}
+     * commits on a short time/size window, {@code NRT} only guarantees searcher visibility and
+     * commits on a long interval.
+     */
+    public enum Durability { SYNC, GROUP, NRT }
+
+    /** Directory type per namespace: {@code memory} (heap ByteBuffersDirectory) or {@code mmap} (disk). */
+    @Value("${krag.store.directory:memory}")
+    private String directory = "memory";
+
+    /** Root folder for {@code mmap} namespaces; each namespace lives in {@code <root>/<tenantId>/<kbId>}. */
+    @Value("${krag.store.data-root:data/index}")
+    private String dataRoot = "data/index";
+
+    /** Make writes visible to searchers before upsert/deleteByDoc return. */
+    @Value("${krag.store.refresh.on-write:true}")
+    private boolean refreshOnWrite = true;
+
+    /** Upper bound on how long a write may stay invisible to searchers. */
+    @Value("${krag.store.refresh.max-stale-ms:1000}")
+    private long refreshMaxStaleMs = 1000;
+
+    /** Commit policy for upsert/deleteByDoc, see {@link Durability}. */
+    @Value("${krag.store.durability.mode:SYNC}")
+    private Durability durability = Durability.SYNC;
+
+    /** GROUP: maximum time a write waits for the commit that makes it durable. */
+    @Value("${krag.store.durability.group-window-ms:50}")
+    private long groupWindowMs = 50;
+
+    /** GROUP: commit early once this many documents are pending in a namespace. */
+    @Value("${krag.store.durability.group-max-docs:5000}")
+    private long groupMaxDocs = 5000;
+
+    /** NRT: background commit interval, i.e. the data-loss window on a crash. */
+    @Value("${krag.store.durability.nrt-commit-interval-ms:30000}")
+    private long nrtCommitIntervalMs = 30000;
+
+    /** Threads running secondary search legs (e.g. the BM25 leg of a hybrid search). */
+    @Value("${krag.store.search-threads:0}")
+    private int searchThreads = 0;
+
+    /** Search the segments of one query concurrently in namespaces of at least {@link #segmentSearchMinDocs}. */
+    @Value("${krag.store.segment-search.enabled:true}")
+    private boolean segmentSearchEnabled = true;
+
+    /** Threads of the per-segment search pool, shared by all namespaces; 0 means available processors. */
+    @Value("${krag.store.segment-search.threads:0}")
+    private int segmentSearchThreads = 0;
+
+    @Value("${krag.store.segment-search.min-docs:100000}")
+    private int segmentSearchMinDocs = 100000;
+
+    /** Slice bounds for collector-based searches; KNN always searches each segment as its own task. */
+    @Value("${krag.store.segment-search.max-docs-per-slice:250000}")
+    private int segmentSearchMaxDocsPerSlice = 250000;
+
+    @Value("${krag.store.segment-search.max-segments-per-slice:5}")
+    private int segmentSearchMaxSegmentsPerSlice = 5;
+
+    /** Namespaces with at most this many live chunks are searched by exact scan instead of HNSW. */
+    @Value("${krag.store.exact.max-docs:10000}")
+    private int exactMaxDocs = 10000;
+
+    /** Cached vector-search results kept per namespace; 0 disables the result cache. */
+    @Value("${krag.store.result-cache.max-entries:1024}")
+    private int resultCacheMaxEntries = 1024;
+
+    /** IndexWriter RAM buffer while importing a snapshot; larger means fewer, bigger flushed segments. */
+    @Value("${krag.store.import-ram-buffer-mb:512}")
+    private double importRamBufferMb = 512;
+
+    /**
+     * Keep small namespaces with the default index settings in a few shared pool indexes instead of
+     * one index (writer, buffers, files) each; they move to a dedicated index past {@link #sharedGraduateDocs}.
+     */
+    @Value("${krag.store.shared.enabled:false}")
+    private boolean sharedEnabled = false;
+
+    /** Number of pool indexes; namespaces are assigned by hash, so this must not change once pools hold data. */
+    @Value("${krag.store.shared.pools:4}")
+    private int sharedPools = 4;
+
+    @Value("${krag.store.shared.graduate-docs:10000}")
+    private int sharedGraduateDocs = 10000;
+
+    /** Run segment maintenance in the background; the admin endpoint works either way. */
+    @Value("${krag.store.maintenance.enabled:true}")
+    private boolean maintenanceEnabled = true;
+
+    /** How often every open namespace is checked against the thresholds below. */
+    @Value("${krag.store.maintenance.interval-ms:60000}")
+    private long maintenanceIntervalMs = 60000;
+
+    /** Merge down to {@link #maintenanceTargetSegments} once a namespace has more segments than this. */
+    @Value("${krag.store.maintenance.max-segments:16}")
+    private int maintenanceMaxSegments = 16;
+
+    @Value("${krag.store.maintenance.target-segments:4}")
+    private int maintenanceTargetSegments = 4;
+
+    /** Expunge deletes once this share (0..1) of the documents in the index is deleted. */
+    @Value("${krag.store.maintenance.deleted-ratio:0.1}")
+    private double maintenanceDeletedRatio = 0.1;
+
+    /** IO rate limit of maintenance merges; 0 means unlimited. Regular merges are not affected. */
+    @Value("${krag.store.maintenance.merge-mb-per-sec:20}")
+    private double maintenanceMergeMbPerSec = 20;
+
+    // Defaults for namespaces created without explicit IndexSettings
+    @Value("${krag.store.index.similarity:EUCLIDEAN}")
+    private IndexSettings.Similarity similarity = IndexSettings.Similarity.EUCLIDEAN;
+
+    @Value("${krag.store.index.hnsw-m:16}")
+    private int hnswM = 16;
+
+    @Value("${krag.store.index.hnsw-beam-width:100}")
+    private int hnswBeamWidth = 100;
+
+    @Value("${krag.store.index.quantization:NONE}")
+    private IndexSettings.Quantization quantization = IndexSettings.Quantization.NONE;
+
+    @Value("${krag.store.index.rescore:true}")
+    private boolean rescore = true;
+
+    @Value("${krag.store.index.oversample:3}")
+    private int oversample = 3;
+
+    @Value("${krag.store.index.coarse-dims:0}")
+    private int coarseDims = 0;
+
+    public String getDirectory() { return directory; }
+    public void setDirectory(String directory) { this.directory = directory; }
+
+    public String getDataRoot() { return dataRoot; }
+    public void setDataRoot(String dataRoot) { this.dataRoot = dataRoot; }
+
+    public boolean isRefreshOnWrite() { return refreshOnWrite; }
+    public void setRefreshOnWrite(boolean refreshOnWrite) { this.refreshOnWrite = refreshOnWrite; }
+
+    public long getRefreshMaxStaleMs() { return refreshMaxStaleMs; }
+    public void setRefreshMaxStaleMs(long refreshMaxStaleMs) { this.refreshMaxStaleMs = refreshMaxStaleMs; }
+
+    public Durability getDurability() { return durability; }
+    public void setDurability(Durability durability) { this.durability = durability; }
+
+    public long getGroupWindowMs() { return groupWindowMs; }
+    public void setGroupWindowMs(long groupWindowMs) { this.groupWindowMs = groupWindowMs; }
+
+    public long getGroupMaxDocs() { return groupMaxDocs; }
+    public void setGroupMaxDocs(long groupMaxDocs) { this.groupMaxDocs = groupMaxDocs; }
+
+    public long getNrtCommitIntervalMs() { return nrtCommitIntervalMs; }
+    public void setNrtCommitIntervalMs(long nrtCommitIntervalMs) { this.nrtCommitIntervalMs = nrtCommitIntervalMs; }
+
+    /** Configured search threads, or the number of available processors when unset (0). */
+    public int getSearchThreads() {
+        return searchThreads > 0 ? searchThreads : Runtime.getRuntime().availableProcessors();
+    }
+    public void setSearchThreads(int searchThreads) { this.searchThreads = searchThreads; }
+
+    public boolean isSegmentSearchEnabled() { return segmentSearchEnabled; }
+    public void setSegmentSearchEnabled(boolean segmentSearchEnabled) { this.segmentSearchEnabled = segmentSearchEnabled; }
+
+    /** Configured segment search threads, or the number of available processors when unset (0). */
+    public int getSegmentSearchThreads() {
+        return segmentSearchThreads > 0 ? segmentSearchThreads : Runtime.getRuntime().availableProcessors();
+    }
+    public void setSegmentSearchThreads(int segmentSearchThreads) { this.segmentSearchThreads = segmentSearchThreads; }
+
+    public int getSegmentSearchMinDocs() { return segmentSearchMinDocs; }
+    public void setSegmentSearchMinDocs(int segmentSearchMinDocs) { this.segmentSearchMinDocs = segmentSearchMinDocs; }
+
+    public int getSegmentSearchMaxDocsPerSlice() { return segmentSearchMaxDocsPerSlice; }
+    public void setSegmentSearchMaxDocsPerSlice(int segmentSearchMaxDocsPerSlice) { this.segmentSearchMaxDocsPerSlice = segmentSearchMaxDocsPerSlice; }
+
+    public int getSegmentSearchMaxSegmentsPerSlice() { return segmentSearchMaxSegmentsPerSlice; }
+    public void setSegmentSearchMaxSegmentsPerSlice(int segmentSearchMaxSegmentsPerSlice) { this.segmentSearchMaxSegmentsPerSlice = segmentSearchMaxSegmentsPerSlice; }
+
+    public int getExactMaxDocs() { return exactMaxDocs; }
+    public void setExactMaxDocs(int exactMaxDocs) { this.exactMaxDocs = exactMaxDocs; }
+
+    public int getResultCacheMaxEntries() { return resultCacheMaxEntries; }
+    public void setResultCacheMaxEntries(int resultCacheMaxEntries) { this.resultCacheMaxEntries = resultCacheMaxEntries; }
+
+    public double getImportRamBufferMb() { return importRamBufferMb; }
+    public void setImportRamBufferMb(double importRamBufferMb) { this.importRamBufferMb = importRamBufferMb; }
+
+    public boolean isSharedEnabled() { return sharedEnabled; }
+    public void setSharedEnabled(boolean sharedEnabled) { this.sharedEnabled = sharedEnabled; }
+
+    public int getSharedPools() { return Math.max(1, sharedPools); }
+    public void setSharedPools(int sharedPools) { this.sharedPools = sharedPools; }
+
+    public int getSharedGraduateDocs() { return sharedGraduateDocs; }
+    public void setSharedGraduateDocs(int sharedGraduateDocs) { this.sharedGraduateDocs = sharedGraduateDocs; }
+
+    public boolean isMaintenanceEnabled() { return maintenanceEnabled; }
+    public void setMaintenanceEnabled(boolean maintenanceEnabled) { this.maintenanceEnabled = maintenanceEnabled; }
+
+    public long getMaintenanceIntervalMs() { return maintenanceIntervalMs; }
+    public void setMaintenanceIntervalMs(long maintenanceIntervalMs) { this.maintenanceIntervalMs = maintenanceIntervalMs; }
+
+    public int getMaintenanceMaxSegments() { return maintenanceMaxSegments; }
+    public void setMaintenanceMaxSegments(int maintenanceMaxSegments) { this.maintenanceMaxSegments = maintenanceMaxSegments; }
+
+    public int getMaintenanceTargetSegments() { return Math.max(1, maintenanceTargetSegments); }
+    public void setMaintenanceTargetSegments(int maintenanceTargetSegments) { this.maintenanceTargetSegments = maintenanceTargetSegments; }
+
+    public double getMaintenanceDeletedRatio() { return maintenanceDeletedRatio; }
+    public void setMaintenanceDeletedRatio(double maintenanceDeletedRatio) { this.maintenanceDeletedRatio = maintenanceDeletedRatio; }
+
+    public double getMaintenanceMergeMbPerSec() { return maintenanceMergeMbPerSec; }
+    public void setMaintenanceMergeMbPerSec(double maintenanceMergeMbPerSec) { this.maintenanceMergeMbPerSec = maintenanceMergeMbPerSec; }
+
+    public IndexSettings.Similarity getSimilarity() { return similarity; }
+    public void setSimilarity(IndexSettings.Similarity similarity) { this.similarity = similarity; }
+
+    public int getHnswM() { return hnswM; }
+    public void setHnswM(int hnswM) { this.hnswM = hnswM; }
+
+    public int getHnswBeamWidth() { return hnswBeamWidth; }
+    public void setHnswBeamWidth(int hnswBeamWidth) { this.hnswBeamWidth = hnswBeamWidth; }
+
+    public IndexSettings.Quantization getQuantization() { return quantization; }
+    public void setQuantization(IndexSettings.Quantization quantization) { this.quantization = quantization; }
+
+    public boolean isRescore() { return rescore; }
+    public void setRescore(boolean rescore) { this.rescore = rescore; }
+
+    public int getOversample() { return oversample; }
+    public void setOversample(int oversample) { this.oversample = oversample; }
+
+    public int getCoarseDims() { return coarseDims; }
+    public void setCoarseDims(int coarseDims) { this.coarseDims = coarseDims; }
+
+    public boolean isMmap() { return "mmap".equalsIgnoreCase(directory); }
+}
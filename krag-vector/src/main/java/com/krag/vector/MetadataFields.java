@@ -0,0 +1,111 @@
+package com.krag.vector;
+
+import com.krag.core.model.MetadataFilter;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index layout of chunk metadata: every entry (except the chunk text) is a stored keyword
+ * field {@code md.<key>}; values that parse as numbers are also indexed as a
+ * {@code mdn.<key>} double point for range filters.
+ */
+final class MetadataFields {
+    static final String TERM_PREFIX = "md.";
+    static final String POINT_PREFIX = "mdn.";
+
+    private MetadataFields() {
+    }
+
+    static void addTo(Document doc, Map<String, String> metadata) {
+        if (metadata == null) return;
+        for (Map.Entry<String, String> e : metadata.entrySet()) {
+            String key = e.getKey();
+            String value = e.getValue();
+            if (key == null || value == null || "text".equals(key)) continue;
+            doc.add(new StringField(TERM_PREFIX + key, value, Field.Store.YES));
+            Double num = parseNumber(value);
+            if (num != null) {
+                doc.add(new DoublePoint(POINT_PREFIX + key, num));
+            }
+        }
+    }
+
+    /**
+     * Stored metadata of a chunk, or null if it has none.
+     */
+    static Map<String, String> read(Document doc) {
+        Map<String, String> md = null;
+        for (IndexableField f : doc.getFields()) {
+            if (!f.name().startsWith(TERM_PREFIX)) continue;
+            if (md == null) md = new LinkedHashMap<>();
+            md.put(f.name().substring(TERM_PREFIX.length()), f.stringValue());
+        }
+        return md;
+    }
+
+    /**
+     * Lucene filter for {@code filter}, or null if it is empty. {@code docId} and {@code source}
+     * address the built-in chunk fields; any other name addresses a metadata entry.
+     */
+    static Query toQuery(MetadataFilter filter) {
+        if (filter == null || filter.isEmpty()) return null;
+        BooleanQuery.Builder b = new BooleanQuery.Builder();
+        for (MetadataFilter.Condition c : filter.getConditions()) {
+            if (c.getAnyOf() != null) {
+                b.add(termQuery(termField(c.getField()), c.getAnyOf()), BooleanClause.Occur.FILTER);
+            }
+            if (c.isRange()) {
+                b.add(rangeQuery(c), BooleanClause.Occur.FILTER);
+            }
+        }
+        return b.build();
+    }
+
+    private static String termField(String name) {
+        return "docId".equals(name) || "source".equals(name) ? name : TERM_PREFIX + name;
+    }
+
+    private static Query termQuery(String field, List<String> values) {
+        if (values.size() == 1) {
+            return new TermQuery(new Term(field, values.get(0)));
+        }
+        List<BytesRef> terms = new ArrayList<>(values.size());
+        for (String v : values) terms.add(new BytesRef(v));
+        return new TermInSetQuery(field, terms);
+    }
+
+    private static Query rangeQuery(MetadataFilter.Condition c) {
+        double lo = c.getMin() == null ? Double.NEGATIVE_INFINITY
+                : c.isMinInclusive() ? c.getMin() : Math.nextUp(c.getMin());
+        double hi = c.getMax() == null ? Double.POSITIVE_INFINITY
+                : c.isMaxInclusive() ? c.getMax() : Math.nextDown(c.getMax());
+        return DoublePoint.newRangeQuery(POINT_PREFIX + c.getField(), lo, hi);
+    }
+
+    private static Double parseNumber(String v) {
+        if (v.isEmpty() || v.length() > 32) return null;
+        char c = v.charAt(0);
+        if (!(Character.isDigit(c) || c == '-' || c == '+' || c == '.')) return null;
+        try {
+            double d = Double.parseDouble(v);
+            return Double.isFinite(d) ? d : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
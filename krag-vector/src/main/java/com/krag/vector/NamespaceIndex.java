@@ -0,0 +1,277 @@
+package com.krag.vector;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One tenantId:kbId namespace: either the sole owner of a dedicated {@link LuceneIndex}, or a
+ * pooled namespace living among others in a shared one, isolated by a namespace term on each
+ * of its chunks. Holds the per-namespace write lock, result cache and document catalog.
+ */
+final class NamespaceIndex implements Closeable {
+    static final String VECTOR_FIELD = "vector";
+    // Leading components of the vector, only in namespaces with coarseDims > 0
+    static final String COARSE_VECTOR_FIELD = "vector_coarse";
+    // Namespace-qualified chunk id of pooled chunks, so chunk updates never reach another namespace
+    static final String POOL_CHUNK_FIELD = "_ns.chunkId";
+
+    final String tenantId;
+    final String kbId;
+    final String key;
+    final LuceneIndex index;
+    final NamespaceSettings settings;
+    final Analyzer analyzer;
+    final IndexWriter writer;
+    // Value of NamespaceScope.FIELD on this namespace's chunks; null for a dedicated index
+    final String poolTerm;
+    // Serializes writers within this namespace only; searches never take it
+    final ReentrantLock writeLock = new ReentrantLock();
+    // Vector-search results keyed to the reader version they were computed on
+    final SearchResultCache resultCache;
+    // Per-document summary; see catalog()
+    private final DocumentCatalog catalog = new DocumentCatalog();
+    volatile Integer dimension = null;
+
+    private final TermQuery scope;
+    // Scoped view of the pool searcher it was last built for; rebuilt when the pool refreshes
+    private volatile ScopedSearcher scoped;
+    // Set when a pooled namespace moves to its own index; reads then follow it there
+    private volatile NamespaceIndex successor;
+    private volatile boolean written;
+    private final AtomicLong ownWriteSeq = new AtomicLong(-1);
+    // A graduation check is queued on the maintenance thread
+    final AtomicBoolean graduationPending = new AtomicBoolean();
+
+    /**
+     * @param poolTerm the namespace's term in the shared {@code index}, or null if it owns {@code index}
+     */
+    NamespaceIndex(String tenantId, String kbId, LuceneIndex index, String poolTerm,
+                   LuceneStoreSettings storeSettings) throws IOException {
+        this.tenantId = tenantId;
+        this.kbId = kbId;
+        this.key = tenantId + ":" + kbId;
+        this.index = index;
+        this.settings = index.settings;
+        this.analyzer = index.analyzer;
+        this.writer = index.writer;
+        this.poolTerm = poolTerm;
+        this.scope = poolTerm == null ? null : new TermQuery(new Term(NamespaceScope.FIELD, poolTerm));
+        this.resultCache = new SearchResultCache(storeSettings.getResultCacheMaxEntries());
+        // The pool's dimension is this namespace's only once it has chunks there
+        this.dimension = poolTerm == null || liveDocs() > 0 ? index.dimension : null;
+    }
+
+    boolean pooled() { return poolTerm != null; }
+
+    /**
+     * A searcher over this namespace's documents only; pair with {@link #release}.
+     */
+    IndexSearcher acquire() throws IOException {
+        IndexSearcher base = index.searcherManager.acquire();
+        if (poolTerm == null) return base;
+        NamespaceIndex next = successor;
+        if (next != null) {
+            // Moved out of the pool; the pool copy may already be gone
+            index.searcherManager.release(base);
+            return next.acquire();
+        }
+        try {
+            ScopedSearcher s = scoped;
+            if (s == null || s.base != base) {
+                s = new ScopedSearcher(base, NamespaceScope.wrap((DirectoryReader) base.getIndexReader(), scope.getTerm()));
+                scoped = s;
+            }
+            return s;
+        } catch (IOException | RuntimeException e) {
+            index.searcherManager.release(base);
+            throw e;
+        }
+    }
+
+    void release(IndexSearcher searcher) throws IOException {
+        if (searcher instanceof ScopedSearcher s) {
+            index.searcherManager.release(s.base);
+        } else if (poolTerm != null) {
+            successor.release(searcher);
+        } else {
+            index.searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Make every write applied so far visible to {@link #acquire}.
+     */
+    void refresh() throws IOException {
+        index.searcherManager.maybeRefreshBlocking();
+    }
+
+    /**
+     * {@code query} restricted to this namespace. Reads through {@link #acquire} are already
+     * scoped; this lets selective queries (KNN pre-filter, BM25) skip other namespaces' postings
+     * instead of testing every pool document against the scoped live docs.
+     */
+    Query scoped(Query query) {
+        if (scope == null) return query;
+        if (query == null) return scope;
+        return new BooleanQuery.Builder()
+                .add(query, BooleanClause.Occur.MUST)
+                .add(scope, BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    /**
+     * Term that identifies one chunk for deletes and in-place updates.
+     */
+    Term chunkTerm(String chunkId) {
+        return poolTerm == null ? new Term("chunkId", chunkId) : new Term(POOL_CHUNK_FIELD, poolTerm + "/" + chunkId);
+    }
+
+    /**
+     * Tag a chunk written to a pool with its namespace.
+     */
+    void addScopeFields(Document doc, String chunkId) {
+        if (poolTerm == null) return;
+        doc.add(new StringField(NamespaceScope.FIELD, poolTerm, Field.Store.NO));
+        doc.add(new StringField(POOL_CHUNK_FIELD, poolTerm + "/" + chunkId, Field.Store.NO));
+    }
+
+    /**
+     * Delete the namespace's chunks of a document.
+     */
+    long deleteDoc(String docId) throws IOException {
+        Term term = new Term("docId", docId);
+        // Document ids derive from the source key, so two pooled namespaces can share one
+        return poolTerm == null ? writer.deleteDocuments(term) : writer.deleteDocuments(scoped(new TermQuery(term)));
+    }
+
+    /**
+     * Live chunks of this namespace in the current searcher.
+     */
+    int liveDocs() throws IOException {
+        IndexSearcher searcher = acquire();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            release(searcher);
+        }
+    }
+
+    /**
+     * True while nothing has ever been written, so the namespace can still be re-created with other settings.
+     */
+    boolean isPristine() throws IOException {
+        return poolTerm == null ? index.isPristine() : !written && liveDocs() == 0;
+    }
+
+    /**
+     * Mark a pooled namespace as moved to {@code next}; readers that still hold this instance
+     * follow it, writers must look the namespace up again (see {@link #isRetired}).
+     */
+    void retire(NamespaceIndex next) {
+        this.successor = next;
+    }
+
+    boolean isRetired() { return successor != null; }
+
+    /**
+     * Record a write that returned sequence number {@code seqNo} and touched {@code docs} documents.
+     */
+    void recordWrite(long seqNo, int docs) {
+        written = true;
+        ownWriteSeq.accumulateAndGet(seqNo, Math::max);
+        index.recordWrite(seqNo, docs);
+    }
+
+    /**
+     * Highest sequence number of a write to this namespace; unlike {@link #lastWriteSeq}, writes to
+     * other namespaces of the same pool do not move it.
+     */
+    long ownWriteSeq() { return ownWriteSeq.get(); }
+
+    /**
+     * Highest sequence number visible to {@code searcher} (one from {@link #acquire}), or
+     * {@link Long#MIN_VALUE} if unknown.
+     */
+    long visibleSeq(IndexSearcher searcher) {
+        IndexSearcher base = searcher instanceof ScopedSearcher s ? s.base : searcher;
+        return index.visibleSeq(((DirectoryReader) base.getIndexReader()).getVersion());
+    }
+
+    /**
+     * The document catalog, built from the index on first use.
+     */
+    DocumentCatalog catalog() throws IOException {
+        if (catalog.isLoaded()) return catalog;
+        // Under the write lock, so no write falls between the scan and the catalog's first update
+        writeLock.lock();
+        try {
+            if (!catalog.isLoaded()) {
+                refresh();
+                IndexSearcher searcher = acquire();
+                try {
+                    catalog.load(searcher.getIndexReader());
+                } finally {
+                    release(searcher);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return catalog;
+    }
+
+    /**
+     * The catalog if it has been built, else null (writes then leave it to the initial scan).
+     * Callers hold the write lock.
+     */
+    DocumentCatalog loadedCatalog() {
+        return catalog.isLoaded() ? catalog : null;
+    }
+
+    long lastWriteSeq() { return index.lastWriteSeq(); }
+
+    long pendingDocs() { return index.pendingDocs(); }
+
+    void commitThrough(long seqNo) throws IOException {
+        index.commitThrough(seqNo);
+    }
+
+    boolean awaitCommitted(long seqNo, long timeoutMs) throws InterruptedException {
+        return index.awaitCommitted(seqNo, timeoutMs);
+    }
+
+    /**
+     * Closes a dedicated index; a pool outlives its namespaces.
+     */
+    @Override
+    public void close() throws IOException {
+        if (poolTerm == null) {
+            index.close();
+        }
+    }
+
+    private static final class ScopedSearcher extends IndexSearcher {
+        final IndexSearcher base;
+
+        ScopedSearcher(IndexSearcher base, DirectoryReader scopedReader) {
+            super(scopedReader);
+            this.base = base;
+        }
+    }
+}
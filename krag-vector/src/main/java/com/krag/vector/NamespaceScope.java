@@ -0,0 +1,135 @@
+package com.krag.vector;
+
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterCodecReader;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.SparseFixedBitSet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Views of a shared pool index restricted to one namespace: documents of other namespaces read
+ * as deleted. Code written against a dedicated index (catalog scan, snapshot export, exact
+ * search, lookups by docId) therefore works unchanged on a pooled namespace. Building a view
+ * walks only the namespace's postings, and its live docs are a sparse bit set, so the cost
+ * follows the namespace's size rather than the pool's.
+ */
+final class NamespaceScope {
+    // Indexed on every chunk of a pooled namespace; see NamespaceIndex#poolTerm
+    static final String FIELD = "_ns";
+
+    private NamespaceScope() {
+    }
+
+    static DirectoryReader wrap(DirectoryReader pool, Term term) throws IOException {
+        return new ScopedDirectoryReader(pool, term);
+    }
+
+    /**
+     * The namespace's documents in every segment of {@code pool}, for copying them out with
+     * {@link org.apache.lucene.index.IndexWriter#addIndexes(CodecReader...)}.
+     */
+    static CodecReader[] codecReaders(IndexReader pool, Term term) throws IOException {
+        List<LeafReaderContext> leaves = pool.leaves();
+        CodecReader[] out = new CodecReader[leaves.size()];
+        for (int i = 0; i < out.length; i++) {
+            CodecReader in = (CodecReader) FilterLeafReader.unwrap(leaves.get(i).reader());
+            SparseFixedBitSet live = liveDocs(in, term);
+            int numDocs = live.cardinality();
+            out[i] = new FilterCodecReader(in) {
+                @Override
+                public Bits getLiveDocs() { return live; }
+
+                @Override
+                public int numDocs() { return numDocs; }
+
+                @Override
+                public CacheHelper getCoreCacheHelper() { return in.getCoreCacheHelper(); }
+
+                @Override
+                public CacheHelper getReaderCacheHelper() { return null; }
+            };
+        }
+        return out;
+    }
+
+    /**
+     * Live documents of {@code reader} carrying {@code term}.
+     */
+    private static SparseFixedBitSet liveDocs(LeafReader reader, Term term) throws IOException {
+        SparseFixedBitSet bits = new SparseFixedBitSet(Math.max(1, reader.maxDoc()));
+        PostingsEnum postings = reader.postings(term, PostingsEnum.NONE);
+        if (postings == null) return bits;
+        Bits live = reader.getLiveDocs();
+        for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+            if (live == null || live.get(doc)) bits.set(doc);
+        }
+        return bits;
+    }
+
+    private static final class ScopedDirectoryReader extends FilterDirectoryReader {
+        private final Term term;
+
+        ScopedDirectoryReader(DirectoryReader in, Term term) throws IOException {
+            super(in, new SubReaderWrapper() {
+                @Override
+                public LeafReader wrap(LeafReader reader) {
+                    try {
+                        return new ScopedLeafReader(reader, liveDocs(reader, term));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            this.term = term;
+        }
+
+        @Override
+        protected DirectoryReader doWrapDirectoryReader(DirectoryReader in) throws IOException {
+            return new ScopedDirectoryReader(in, term);
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            // Live docs differ from the pool's, so nothing keyed on the reader may be shared
+            return null;
+        }
+    }
+
+    private static final class ScopedLeafReader extends FilterLeafReader {
+        private final Bits live;
+        private final int numDocs;
+
+        ScopedLeafReader(LeafReader in, SparseFixedBitSet live) {
+            super(in);
+            this.live = live;
+            this.numDocs = live.cardinality();
+        }
+
+        @Override
+        public Bits getLiveDocs() { return live; }
+
+        @Override
+        public int numDocs() { return numDocs; }
+
+        @Override
+        public CacheHelper getCoreCacheHelper() {
+            // Same segment data, so per-segment query caching can be shared with the pool
+            return in.getCoreCacheHelper();
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() { return null; }
+    }
+}
@@ -0,0 +1,231 @@
+package com.krag.vector;
+
+import com.krag.core.model.IndexSettings;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.KnnVectorsReader;
+import org.apache.lucene.codecs.KnnVectorsWriter;
+import org.apache.lucene.codecs.lucene99.Lucene99Codec;
+import org.apache.lucene.codecs.lucene99.Lucene99HnswScalarQuantizedVectorsFormat;
+import org.apache.lucene.codecs.lucene99.Lucene99HnswVectorsFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.VectorSimilarityFunction;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fully resolved {@link IndexSettings} of one namespace. Persisted in the index commit user
+ * data so a reopened namespace keeps the settings it was created with.
+ */
+final class NamespaceSettings {
+    private static final String PREFIX = "krag.";
+
+    /**
+     * Largest vector the namespaces index. Lucene's formats stop at 1024 by default, below the
+     * 1536-3072 dimensions of common embedding models.
+     */
+    static final int MAX_DIMENSIONS = 4096;
+
+    final IndexSettings.Similarity similarity;
+    final int hnswM;
+    final int hnswBeamWidth;
+    final IndexSettings.Quantization quantization;
+    final boolean rescore;
+    final int oversample;
+    final int coarseDims;
+
+    private NamespaceSettings(IndexSettings.Similarity similarity, int hnswM, int hnswBeamWidth,
+                              IndexSettings.Quantization quantization, boolean rescore, int oversample, int coarseDims) {
+        if (hnswM <= 0 || hnswM > 512) {
+            throw new IllegalArgumentException("hnswM must be in range [1, 512]");
+        }
+        if (hnswBeamWidth <= 0 || hnswBeamWidth > 3200) {
+            throw new IllegalArgumentException("hnswBeamWidth must be in range [1, 3200]");
+        }
+        if (oversample <= 0 || oversample > 100) {
+            throw new IllegalArgumentException("oversample must be in range [1, 100]");
+        }
+        if (coarseDims < 0 || coarseDims > MAX_DIMENSIONS) {
+            throw new IllegalArgumentException("coarseDims must be in range [0, " + MAX_DIMENSIONS + "]");
+        }
+        this.similarity = similarity;
+        this.hnswM = hnswM;
+        this.hnswBeamWidth = hnswBeamWidth;
+        this.quantization = quantization;
+        this.rescore = rescore;
+        this.oversample = oversample;
+        this.coarseDims = coarseDims;
+    }
+
+    /**
+     * Overlay the non-null fields of {@code requested} on the store defaults.
+     */
+    static NamespaceSettings resolve(IndexSettings requested, LuceneStoreSettings defaults) {
+        IndexSettings r = requested != null ? requested : new IndexSettings();
+        return new NamespaceSettings(
+                r.getSimilarity() != null ? r.getSimilarity() : defaults.getSimilarity(),
+                r.getHnswM() != null ? r.getHnswM() : defaults.getHnswM(),
+                r.getHnswBeamWidth() != null ? r.getHnswBeamWidth() : defaults.getHnswBeamWidth(),
+                r.getQuantization() != null ? r.getQuantization() : defaults.getQuantization(),
+                r.getRescore() != null ? r.getRescore() : defaults.isRescore(),
+                r.getOversample() != null ? r.getOversample() : defaults.getOversample(),
+                r.getCoarseDims() != null ? r.getCoarseDims() : defaults.getCoarseDims());
+    }
+
+    /**
+     * Settings recorded in a commit, or null if the commit predates per-namespace settings.
+     */
+    static NamespaceSettings fromUserData(Map<String, String> userData, LuceneStoreSettings defaults) {
+        if (userData == null || !userData.containsKey(PREFIX + "similarity")) {
+            return null;
+        }
+        IndexSettings s = new IndexSettings();
+        s.setSimilarity(IndexSettings.Similarity.valueOf(userData.get(PREFIX + "similarity")));
+        s.setHnswM(Integer.parseInt(userData.get(PREFIX + "hnswM")));
+        s.setHnswBeamWidth(Integer.parseInt(userData.get(PREFIX + "hnswBeamWidth")));
+        s.setQuantization(IndexSettings.Quantization.valueOf(userData.get(PREFIX + "quantization")));
+        s.setRescore(Boolean.parseBoolean(userData.get(PREFIX + "rescore")));
+        s.setOversample(Integer.parseInt(userData.get(PREFIX + "oversample")));
+        // Namespaces created before the coarse field existed were indexed without it
+        String coarseDims = userData.get(PREFIX + "coarseDims");
+        s.setCoarseDims(coarseDims != null ? Integer.parseInt(coarseDims) : 0);
+        return resolve(s, defaults);
+    }
+
+    Map<String, String> toUserData() {
+        Map<String, String> m = new HashMap<>();
+        m.put(PREFIX + "similarity", similarity.name());
+        m.put(PREFIX + "hnswM", Integer.toString(hnswM));
+        m.put(PREFIX + "hnswBeamWidth", Integer.toString(hnswBeamWidth));
+        m.put(PREFIX + "quantization", quantization.name());
+        m.put(PREFIX + "rescore", Boolean.toString(rescore));
+        m.put(PREFIX + "oversample", Integer.toString(oversample));
+        m.put(PREFIX + "coarseDims", Integer.toString(coarseDims));
+        return m;
+    }
+
+    IndexSettings toIndexSettings() {
+        IndexSettings s = new IndexSettings();
+        s.setSimilarity(similarity);
+        s.setHnswM(hnswM);
+        s.setHnswBeamWidth(hnswBeamWidth);
+        s.setQuantization(quantization);
+        s.setRescore(rescore);
+        s.setOversample(oversample);
+        s.setCoarseDims(coarseDims);
+        return s;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof NamespaceSettings other && toUserData().equals(other.toUserData());
+    }
+
+    @Override
+    public int hashCode() {
+        return toUserData().hashCode();
+    }
+
+    VectorSimilarityFunction similarityFunction() {
+        return switch (similarity) {
+            case EUCLIDEAN -> VectorSimilarityFunction.EUCLIDEAN;
+            case COSINE -> VectorSimilarityFunction.COSINE;
+            case DOT_PRODUCT -> VectorSimilarityFunction.DOT_PRODUCT;
+            case MAXIMUM_INNER_PRODUCT -> VectorSimilarityFunction.MAXIMUM_INNER_PRODUCT;
+        };
+    }
+
+    boolean quantized() {
+        return quantization == IndexSettings.Quantization.INT8;
+    }
+
+    boolean twoStage() {
+        return coarseDims > 0;
+    }
+
+    /**
+     * Similarity of the coarse field. A prefix of a unit vector is not unit length, so dot
+     * product becomes cosine there, which ranks the same on unit vectors.
+     */
+    VectorSimilarityFunction coarseSimilarityFunction() {
+        return similarity == IndexSettings.Similarity.DOT_PRODUCT ? VectorSimilarityFunction.COSINE : similarityFunction();
+    }
+
+    /**
+     * The leading {@link #coarseDims} components of {@code vector}.
+     */
+    float[] coarse(float[] vector) {
+        return Arrays.copyOf(vector, coarseDims);
+    }
+
+    /**
+     * Whether approximate hits must be rescored against the full-precision vectors.
+     */
+    boolean rescores() {
+        return twoStage() || (quantized() && rescore);
+    }
+
+    /**
+     * Candidates to pull from HNSW for {@code topK} hits. The namespace's oversample applies
+     * only when hits are rescored; a per-query {@code override} always applies, since a wider
+     * graph search also raises recall when scores are already exact.
+     */
+    int candidates(int topK, Integer override) {
+        if (override != null) return topK * override;
+        return rescores() ? topK * oversample : topK;
+    }
+
+    /**
+     * Default codec with this namespace's HNSW parameters, accepting vectors up to
+     * {@link #MAX_DIMENSIONS}; the per-field format name is written into each segment, so
+     * segments read back through the stock codec.
+     */
+    Codec codec() {
+        KnnVectorsFormat format = new MaxDimensionsFormat(quantized()
+                ? new Lucene99HnswScalarQuantizedVectorsFormat(hnswM, hnswBeamWidth)
+                : new Lucene99HnswVectorsFormat(hnswM, hnswBeamWidth));
+        return new Lucene99Codec() {
+            @Override
+            public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+                return format;
+            }
+        };
+    }
+
+    /**
+     * Delegates to a stock format under its own name, only raising the dimension limit that
+     * IndexWriter checks; readers never check it, so the stock format reads the segments.
+     */
+    private static final class MaxDimensionsFormat extends KnnVectorsFormat {
+        private final KnnVectorsFormat delegate;
+
+        MaxDimensionsFormat(KnnVectorsFormat delegate) {
+            super(delegate.getName());
+            this.delegate = delegate;
+        }
+
+        @Override
+        public KnnVectorsWriter fieldsWriter(SegmentWriteState state) throws IOException {
+            return delegate.fieldsWriter(state);
+        }
+
+        @Override
+        public KnnVectorsReader fieldsReader(SegmentReadState state) throws IOException {
+            return delegate.fieldsReader(state);
+        }
+
+        @Override
+        public int getMaxDimensions(String fieldName) {
+            return MAX_DIMENSIONS;
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.krag.vector;
+
+import com.krag.core.model.VectorRecord;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FloatVectorValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of a whole namespace: settings plus every chunk's ids, text, metadata and raw
+ * vector, so a namespace can be moved without re-embedding. Rows are grouped in blocks and each
+ * block is stored column by column (all chunk ids, then all doc ids, ..., then all vectors as
+ * one float run). Numbers are big-endian:
+ * <pre>
+ * header:  "KSNP" | u8 version (1) | u16 n, n x (str key, str value) settings | i32 dimension (0 = no vectors)
+ * block:   i32 rows (0 ends the blocks)
+ *          chunkId str x rows | docId str x rows | source nstr x rows | text nstr x rows
+ *          contentHash nstr x rows | chunkIndex i32 x rows (-1 = none) | ingestedAt i64 x rows
+ *          metadata (u16 n, n x (str key, str value)) x rows | vectors f32 x rows x dimension
+ * trailer: i64 total rows | i64 CRC-32 of everything before the trailer
+ * str = i32 byte length + UTF-8 bytes; nstr is a str whose length -1 means null
+ * </pre>
+ */
+final class NamespaceSnapshot {
+    private static final byte[] MAGIC = {'K', 'S', 'N', 'P'};
+    private static final int VERSION = 1;
+    static final int BLOCK_ROWS = 4096;
+    // Guards allocations against a corrupt length prefix
+    private static final int MAX_STRING_BYTES = 1 << 28;
+
+    private NamespaceSnapshot() {
+    }
+
+    /**
+     * One decoded block: records ready for {@code upsert}, with the ingest time of each.
+     */
+    static final class Block {
+        final List<VectorRecord> records;
+        final long[] ingestedAt;
+
+        Block(List<VectorRecord> records, long[] ingestedAt) {
+            this.records = records;
+            this.ingestedAt = ingestedAt;
+        }
+    }
+
+    /**
+     * Write every live chunk visible in {@code reader}.
+     *
+     * @return number of chunks written
+     */
+    static long write(IndexReader reader, Map<String, String> settings, int dimension, OutputStream target) throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(target, 1 << 16), crc));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeShort(settings.size());
+        for (Map.Entry<String, String> e : settings.entrySet()) {
+            writeStr(out, e.getKey());
+            writeStr(out, e.getValue());
+        }
+        out.writeInt(dimension);
+
+        BlockWriter block = new BlockWriter(dimension);
+        long total = 0;
+        for (LeafReaderContext leaf : reader.leaves()) {
+            LeafReader r = leaf.reader();
+            Bits live = r.getLiveDocs();
+            StoredFields stored = r.storedFields();
+            FloatVectorValues vectors = r.getFloatVectorValues(NamespaceIndex.VECTOR_FIELD);
+            NumericDocValues positions = DocValues.getNumeric(r, LuceneMemoryVectorStore.CHUNK_INDEX_FIELD);
+            NumericDocValues times = DocValues.getNumeric(r, DocumentCatalog.TIME_FIELD);
+            for (int doc = 0; doc < r.maxDoc(); doc++) {
+                if (live != null && !live.get(doc)) continue;
+                Document d = stored.document(doc);
+                float[] v = null;
+                if (vectors != null && vectors.docID() < doc) vectors.advance(doc);
+                if (vectors != null && vectors.docID() == doc) v = vectors.vectorValue();
+                if (v == null || v.length != dimension) {
+                    throw new IllegalStateException("chunk without a " + dimension + "-dimensional vector: " + d.get("chunkId"));
+                }
+                block.add(d, positions.advanceExact(doc) ? (int) positions.longValue() : -1,
+                        times.advanceExact(doc) ? times.longValue() : 0, v);
+                total++;
+                if (block.rows == BLOCK_ROWS) block.flush(out);
+            }
+        }
+        block.flush(out);
+        out.writeInt(0);
+        out.flush();
+        long checksum = crc.getValue();
+        // The trailer itself is outside the checksum
+        DataOutputStream trailer = new DataOutputStream(target);
+        trailer.writeLong(total);
+        trailer.writeLong(checksum);
+        trailer.flush();
+        return total;
+    }
+
+    /**
+     * Buffers one block of rows, then writes it column by column.
+     */
+    private static final class BlockWriter {
+        private final int dimension;
+        private final List<Document> docs = new ArrayList<>(BLOCK_ROWS);
+        private final int[] positions = new int[BLOCK_ROWS];
+        private final long[] times = new long[BLOCK_ROWS];
+        private final ByteBuffer vectors;
+        private int rows;
+
+        BlockWriter(int dimension) {
+            this.dimension = dimension;
+            this.vectors = ByteBuffer.allocate(BLOCK_ROWS * dimension * Float.BYTES);
+        }
+
+        void add(Document d, int position, long time, float[] vector) {
+            docs.add(d);
+            positions[rows] = position;
+            times[rows] = time;
+            vectors.asFloatBuffer().position(rows * dimension).put(vector);
+            rows++;
+        }
+
+        void flush(DataOutputStream out) throws IOException {
+            if (rows == 0) return;
+            out.writeInt(rows);
+            for (Document d : docs) writeStr(out, d.get("chunkId"));
+            for (Document d : docs) writeStr(out, d.get("docId"));
+            for (Document d : docs) writeStr(out, d.get("source"));
+            for (Document d : docs) writeStr(out, d.get("text"));
+            for (Document d : docs) writeStr(out, d.get(LuceneMemoryVectorStore.CONTENT_HASH_FIELD));
+            for (int i = 0; i < rows; i++) out.writeInt(positions[i]);
+            for (int i = 0; i < rows; i++) out.writeLong(times[i]);
+            for (Document d : docs) {
+                Map<String, String> md = MetadataFields.read(d);
+                out.writeShort(md == null ? 0 : md.size());
+                if (md == null) continue;
+                for (Map.Entry<String, String> e : md.entrySet()) {
+                    writeStr(out, e.getKey());
+                    writeStr(out, e.getValue());
+                }
+            }
+            out.write(vectors.array(), 0, rows * dimension * Float.BYTES);
+            docs.clear();
+            rows = 0;
+        }
+    }
+
+    /**
+     * Sequential reader of a snapshot stream.
+     */
+    static final class Reader {
+        private final CRC32 crc = new CRC32();
+        private final InputStream raw;
+        private final DataInputStream in;
+        private final Map<String, String> settings = new HashMap<>();
+        private final int dimension;
+        private long rows;
+        private boolean done;
+
+        Reader(InputStream source) throws IOException {
+            this.raw = new BufferedInputStream(source, 1 << 16);
+            this.in = new DataInputStream(new CheckedInputStream(raw, crc));
+            byte[] magic = new byte[MAGIC.length];
+            try {
+                in.readFully(magic);
+            } catch (EOFException e) {
+                throw new IllegalArgumentException("not a namespace snapshot: stream too short");
+            }
+            if (!Arrays.equals(magic, MAGIC)) throw new IllegalArgumentException("not a namespace snapshot");
+            int version = in.readUnsignedByte();
+            if (version != VERSION) throw new IllegalArgumentException("unsupported snapshot version: " + version);
+            int n = in.readUnsignedShort();
+            for (int i = 0; i < n; i++) {
+                settings.put(readStr(in), readStr(in));
+            }
+            this.dimension = in.readInt();
+            if (dimension < 0) throw new IllegalArgumentException("corrupt snapshot: dimension " + dimension);
+        }
+
+        Map<String, String> settings() { return settings; }
+
+        int dimension() { return dimension; }
+
+        /**
+         * The next block, or null after the last one (once the trailer has been verified).
+         */
+        Block next() throws IOException {
+            if (done) return null;
+            int n = in.readInt();
+            if (n == 0) {
+                verifyTrailer();
+                done = true;
+                return null;
+            }
+            if (n < 0 || n > BLOCK_ROWS) throw new IllegalArgumentException("corrupt snapshot: block of " + n + " rows");
+            List<VectorRecord> records = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                VectorRecord r = new VectorRecord();
+                r.setChunkId(required(readStr(in), "chunkId"));
+                records.add(r);
+            }
+            for (VectorRecord r : records) r.setDocId(required(readStr(in), "docId"));
+            for (VectorRecord r : records) r.setSource(readStr(in));
+            String[] texts = new String[n];
+            for (int i = 0; i < n; i++) texts[i] = readStr(in);
+            for (VectorRecord r : records) r.setContentHash(readStr(in));
+            for (VectorRecord r : records) {
+                int position = in.readInt();
+                r.setChunkIndex(position < 0 ? null : position);
+            }
+            long[] times = new long[n];
+            for (int i = 0; i < n; i++) times[i] = in.readLong();
+            for (int i = 0; i < n; i++) {
+                int m = in.readUnsignedShort();
+                Map<String, String> md = new HashMap<>(m + 1);
+                for (int j = 0; j < m; j++) {
+                    md.put(readStr(in), readStr(in));
+                }
+                if (texts[i] != null) md.put("text", texts[i]);
+                records.get(i).setMetadata(md);
+            }
+            byte[] bytes = new byte[n * dimension * Float.BYTES];
+            in.readFully(bytes);
+            FloatBuffer floats = ByteBuffer.wrap(bytes).asFloatBuffer();
+            for (VectorRecord r : records) {
+                float[] v = new float[dimension];
+                floats.get(v);
+                r.setVector(v);
+            }
+            rows += n;
+            return new Block(records, times);
+        }
+
+        private void verifyTrailer() throws IOException {
+            long checksum = crc.getValue();
+            // Read past the checksummed stream
+            DataInputStream trailer = new DataInputStream(raw);
+            long total = trailer.readLong();
+            long expected = trailer.readLong();
+            if (total != rows) throw new IllegalArgumentException("corrupt snapshot: " + rows + " rows read, " + total + " expected");
+            if (expected != checksum) throw new IllegalArgumentException("corrupt snapshot: checksum mismatch");
+        }
+
+        private static String required(String s, String what) {
+            if (s == null) throw new IllegalArgumentException("corrupt snapshot: missing " + what);
+            return s;
+        }
+    }
+
+    private static void writeStr(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readStr(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) return null;
+        if (len > MAX_STRING_BYTES) throw new IllegalArgumentException("corrupt snapshot: string of " + len + " bytes");
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
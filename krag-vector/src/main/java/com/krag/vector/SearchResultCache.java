@@ -0,0 +1,129 @@
+package com.krag.vector;
+
+import com.krag.core.model.SearchResult;
+import org.apache.lucene.search.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU of vector-search results for one namespace. Every entry is tagged with the
+ * namespace's generation (the sequence number of its latest write) when it was computed; a
+ * lookup only hits for the same generation, so results never outlive the namespace state that
+ * produced them, while writes to other namespaces of a shared pool leave them valid.
+ */
+final class SearchResultCache {
+
+    static final class Key {
+        private final float[] vector;
+        private final int topK;
+        private final float minScore;
+        private final Query filter;
+        private final boolean exact;
+        private final Integer oversample;
+        private final int hash;
+
+        Key(float[] vector, int topK, float minScore, Query filter, boolean exact, Integer oversample) {
+            this.vector = vector.clone();
+            this.topK = topK;
+            this.minScore = minScore;
+            this.filter = filter;
+            this.exact = exact;
+            this.oversample = oversample;
+            this.hash = Objects.hash(Arrays.hashCode(vector), topK, minScore, filter, exact, oversample);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return topK == k.topK && exact == k.exact && Float.compare(minScore, k.minScore) == 0
+                    && Arrays.equals(vector, k.vector) && Objects.equals(filter, k.filter)
+                    && Objects.equals(oversample, k.oversample);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+    }
+
+    private static final class Entry {
+        final long generation;
+        final List<SearchResult> results;
+
+        Entry(long generation, List<SearchResult> results) {
+            this.generation = generation;
+            this.results = results;
+        }
+    }
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+
+    SearchResultCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > SearchResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    boolean enabled() { return maxEntries > 0; }
+
+    /**
+     * Copy of the cached results for {@code key} computed at {@code generation}, or null.
+     */
+    List<SearchResult> get(Key key, long generation) {
+        Entry e;
+        synchronized (entries) {
+            e = entries.get(key);
+        }
+        if (e == null || e.generation != generation) return null;
+        hits.increment();
+        return copy(e.results);
+    }
+
+    void put(Key key, long generation, List<SearchResult> results) {
+        Entry e = new Entry(generation, copy(results));
+        synchronized (entries) {
+            Entry current = entries.get(key);
+            // Never let a search of an older generation overwrite a newer entry
+            if (current == null || current.generation <= generation) {
+                entries.put(key, e);
+            }
+        }
+    }
+
+    long hits() { return hits.sum(); }
+
+    /**
+     * Drop everything; called after a write to this namespace becomes visible.
+     */
+    void invalidate() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static List<SearchResult> copy(List<SearchResult> results) {
+        List<SearchResult> out = new ArrayList<>(results.size());
+        for (SearchResult r : results) {
+            SearchResult c = new SearchResult();
+            c.setKbId(r.getKbId());
+            c.setChunkId(r.getChunkId());
+            c.setDocId(r.getDocId());
+            c.setText(r.getText());
+            c.setScore(r.getScore());
+            c.setMetadata(r.getMetadata() == null ? null : new LinkedHashMap<>(r.getMetadata()));
+            out.add(c);
+        }
+        return out;
+    }
+}
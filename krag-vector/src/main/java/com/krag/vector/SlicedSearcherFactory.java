@@ -0,0 +1,49 @@
+package com.krag.vector;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Searchers that spread one query over the segments of a large namespace: KNN searches each
+ * segment's graph as a separate task and collector-based searches (BM25) run one task per
+ * slice. Small segments are grouped into a slice and large ones get their own, so slices
+ * follow segment sizes. Namespaces below {@code minDocs}, or with a single segment, get a
+ * plain single-threaded searcher since forking would cost more than it saves.
+ */
+final class SlicedSearcherFactory extends SearcherFactory {
+
+    private final Executor executor;
+    private final int minDocs;
+    private final int maxDocsPerSlice;
+    private final int maxSegmentsPerSlice;
+
+    /**
+     * @param executor bounded pool shared by all namespaces; when it is saturated the searching
+     *                 thread runs the remaining tasks itself, so per-query parallelism degrades
+     *                 to a single thread under load instead of queueing
+     */
+    SlicedSearcherFactory(Executor executor, int minDocs, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+        this.executor = executor;
+        this.minDocs = minDocs;
+        this.maxDocsPerSlice = maxDocsPerSlice;
+        this.maxSegmentsPerSlice = maxSegmentsPerSlice;
+    }
+
+    @Override
+    public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+        if (reader.maxDoc() < minDocs || reader.leaves().size() < 2) {
+            return new IndexSearcher(reader);
+        }
+        return new IndexSearcher(reader, executor) {
+            @Override
+            protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                return slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice);
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.krag.vector;
+
+import org.apache.lucene.index.FloatVectorValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Re-ranks approximate KNN hits by their exact similarity to the query, computed from the
+ * full-precision vectors kept alongside quantized ones.
+ */
+final class VectorRescorer {
+
+    private VectorRescorer() {
+    }
+
+    static ScoreDoc[] rescore(IndexSearcher searcher, String field, ScoreDoc[] hits, float[] query,
+                              VectorSimilarityFunction similarity, int topK) throws IOException {
+        if (hits.length == 0) {
+            return hits;
+        }
+        // Vector values are forward-only iterators, so visit hits in doc id order
+        ScoreDoc[] byDoc = hits.clone();
+        Arrays.sort(byDoc, Comparator.comparingInt(sd -> sd.doc));
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        ScoreDoc[] rescored = new ScoreDoc[byDoc.length];
+        int leafOrd = -1;
+        FloatVectorValues values = null;
+        for (int i = 0; i < byDoc.length; i++) {
+            ScoreDoc sd = byDoc[i];
+            int ord = ReaderUtil.subIndex(sd.doc, leaves);
+            LeafReaderContext leaf = leaves.get(ord);
+            if (ord != leafOrd) {
+                leafOrd = ord;
+                values = leaf.reader().getFloatVectorValues(field);
+            }
+            float score = sd.score;
+            int target = sd.doc - leaf.docBase;
+            if (values != null && advanceTo(values, target)) {
+                score = similarity.compare(query, values.vectorValue());
+            }
+            rescored[i] = new ScoreDoc(sd.doc, score);
+        }
+        Arrays.sort(rescored, (a, b) -> Float.compare(b.score, a.score));
+        return rescored.length > topK ? Arrays.copyOf(rescored, topK) : rescored;
+    }
+
+    private static boolean advanceTo(FloatVectorValues values, int target) throws IOException {
+        int doc = values.docID();
+        if (doc < target) {
+            doc = values.advance(target);
+        }
+        return doc == target;
+    }
+}
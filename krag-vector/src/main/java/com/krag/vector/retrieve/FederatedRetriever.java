@@ -0,0 +1,169 @@
+package com.krag.vector.retrieve;
+
+import com.krag.core.model.SearchResult;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Searches several knowledge bases of one tenant in a single request: one search per namespace
+ * on a bounded pool, merged into a global top K by score. Namespaces that fail or miss the
+ * request deadline are left out and the result is flagged partial. Scores that are only
+ * meaningful within one namespace (BM25, fused hybrid scores) can be scaled per namespace by its
+ * best hit before merging, so no knowledge base wins on its term statistics alone.
+ */
+@Component
+public class FederatedRetriever implements DisposableBean {
+
+    public static final class Result {
+        private final List<SearchResult> results;
+        private final List<String> timedOut;
+        private final Map<String, String> failed;
+
+        Result(List<SearchResult> results, List<String> timedOut, Map<String, String> failed) {
+            this.results = results;
+            this.timedOut = timedOut;
+            this.failed = failed;
+        }
+
+        public List<SearchResult> getResults() { return results; }
+        /** Knowledge bases whose search did not finish before the deadline. */
+        public List<String> getTimedOut() { return timedOut; }
+        /** Knowledge bases whose search failed, with the error message. */
+        public Map<String, String> getFailed() { return failed; }
+        public boolean isPartial() { return !timedOut.isEmpty() || !failed.isEmpty(); }
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final long defaultTimeoutMs;
+    private final int maxKbs;
+
+    /**
+     * @param threads          concurrent per-namespace searches across all requests, 0 for the CPU count
+     * @param queueCapacity    queued searches beyond that; when full, further namespaces fail fast
+     * @param defaultTimeoutMs deadline of a fan-out when the request does not set one
+     * @param maxKbs           most knowledge bases one request may search
+     */
+    public FederatedRetriever(@Value("${krag.retrieve.federated.threads:0}") int threads,
+                              @Value("${krag.retrieve.federated.queue-capacity:1024}") int queueCapacity,
+                              @Value("${krag.retrieve.federated.timeout-ms:2000}") long defaultTimeoutMs,
+                              @Value("${krag.retrieve.federated.max-kbs:100}") int maxKbs) {
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(n, n, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            Thread t = new Thread(r, "krag-federated-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.maxKbs = maxKbs;
+    }
+
+    /**
+     * @param search         search of one knowledge base; called concurrently for different ids
+     * @param timeoutMs      deadline for the whole fan-out, or null for the configured default
+     * @param normalizePerKb divide each knowledge base's scores by its best score before merging
+     */
+    public Result retrieve(List<String> kbIds, int topK, Long timeoutMs, boolean normalizePerKb,
+                           Function<String, List<SearchResult>> search) {
+        if (kbIds.size() > maxKbs) {
+            throw new IllegalArgumentException("at most " + maxKbs + " knowledge bases per query");
+        }
+        if (timeoutMs != null && timeoutMs <= 0) {
+            throw new IllegalArgumentException("timeoutMs must be > 0");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs != null ? timeoutMs : defaultTimeoutMs);
+        Map<String, Future<List<SearchResult>>> legs = new LinkedHashMap<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (String kbId : kbIds) {
+            try {
+                legs.put(kbId, pool.submit(() -> search.apply(kbId)));
+            } catch (RejectedExecutionException e) {
+                failed.put(kbId, "search pool saturated");
+            }
+        }
+
+        // Min-heap holding the best topK hits so far; its root is the next one to drop
+        PriorityQueue<SearchResult> top = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(SearchResult::getScore));
+        List<String> timedOut = new ArrayList<>();
+        try {
+            for (Map.Entry<String, Future<List<SearchResult>>> leg : legs.entrySet()) {
+                List<SearchResult> hits;
+                try {
+                    hits = leg.getValue().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // A search that already started runs to completion; its result is dropped
+                    leg.getValue().cancel(false);
+                    timedOut.add(leg.getKey());
+                    continue;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    failed.put(leg.getKey(), cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+                    continue;
+                }
+                if (normalizePerKb) {
+                    hits = normalized(hits);
+                }
+                for (SearchResult sr : hits) {
+                    if (top.size() < topK) {
+                        top.add(sr);
+                    } else if (sr.getScore() > top.peek().getScore()) {
+                        top.poll();
+                        top.add(sr);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<List<SearchResult>> f : legs.values()) f.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        List<SearchResult> merged = new ArrayList<>(top);
+        merged.sort(Comparator.comparingDouble(SearchResult::getScore).reversed());
+        return new Result(merged, timedOut, failed);
+    }
+
+    /**
+     * Copies of {@code hits} with scores divided by the best one; the originals may be cached.
+     */
+    private static List<SearchResult> normalized(List<SearchResult> hits) {
+        float max = 0f;
+        for (SearchResult sr : hits) max = Math.max(max, sr.getScore());
+        if (max <= 0f) return hits;
+        List<SearchResult> out = new ArrayList<>(hits.size());
+        for (SearchResult src : hits) {
+            SearchResult sr = new SearchResult();
+            sr.setKbId(src.getKbId());
+            sr.setChunkId(src.getChunkId());
+            sr.setDocId(src.getDocId());
+            sr.setText(src.getText());
+            sr.setMetadata(src.getMetadata());
+            sr.setScore(src.getScore() / max);
+            out.add(sr);
+        }
+        return out;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,132 @@
+package com.krag.vector.retrieve;
+
+import com.krag.core.embed.EmbeddingModel;
+import com.krag.core.model.HybridHits;
+import com.krag.core.model.MetadataFilter;
+import com.krag.core.model.SearchResult;
+import com.krag.core.retrieve.Retriever;
+import com.krag.core.store.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hybrid retrieval: a BM25 leg and a KNN leg searched concurrently by the store, fused here
+ * with reciprocal rank fusion (default) or weighted score fusion.
+ */
+@Component
+public class HybridRetriever implements Retriever {
+
+    public enum Fusion { RRF, WEIGHTED }
+
+    private final EmbeddingModel embeddingModel;
+    private final VectorStore vectorStore;
+    private final Fusion defaultFusion;
+    private final int rrfK;
+    private final float vectorWeight;
+    private final int candidateFactor;
+
+    /**
+     * @param rrfK            RRF rank constant; larger values flatten the contribution of top ranks
+     * @param vectorWeight    weight of the vector leg in WEIGHTED fusion (lexical gets 1 - weight)
+     * @param candidateFactor each leg fetches topK * factor hits before fusion
+     */
+    public HybridRetriever(EmbeddingModel embeddingModel, VectorStore vectorStore,
+                           @Value("${krag.retrieve.hybrid.fusion:RRF}") Fusion defaultFusion,
+                           @Value("${krag.retrieve.hybrid.rrf-k:60}") int rrfK,
+                           @Value("${krag.retrieve.hybrid.vector-weight:0.5}") float vectorWeight,
+                           @Value("${krag.retrieve.hybrid.candidate-factor:4}") int candidateFactor) {
+        this.embeddingModel = embeddingModel;
+        this.vectorStore = vectorStore;
+        this.defaultFusion = defaultFusion;
+        this.rrfK = rrfK;
+        this.vectorWeight = vectorWeight;
+        this.candidateFactor = Math.max(1, candidateFactor);
+    }
+
+    @Override
+    public List<SearchResult> retrieve(String tenantId, String kbId, String query, int topK) {
+        return retrieve(tenantId, kbId, query, topK, 0f, null, null);
+    }
+
+    /**
+     * @param minScore minimum vector similarity for the KNN leg
+     * @param fusion   fusion method, or null for the configured default
+     * @param filter   metadata filter applied to both legs, or null
+     */
+    public List<SearchResult> retrieve(String tenantId, String kbId, String query, int topK, float minScore, Fusion fusion,
+                                       MetadataFilter filter) {
+        return retrieve(tenantId, kbId, query, embeddingModel.embed(query), topK, minScore, fusion, filter);
+    }
+
+    /**
+     * Same as above with the query already embedded, so one embedding can serve several knowledge bases.
+     */
+    public List<SearchResult> retrieve(String tenantId, String kbId, String query, float[] qv, int topK, float minScore,
+                                       Fusion fusion, MetadataFilter filter) {
+        int candidates = topK * candidateFactor;
+        HybridHits hits = vectorStore.hybridSearch(tenantId, kbId, query, qv, candidates, minScore, filter);
+        Fusion f = fusion != null ? fusion : defaultFusion;
+        List<SearchResult> fused = f == Fusion.WEIGHTED
+                ? weighted(hits.getLexical(), hits.getVector())
+                : rrf(hits.getLexical(), hits.getVector());
+        return fused.size() > topK ? new ArrayList<>(fused.subList(0, topK)) : fused;
+    }
+
+    private List<SearchResult> rrf(List<SearchResult> lexical, List<SearchResult> vector) {
+        Map<String, SearchResult> byChunk = new LinkedHashMap<>();
+        Map<String, Float> scores = new LinkedHashMap<>();
+        addRrf(lexical, byChunk, scores);
+        addRrf(vector, byChunk, scores);
+        return ranked(byChunk, scores);
+    }
+
+    private void addRrf(List<SearchResult> leg, Map<String, SearchResult> byChunk, Map<String, Float> scores) {
+        for (int rank = 0; rank < leg.size(); rank++) {
+            SearchResult sr = leg.get(rank);
+            byChunk.putIfAbsent(sr.getChunkId(), sr);
+            scores.merge(sr.getChunkId(), 1f / (rrfK + rank + 1), Float::sum);
+        }
+    }
+
+    private List<SearchResult> weighted(List<SearchResult> lexical, List<SearchResult> vector) {
+        Map<String, SearchResult> byChunk = new LinkedHashMap<>();
+        Map<String, Float> scores = new LinkedHashMap<>();
+        // BM25 scores are unbounded, so scale each leg by its best score before weighting
+        addWeighted(lexical, 1f - vectorWeight, byChunk, scores);
+        addWeighted(vector, vectorWeight, byChunk, scores);
+        return ranked(byChunk, scores);
+    }
+
+    private static void addWeighted(List<SearchResult> leg, float weight, Map<String, SearchResult> byChunk, Map<String, Float> scores) {
+        float max = 0f;
+        for (SearchResult sr : leg) max = Math.max(max, sr.getScore());
+        if (max <= 0f) return;
+        for (SearchResult sr : leg) {
+            byChunk.putIfAbsent(sr.getChunkId(), sr);
+            scores.merge(sr.getChunkId(), weight * sr.getScore() / max, Float::sum);
+        }
+    }
+
+    private static List<SearchResult> ranked(Map<String, SearchResult> byChunk, Map<String, Float> scores) {
+        List<SearchResult> out = new ArrayList<>(byChunk.size());
+        for (Map.Entry<String, SearchResult> e : byChunk.entrySet()) {
+            SearchResult src = e.getValue();
+            SearchResult sr = new SearchResult();
+            sr.setKbId(src.getKbId());
+            sr.setChunkId(src.getChunkId());
+            sr.setDocId(src.getDocId());
+            sr.setText(src.getText());
+            sr.setMetadata(src.getMetadata());
+            sr.setScore(scores.get(e.getKey()));
+            out.add(sr);
+        }
+        out.sort(Comparator.comparingDouble(SearchResult::getScore).reversed());
+        return out;
+    }
+}
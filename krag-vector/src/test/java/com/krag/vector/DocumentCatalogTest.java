@@ -0,0 +1,109 @@
+package com.krag.vector;
+
+import com.krag.core.model.DocumentInfo;
+import com.krag.core.model.DocumentPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DocumentCatalogTest {
+
+    /**
+     * Reference model: documents kept as plain values and sorted from scratch for every page.
+     */
+    private static final class Doc {
+        final String docId;
+        String source;
+        int chunks;
+        long bytes;
+        long ingestedAt;
+
+        Doc(String docId) {
+            this.docId = docId;
+        }
+    }
+
+    private static Comparator<Doc> order(DocumentInfo.SortKey key) {
+        Comparator<Doc> byId = Comparator.comparing(d -> d.docId);
+        switch (key) {
+            case SOURCE:
+                return Comparator.<Doc, String>comparing(d -> d.source, Comparator.nullsFirst(Comparator.naturalOrder())).thenComparing(byId);
+            case CHUNKS:
+                return Comparator.<Doc>comparingInt(d -> d.chunks).thenComparing(byId);
+            case BYTES:
+                return Comparator.<Doc>comparingLong(d -> d.bytes).thenComparing(byId);
+            case INGESTED_AT:
+                return Comparator.<Doc>comparingLong(d -> d.ingestedAt).thenComparing(byId);
+            default:
+                return byId;
+        }
+    }
+
+    private static List<String> ids(DocumentPage page) {
+        List<String> out = new ArrayList<>();
+        for (DocumentInfo d : page.getItems()) out.add(d.getDocId() + "/" + d.getChunks() + "/" + d.getBytes());
+        return out;
+    }
+
+    private static void assertPagesMatch(DocumentCatalog catalog, Map<String, Doc> model, Random rnd) {
+        for (DocumentInfo.SortKey key : DocumentInfo.SortKey.values()) {
+            for (boolean descending : new boolean[]{false, true}) {
+                List<Doc> expected = new ArrayList<>(model.values());
+                expected.sort(descending ? order(key).reversed() : order(key));
+                int offset = rnd.nextInt(expected.size() + 2);
+                int limit = 1 + rnd.nextInt(10);
+                List<String> want = new ArrayList<>();
+                for (int i = offset; i < Math.min(expected.size(), offset + limit); i++) {
+                    Doc d = expected.get(i);
+                    want.add(d.docId + "/" + d.chunks + "/" + d.bytes);
+                }
+                DocumentPage page = catalog.page(offset, limit, key, descending);
+                assertEquals(expected.size(), page.getTotal(), key + " total");
+                assertEquals(want, ids(page), key + (descending ? " desc" : " asc") + " from " + offset);
+            }
+        }
+    }
+
+    @Test
+    void pagesStayOrderedAcrossChanges() {
+        Random rnd = new Random(42);
+        DocumentCatalog catalog = new DocumentCatalog();
+        Map<String, Doc> model = new HashMap<>();
+        for (int step = 0; step < 3000; step++) {
+            String docId = "doc" + rnd.nextInt(60);
+            int op = rnd.nextInt(10);
+            if (op < 7) {
+                String source = rnd.nextInt(4) == 0 ? null : "src" + rnd.nextInt(8);
+                long bytes = rnd.nextInt(500);
+                long time = rnd.nextInt(1000);
+                catalog.add(docId, source, bytes, time);
+                Doc d = model.computeIfAbsent(docId, Doc::new);
+                if (source != null || d.chunks == 0) d.source = source;
+                d.chunks++;
+                d.bytes += bytes;
+                d.ingestedAt = Math.max(d.ingestedAt, time);
+            } else if (op < 8) {
+                catalog.removeDoc(docId);
+                model.remove(docId);
+            } else {
+                Doc d = model.get(docId);
+                if (d == null) continue;
+                long bytes = d.chunks == 1 ? d.bytes : Math.min(d.bytes, rnd.nextInt(100));
+                catalog.removeChunks(List.of(new DocumentCatalog.ChunkStat(docId, bytes)));
+                d.bytes -= bytes;
+                if (--d.chunks <= 0) model.remove(docId);
+            }
+            if (step % 50 == 0) {
+                assertPagesMatch(catalog, model, rnd);
+            }
+        }
+        assertPagesMatch(catalog, model, rnd);
+    }
+}
@@ -0,0 +1,109 @@
+package com.krag.vector;
+
+import com.krag.core.model.IndexSettings;
+import com.krag.core.model.SearchResult;
+import com.krag.core.model.VectorRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HighDimensionTest {
+
+    private static final String TENANT = "t1";
+    private static final int CHUNKS = 40;
+
+    private final LuceneMemoryVectorStore store = new LuceneMemoryVectorStore(new LuceneStoreSettings());
+
+    @AfterEach
+    void close() throws Exception {
+        store.destroy();
+    }
+
+    private static List<VectorRecord> records(int dims) {
+        Random rnd = new Random(dims);
+        List<VectorRecord> records = new ArrayList<>();
+        for (int i = 0; i < CHUNKS; i++) {
+            float[] v = new float[dims];
+            for (int d = 0; d < dims; d++) v[d] = (float) rnd.nextGaussian();
+            VectorRecord r = new VectorRecord();
+            r.setDocId("doc");
+            r.setChunkId("doc#" + i);
+            r.setVector(v);
+            r.setMetadata(Map.of("text", "chunk " + i));
+            r.setChunkIndex(i);
+            records.add(r);
+        }
+        return records;
+    }
+
+    private void assertEachChunkFindsItself(String kbId, IndexSettings settings, int dims) {
+        store.createNamespace(TENANT, kbId, settings);
+        store.upsert(TENANT, kbId, records(dims));
+        store.flush(TENANT, kbId);
+        assertEachChunkFindsItself(store, kbId, dims);
+    }
+
+    private static void assertEachChunkFindsItself(LuceneMemoryVectorStore store, String kbId, int dims) {
+        for (VectorRecord r : records(dims)) {
+            List<SearchResult> hits = store.search(TENANT, kbId, r.getVector(), 3, 0f);
+            assertEquals(r.getChunkId(), hits.get(0).getChunkId(), kbId + " dims " + dims);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IndexSettings.Quantization.class)
+    void vectorsBeyondLuceneDefaultLimitAreIndexed(IndexSettings.Quantization quantization) {
+        for (int dims : new int[]{1536, 3072}) {
+            IndexSettings settings = new IndexSettings();
+            settings.setQuantization(quantization);
+            assertEachChunkFindsItself("kb" + quantization + dims, settings, dims);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IndexSettings.Quantization.class)
+    void coarsePrefixBeyondLuceneDefaultLimitIsIndexed(IndexSettings.Quantization quantization) {
+        IndexSettings settings = new IndexSettings();
+        settings.setQuantization(quantization);
+        settings.setCoarseDims(1536);
+        assertEachChunkFindsItself("coarse" + quantization, settings, 3072);
+    }
+
+    @Test
+    void segmentsReopenThroughTheStockCodec(@TempDir Path dataRoot) throws Exception {
+        LuceneStoreSettings settings = new LuceneStoreSettings();
+        settings.setDirectory("mmap");
+        settings.setDataRoot(dataRoot.toString());
+        IndexSettings quantized = new IndexSettings();
+        quantized.setQuantization(IndexSettings.Quantization.INT8);
+        LuceneMemoryVectorStore first = new LuceneMemoryVectorStore(settings);
+        try {
+            first.createNamespace(TENANT, "plain", new IndexSettings());
+            first.upsert(TENANT, "plain", records(1536));
+            first.flush(TENANT, "plain");
+            first.createNamespace(TENANT, "int8", quantized);
+            first.upsert(TENANT, "int8", records(1536));
+            first.flush(TENANT, "int8");
+        } finally {
+            first.destroy();
+        }
+        LuceneMemoryVectorStore reopened = new LuceneMemoryVectorStore(settings);
+        try {
+            assertEachChunkFindsItself(reopened, "plain", 1536);
+            assertEachChunkFindsItself(reopened, "int8", 1536);
+            assertEquals(IndexSettings.Quantization.INT8, reopened.getNamespaceSettings(TENANT, "int8").getQuantization());
+        } finally {
+            reopened.destroy();
+        }
+    }
+}
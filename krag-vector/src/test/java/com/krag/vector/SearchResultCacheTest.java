@@ -0,0 +1,87 @@
+package com.krag.vector;
+
+import com.krag.core.model.SearchResult;
+import com.krag.core.model.VectorRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SearchResultCacheTest {
+
+    private static final String TENANT = "t1";
+    private static final float[] QUERY = {1, 1, 1, 1};
+
+    private final LuceneMemoryVectorStore store = new LuceneMemoryVectorStore(sharedSettings());
+
+    private static LuceneStoreSettings sharedSettings() {
+        LuceneStoreSettings settings = new LuceneStoreSettings();
+        settings.setSharedEnabled(true);
+        settings.setSharedPools(1);
+        return settings;
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        store.destroy();
+    }
+
+    private static List<VectorRecord> records(String docId, int n, float offset) {
+        List<VectorRecord> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            VectorRecord r = new VectorRecord();
+            r.setDocId(docId);
+            r.setChunkId(docId + "#" + i);
+            r.setVector(new float[]{offset + i, 2, 3, 4});
+            r.setMetadata(Map.of("text", docId + " " + i));
+            out.add(r);
+        }
+        return out;
+    }
+
+    private List<SearchResult> search(String kbId) {
+        return store.search(TENANT, kbId, QUERY, 3, 0f);
+    }
+
+    @Test
+    void writeToAnotherPooledNamespaceKeepsEntries() {
+        store.upsert(TENANT, "a", records("docA", 10, 5));
+        store.upsert(TENANT, "b", records("docB", 10, 5));
+        NamespaceIndex a = store.ns(TENANT, "a");
+        assertSame(a.index, store.ns(TENANT, "b").index, "both namespaces share the pool");
+
+        List<SearchResult> first = search("a");
+        long hits = a.resultCache.hits();
+        assertEquals(chunkIds(first), chunkIds(search("a")));
+        assertEquals(hits + 1, a.resultCache.hits());
+
+        store.upsert(TENANT, "b", records("docB2", 5, 0));
+        assertEquals(chunkIds(first), chunkIds(search("a")));
+        assertEquals(hits + 2, a.resultCache.hits(), "a write to b must not invalidate a");
+    }
+
+    @Test
+    void writeToOwnNamespaceMisses() {
+        store.upsert(TENANT, "a", records("docA", 10, 5));
+        search("a");
+        NamespaceIndex a = store.ns(TENANT, "a");
+        long hits = a.resultCache.hits();
+
+        // Closer to the query than anything stored before
+        store.upsert(TENANT, "a", records("docA2", 1, 1));
+        List<SearchResult> after = search("a");
+        assertEquals(hits, a.resultCache.hits());
+        assertEquals("docA2#0", after.get(0).getChunkId());
+    }
+
+    private static List<String> chunkIds(List<SearchResult> results) {
+        List<String> ids = new ArrayList<>();
+        for (SearchResult r : results) ids.add(r.getChunkId());
+        return ids;
+    }
+}
@@ -0,0 +1,132 @@
+package com.krag.vector;
+
+import com.krag.core.model.SearchResult;
+import com.krag.core.model.VectorRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotImportTest {
+
+    private static final String TENANT = "t1";
+
+    private final LuceneMemoryVectorStore store = new LuceneMemoryVectorStore(new LuceneStoreSettings());
+
+    @AfterEach
+    void close() throws Exception {
+        store.destroy();
+    }
+
+    private static VectorRecord record(String docId, int i) {
+        VectorRecord r = new VectorRecord();
+        r.setDocId(docId);
+        r.setChunkId(docId + "#" + i);
+        r.setVector(new float[]{i, 1, (i * 7) % 5, 2});
+        r.setMetadata(Map.of("text", "chunk " + i + " of " + docId));
+        r.setChunkIndex(i);
+        return r;
+    }
+
+    private byte[] snapshotOf(String kbId, int chunks) throws IOException {
+        List<VectorRecord> records = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) records.add(record("snap", i));
+        store.upsert(TENANT, kbId, records);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        store.exportSnapshot(TENANT, kbId, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void importIntoNamespaceWithDataKeepsTheData() throws IOException {
+        byte[] snapshot = snapshotOf("src", 3);
+        store.upsert(TENANT, "kb", List.of(record("existing", 0)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.importSnapshot(TENANT, "kb", new ByteArrayInputStream(snapshot)));
+
+        assertEquals(1, store.findByDoc(TENANT, "kb", "existing").size());
+        assertEquals(List.of(), store.findByDoc(TENANT, "kb", "snap"));
+    }
+
+    @Test
+    void importRacingUpsertNeverDropsAcknowledgedWrite() throws Exception {
+        byte[] snapshot = snapshotOf("src", 50);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 100; round++) {
+                String kbId = "race" + round;
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> importing = pool.submit(() -> {
+                    start.await();
+                    return store.importSnapshot(TENANT, kbId, new ByteArrayInputStream(snapshot));
+                });
+                Future<?> upserting = pool.submit(() -> {
+                    start.await();
+                    store.upsert(TENANT, kbId, List.of(record("racer", 0)));
+                    return null;
+                });
+                start.countDown();
+                boolean upserted;
+                try {
+                    upserting.get();
+                    upserted = true;
+                } catch (Exception e) {
+                    upserted = false;
+                }
+                try {
+                    importing.get();
+                } catch (Exception ignored) {
+                    // Losing the race to the upsert is expected
+                }
+                if (upserted) {
+                    assertEquals(1, store.findByDoc(TENANT, kbId, "racer").size(), "round " + round);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedImportLeavesNamespaceEmptyAndReusable() throws IOException {
+        byte[] snapshot = snapshotOf("src", 200);
+        byte[] truncated = Arrays.copyOf(snapshot, snapshot.length / 2);
+
+        assertThrows(IOException.class, () -> store.importSnapshot(TENANT, "kb", new ByteArrayInputStream(truncated)));
+        assertEquals(List.of(), store.findByDoc(TENANT, "kb", "snap"));
+
+        assertEquals(200, store.importSnapshot(TENANT, "kb", new ByteArrayInputStream(snapshot)));
+        assertEquals(200, store.findByDoc(TENANT, "kb", "snap").size());
+    }
+
+    @Test
+    void roundTripRestoresSearchResults() throws IOException {
+        byte[] snapshot = snapshotOf("src", 20);
+        store.importSnapshot(TENANT, "copy", new ByteArrayInputStream(snapshot));
+
+        float[] query = {3, 1, 1, 2};
+        List<SearchResult> expected = store.search(TENANT, "src", query, 5, 0f);
+        List<SearchResult> actual = store.search(TENANT, "copy", query, 5, 0f);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getChunkId(), actual.get(i).getChunkId());
+            assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-6);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.krag.vector.retrieve;
+
+import com.krag.core.model.SearchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FederatedRetrieverTest {
+
+    private final FederatedRetriever retriever = new FederatedRetriever(4, 16, 2000, 10);
+
+    @AfterEach
+    void close() {
+        retriever.destroy();
+    }
+
+    private static SearchResult hit(String kbId, String chunkId, float score) {
+        SearchResult sr = new SearchResult();
+        sr.setKbId(kbId);
+        sr.setChunkId(chunkId);
+        sr.setScore(score);
+        return sr;
+    }
+
+    private static List<String> chunkIds(List<SearchResult> results) {
+        List<String> ids = new ArrayList<>();
+        for (SearchResult sr : results) ids.add(sr.getChunkId());
+        return ids;
+    }
+
+    // BM25-like scores: "big" has larger raw scores only because of its term statistics
+    private static final Map<String, List<SearchResult>> LEGS = Map.of(
+            "big", List.of(hit("big", "b1", 12f), hit("big", "b2", 11f), hit("big", "b3", 10f)),
+            "small", List.of(hit("small", "s1", 3f), hit("small", "s2", 1.5f)));
+
+    @Test
+    void rawScoresMergeAsIs() {
+        FederatedRetriever.Result r = retriever.retrieve(List.of("big", "small"), 3, null, false, LEGS::get);
+        assertEquals(List.of("b1", "b2", "b3"), chunkIds(r.getResults()));
+        assertFalse(r.isPartial());
+    }
+
+    @Test
+    void normalizedScoresAreScaledByEachKbsBestHit() {
+        FederatedRetriever.Result r = retriever.retrieve(List.of("big", "small"), 3, null, true, LEGS::get);
+        List<SearchResult> results = r.getResults();
+        assertEquals(3, results.size());
+        // Both best hits score 1; "small"'s best outranks "big"'s third
+        assertEquals(1f, results.get(0).getScore(), 1e-6);
+        assertEquals(1f, results.get(1).getScore(), 1e-6);
+        assertTrue(chunkIds(results).containsAll(List.of("b1", "s1")));
+        assertEquals("b2", results.get(2).getChunkId());
+        // Cached results handed in by the legs are not modified
+        assertEquals(3f, LEGS.get("small").get(0).getScore(), 1e-6);
+    }
+
+    @Test
+    void slowKbIsReportedAsTimedOut() {
+        Function<String, List<SearchResult>> search = kbId -> {
+            if (kbId.equals("slow")) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return List.of(hit(kbId, kbId + "1", 0.5f));
+        };
+        FederatedRetriever.Result r = retriever.retrieve(List.of("fast", "slow"), 5, 200L, false, search);
+        assertTrue(r.isPartial());
+        assertEquals(List.of("slow"), r.getTimedOut());
+        assertEquals(List.of("fast1"), chunkIds(r.getResults()));
+    }
+
+    @Test
+    void failingKbIsReportedAsFailed() {
+        Function<String, List<SearchResult>> search = kbId -> {
+            if (kbId.equals("broken")) throw new IllegalStateException("boom");
+            return List.of(hit(kbId, kbId + "1", 0.5f));
+        };
+        FederatedRetriever.Result r = retriever.retrieve(List.of("ok", "broken"), 5, null, false, search);
+        assertTrue(r.isPartial());
+        assertEquals(Map.of("broken", "boom"), r.getFailed());
+        assertEquals(List.of("ok1"), chunkIds(r.getResults()));
+    }
+}
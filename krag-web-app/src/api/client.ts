@@ -67,6 +67,9 @@ export async function queryVector(body: {
   minScore?: number;
   docId?: string;
   full?: boolean;
+  mode?: 'vector' | 'keyword' | 'hybrid';
+  fusion?: 'rrf' | 'weighted';
+  filter?: Record<string, unknown>;
 }) {
   const res = await api.post('/api/v1/query', body);
   return res.data as {
@@ -0,0 +1,106 @@
+#!/usr/bin/env python3
+import json
+import os
+import sys
+import time
+import urllib.error
+import urllib.request
+
+API = os.environ.get("KRAG_API", "http://localhost:8080")
+
+TEXTS = [
+    "Lucene stores vectors in HNSW graphs for approximate nearest neighbour search.",
+    "Bulk ingest accepts NDJSON records and zip or tar archives of text files.",
+    "Snapshots export a knowledge base so it can be imported elsewhere.",
+    "Federated queries fan out over many knowledge bases of one tenant.",
+]
+
+
+def post(url: str, data: bytes, content_type: str):
+    req = urllib.request.Request(url, data=data, method="POST")
+    req.add_header("Content-Type", content_type)
+    req.add_header("Content-Length", str(len(data)))
+    with urllib.request.urlopen(req, timeout=30) as resp:
+        return resp.getcode(), json.loads(resp.read().decode("utf-8"))
+
+
+def post_json(path: str, body: dict):
+    return post(f"{API}{path}", json.dumps(body).encode("utf-8"), "application/json")
+
+
+def chunk_ids(results: list) -> list:
+    return [r.get("chunkId") for r in results]
+
+
+def main() -> int:
+    tenant = f"batch{int(time.time() * 1000)}"
+    kb_id = "kb1"
+    for i, text in enumerate(TEXTS):
+        try:
+            status, _ = post(f"{API}/api/v1/ingest/text?tenantId={tenant}&kbId={kb_id}&filename=batch{i}.txt&durable=true",
+                             text.encode("utf-8"), "text/plain")
+        except Exception as e:
+            print(f"[python-test] batch: ingest failed: {e}", file=sys.stderr)
+            return 1
+        if status != 200:
+            print(f"[python-test] batch: ingest unexpected HTTP status: {status}", file=sys.stderr)
+            return 1
+
+    queries = [
+        {"query": "nearest neighbour vector search"},
+        {"query": ""},
+        {"query": "importing a knowledge base snapshot", "topK": 2},
+        {"query": "too many results", "topK": 500},
+        {"query": "nearest neighbour vector search"},
+    ]
+    try:
+        status, data = post_json("/api/v1/query/batch", {"tenantId": tenant, "kbId": kb_id, "topK": 3, "queries": queries})
+    except Exception as e:
+        print(f"[python-test] batch: request failed: {e}", file=sys.stderr)
+        return 1
+    entries = data.get("queries", [])
+    if status != 200 or len(entries) != len(queries):
+        print(f"[python-test] batch: unexpected response: HTTP {status}, {data}", file=sys.stderr)
+        return 1
+    if [e.get("index") for e in entries] != list(range(len(queries))):
+        print(f"[python-test] batch: entries not in request order: {entries}", file=sys.stderr)
+        return 1
+
+    # Invalid items get an error entry, the rest of the batch is still answered
+    for i, expected in ((1, "query is required"), (3, "topK must be in range")):
+        if expected not in (entries[i].get("error") or "") or "results" in entries[i]:
+            print(f"[python-test] batch: entry {i} expected error {expected!r}: {entries[i]}", file=sys.stderr)
+            return 1
+
+    # Every valid entry matches the same query sent on its own
+    for i in (0, 2, 4):
+        entry = entries[i]
+        if "error" in entry:
+            print(f"[python-test] batch: entry {i} unexpected error: {entry}", file=sys.stderr)
+            return 1
+        top_k = queries[i].get("topK", 3)
+        _, single = post_json("/api/v1/query", {"tenantId": tenant, "kbId": kb_id, "query": queries[i]["query"],
+                                                "topK": top_k})
+        if not entry.get("results") or chunk_ids(entry["results"]) != chunk_ids(single.get("results", [])):
+            print(f"[python-test] batch: entry {i} differs from single query: {entry} vs {single}", file=sys.stderr)
+            return 1
+        if len(entry["results"]) > top_k:
+            print(f"[python-test] batch: entry {i} exceeds topK {top_k}: {entry}", file=sys.stderr)
+            return 1
+    print("[python-test] batch query passed:", json.dumps({"queries": len(entries), "errors": 2}))
+
+    # An empty batch is rejected as a whole
+    try:
+        post_json("/api/v1/query/batch", {"tenantId": tenant, "kbId": kb_id, "queries": []})
+        print("[python-test] batch: empty batch expected 400", file=sys.stderr)
+        return 1
+    except urllib.error.HTTPError as he:
+        if he.code != 400:
+            print(f"[python-test] batch: empty batch expected 400, got {he.code}", file=sys.stderr)
+            return 1
+    print("[python-test] batch empty request passed")
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,145 @@
+#!/usr/bin/env python3
+import io
+import json
+import os
+import sys
+import tarfile
+import time
+import urllib.error
+import urllib.request
+import zipfile
+
+API = os.environ.get("KRAG_API", "http://localhost:8080")
+LONG_NAME = "deeply/nested/" + "directory-name-" * 12 + "/notes.txt"
+
+
+def bulk(tenant: str, kb_id: str, data: bytes, content_type: str):
+    req = urllib.request.Request(f"{API}/api/v1/ingest/bulk?tenantId={tenant}&kbId={kb_id}", data=data, method="POST")
+    req.add_header("Content-Type", content_type)
+    req.add_header("Content-Length", str(len(data)))
+    with urllib.request.urlopen(req, timeout=30) as resp:
+        return resp.getcode(), json.loads(resp.read().decode("utf-8"))
+
+
+def doc_total(tenant: str, kb_id: str) -> int:
+    with urllib.request.urlopen(f"{API}/api/v1/docs?tenantId={tenant}&kbId={kb_id}", timeout=15) as resp:
+        return json.loads(resp.read().decode("utf-8"))["total"]
+
+
+def tar_bytes(fmt: int, files: dict, extra=()) -> bytes:
+    buf = io.BytesIO()
+    with tarfile.open(fileobj=buf, mode="w", format=fmt) as tar:
+        for info in extra:
+            tar.addfile(info)
+        for name, text in files.items():
+            data = text.encode("utf-8")
+            info = tarfile.TarInfo(name)
+            info.size = len(data)
+            tar.addfile(info, io.BytesIO(data))
+    return buf.getvalue()
+
+
+def check(label: str, status: int, data: dict, expected: dict) -> bool:
+    """expected maps filename to None for an ingested document or to a substring of its error."""
+    if status != 200:
+        print(f"[python-test] bulk {label}: unexpected HTTP status: {status}", file=sys.stderr)
+        return False
+    results = {r.get("filename"): r for r in data.get("results", [])}
+    if set(results) != set(expected):
+        print(f"[python-test] bulk {label}: expected documents {sorted(expected)}, got {sorted(results)}", file=sys.stderr)
+        return False
+    for name, error in expected.items():
+        r = results[name]
+        if error is None and (r.get("error") or not r.get("docId") or r.get("chunks", 0) < 1):
+            print(f"[python-test] bulk {label}: {name} was not ingested: {r}", file=sys.stderr)
+            return False
+        if error is not None and error not in (r.get("error") or ""):
+            print(f"[python-test] bulk {label}: {name} expected error containing {error!r}: {r}", file=sys.stderr)
+            return False
+    failed = sum(1 for e in expected.values() if e is not None)
+    if data.get("documents") != len(expected) or data.get("failed") != failed:
+        print(f"[python-test] bulk {label}: unexpected totals: {data}", file=sys.stderr)
+        return False
+    print(f"[python-test] bulk {label} passed:", json.dumps({"documents": len(expected), "failed": failed}))
+    return True
+
+
+def main() -> int:
+    tenant = f"bulk{int(time.time() * 1000)}"
+
+    # NDJSON: malformed lines become per-record errors, the rest of the request is still ingested
+    lines = [
+        json.dumps({"filename": "a.txt", "text": "Bulk ingest stores NDJSON records.", "metadata": {"lang": "en"}}),
+        "{not json",
+        json.dumps({"filename": "b.txt"}),
+        json.dumps(["not", "an", "object"]),
+        json.dumps({"filename": "c.pdf", "text": "unsupported type"}),
+        json.dumps({"filename": "d.txt", "text": "A second valid record."}),
+    ]
+    try:
+        status, data = bulk(tenant, "ndjson", "\n".join(lines).encode("utf-8"), "application/x-ndjson")
+    except Exception as e:
+        print(f"[python-test] bulk ndjson request failed: {e}", file=sys.stderr)
+        return 1
+    if not check("ndjson", status, data, {"a.txt": None, "line 2": "invalid JSON", "b.txt": "text is required",
+                                          "line 4": "JSON object", "c.pdf": "Unsupported file type",
+                                          "d.txt": None}):
+        return 1
+
+    # zip: directories and __MACOSX metadata are skipped, unsupported files fail on their own
+    buf = io.BytesIO()
+    with zipfile.ZipFile(buf, "w", zipfile.ZIP_DEFLATED) as z:
+        z.writestr("docs/", "")
+        z.writestr("docs/one.txt", "First document of the zip archive.")
+        z.writestr("docs/two.txt", "Second document of the zip archive.")
+        z.writestr("__MACOSX/docs/._one.txt", "resource fork")
+        z.writestr("docs/image.png", "not text")
+    try:
+        status, data = bulk(tenant, "zip", buf.getvalue(), "application/zip")
+    except Exception as e:
+        print(f"[python-test] bulk zip request failed: {e}", file=sys.stderr)
+        return 1
+    if not check("zip", status, data, {"docs/one.txt": None, "docs/two.txt": None,
+                                       "docs/image.png": "Unsupported file type"}):
+        return 1
+
+    # tar: GNU long names and pax path records name the documents; links and directories are skipped
+    directory = tarfile.TarInfo("docs")
+    directory.type = tarfile.DIRTYPE
+    link = tarfile.TarInfo("docs/link.txt")
+    link.type = tarfile.SYMTYPE
+    link.linkname = "short.txt"
+    for label, fmt in (("tar gnu", tarfile.GNU_FORMAT), ("tar pax", tarfile.PAX_FORMAT)):
+        files = {LONG_NAME: "A document with a long path.", "文档/说明.txt": "A document with a unicode path.",
+                 "short.txt": "A document with a short path.", "archive.bin": "binary"}
+        try:
+            status, data = bulk(tenant, label.replace(" ", ""), tar_bytes(fmt, files, (directory, link)),
+                                "application/x-tar")
+        except Exception as e:
+            print(f"[python-test] bulk {label} request failed: {e}", file=sys.stderr)
+            return 1
+        if not check(label, status, data, {LONG_NAME: None, "文档/说明.txt": None, "short.txt": None,
+                                           "archive.bin": "Unsupported file type"}):
+            return 1
+
+    # A truncated archive fails the whole request, and documents already written are rolled back
+    archive = tar_bytes(tarfile.GNU_FORMAT, {"first.txt": "Written before the archive breaks off.",
+                                             "second.txt": "x" * 4000})
+    try:
+        bulk(tenant, "truncated", archive[:512 * 3 + 100], "application/x-tar")
+        print("[python-test] bulk truncated tar: expected an error response", file=sys.stderr)
+        return 1
+    except urllib.error.HTTPError as he:
+        if he.code < 400:
+            print(f"[python-test] bulk truncated tar: unexpected HTTP status {he.code}", file=sys.stderr)
+            return 1
+    total = doc_total(tenant, "truncated")
+    if total != 0:
+        print(f"[python-test] bulk truncated tar: {total} documents left behind", file=sys.stderr)
+        return 1
+    print("[python-test] bulk truncated tar passed")
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,111 @@
+#!/usr/bin/env python3
+"""Query throughput under concurrent ingest.
+
+Runs background ingest into one namespace while query workers hammer another
+namespace (and the ingest namespace), once per worker count. Query QPS should
+grow with the number of workers instead of staying flat behind a global lock.
+"""
+import json
+import os
+import sys
+import threading
+import time
+import urllib.request
+
+BASE = os.environ.get("KRAG_API", "http://localhost:8080")
+DURATION_SEC = float(os.environ.get("KRAG_BENCH_SEC", "5"))
+WORKER_COUNTS = [1, 2, 4, 8]
+
+
+def post_json(url: str, obj: dict):
+    data = json.dumps(obj).encode("utf-8")
+    req = urllib.request.Request(url, data=data, method="POST")
+    req.add_header("Content-Type", "application/json")
+    with urllib.request.urlopen(req, timeout=30) as resp:
+        return resp.getcode(), resp.read().decode("utf-8")
+
+
+def post_text_plain(url: str, content_bytes: bytes):
+    req = urllib.request.Request(url, data=content_bytes, method="POST")
+    req.add_header("Content-Type", "text/plain")
+    with urllib.request.urlopen(req, timeout=30) as resp:
+        return resp.getcode(), resp.read().decode("utf-8")
+
+
+def ingest(kb_id: str, name: str, paragraphs: int):
+    body = "\n\n".join(f"{name} paragraph {i} about concurrent ingestion and search." for i in range(paragraphs))
+    url = f"{BASE}/api/v1/ingest/text?tenantId=bench&kbId={kb_id}&filename={name}.txt"
+    status, payload = post_text_plain(url, body.encode("utf-8"))
+    if status != 200:
+        raise RuntimeError(f"ingest failed: {status} {payload}")
+
+
+def ingest_loop(stop: threading.Event, errors: list):
+    n = 0
+    while not stop.is_set():
+        try:
+            ingest("kb-ingest", f"bg-{n}", 200)
+        except Exception as e:
+            errors.append(f"ingest: {e}")
+            return
+        n += 1
+
+
+def query_loop(stop: threading.Event, kb_id: str, counter: list, errors: list):
+    body = {"tenantId": "bench", "kbId": kb_id, "query": "concurrent search", "topK": 5}
+    while not stop.is_set():
+        try:
+            status, _ = post_json(f"{BASE}/api/v1/query", body)
+            if status != 200:
+                errors.append(f"query: HTTP {status}")
+                return
+        except Exception as e:
+            errors.append(f"query: {e}")
+            return
+        counter[0] += 1
+
+
+def measure(workers: int, errors: list) -> float:
+    stop = threading.Event()
+    counters = [[0] for _ in range(workers)]
+    threads = [threading.Thread(target=ingest_loop, args=(stop, errors), daemon=True)]
+    for i in range(workers):
+        kb_id = "kb-query" if i % 2 == 0 else "kb-ingest"
+        threads.append(threading.Thread(target=query_loop, args=(stop, kb_id, counters[i], errors), daemon=True))
+    for t in threads:
+        t.start()
+    time.sleep(DURATION_SEC)
+    stop.set()
+    for t in threads:
+        t.join(timeout=30)
+    return sum(c[0] for c in counters) / DURATION_SEC
+
+
+def main() -> int:
+    try:
+        ingest("kb-query", "seed", 500)
+        ingest("kb-ingest", "seed", 500)
+    except Exception as e:
+        print(f"[python-test] seed ingest failed: {e}", file=sys.stderr)
+        return 1
+
+    errors = []
+    results = {}
+    for workers in WORKER_COUNTS:
+        qps = measure(workers, errors)
+        if errors:
+            print(f"[python-test] concurrency run failed: {errors[0]}", file=sys.stderr)
+            return 1
+        results[workers] = qps
+        print(f"[python-test] workers={workers} query_qps={qps:.1f} (with concurrent ingest)")
+
+    # Throughput must not collapse as workers are added (a global lock keeps it flat or worse)
+    if results[WORKER_COUNTS[-1]] < results[WORKER_COUNTS[0]]:
+        print(f"[python-test] query throughput did not scale: {json.dumps(results)}", file=sys.stderr)
+        return 1
+    print("[python-test] concurrency passed:", json.dumps({str(k): round(v, 1) for k, v in results.items()}))
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
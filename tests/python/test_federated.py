@@ -0,0 +1,97 @@
+#!/usr/bin/env python3
+import json
+import os
+import sys
+import time
+import urllib.error
+import urllib.request
+
+API = os.environ.get("KRAG_API", "http://localhost:8080")
+KB_COUNT = 24
+
+
+def post(url: str, data: bytes, content_type: str):
+    req = urllib.request.Request(url, data=data, method="POST")
+    req.add_header("Content-Type", content_type)
+    req.add_header("Content-Length", str(len(data)))
+    with urllib.request.urlopen(req, timeout=30) as resp:
+        return resp.getcode(), json.loads(resp.read().decode("utf-8"))
+
+
+def query(body: dict):
+    return post(f"{API}/api/v1/query", json.dumps(body).encode("utf-8"), "application/json")
+
+
+def main() -> int:
+    # A tenant of its own, so allKbs covers exactly the knowledge bases created here
+    tenant = f"fed{int(time.time() * 1000)}"
+    kb_ids = [f"kb{i}" for i in range(KB_COUNT)]
+    for i, kb_id in enumerate(kb_ids):
+        # kb0 repeats the query terms, so its raw BM25 scores dwarf those of the other knowledge bases
+        text = "federated search merges results. " * (20 if i == 0 else 1) + f"Knowledge base number {i}."
+        try:
+            status, _ = post(f"{API}/api/v1/ingest/text?tenantId={tenant}&kbId={kb_id}&filename=fed{i}.txt",
+                             text.encode("utf-8"), "text/plain")
+        except Exception as e:
+            print(f"[python-test] federated: ingest into {kb_id} failed: {e}", file=sys.stderr)
+            return 1
+        if status != 200:
+            print(f"[python-test] federated: ingest into {kb_id} unexpected HTTP status: {status}", file=sys.stderr)
+            return 1
+
+    # Full fan-out: every knowledge base answers, results carry their kbId
+    base = {"tenantId": tenant, "allKbs": True, "query": "federated search merges results", "topK": KB_COUNT}
+    status, data = query(dict(base, mode="keyword", timeoutMs=10000))
+    if status != 200 or data.get("partial") is not False:
+        print(f"[python-test] federated: full fan-out unexpected response: HTTP {status}, {data}", file=sys.stderr)
+        return 1
+    results = data.get("results", [])
+    kbs_hit = {r.get("kbId") for r in results}
+    if kbs_hit != set(kb_ids):
+        print(f"[python-test] federated: expected hits from all {KB_COUNT} kbs, got {sorted(kbs_hit)}", file=sys.stderr)
+        return 1
+    # Keyword scores are normalized per knowledge base: each one's best hit scores 1
+    best = {}
+    for r in results:
+        best[r["kbId"]] = max(best.get(r["kbId"], 0.0), float(r["score"]))
+    if any(abs(s - 1.0) > 1e-4 for s in best.values()):
+        print(f"[python-test] federated: keyword scores not normalized per kb: {best}", file=sys.stderr)
+        return 1
+    print("[python-test] federated full fan-out passed:", json.dumps({"kbs": len(kbs_hit), "results": len(results)}))
+
+    # Forced timeout: a 1 ms deadline cannot cover every knowledge base, so the answer is partial
+    for attempt in range(10):
+        status, data = query(dict(base, timeoutMs=1))
+        if status != 200:
+            print(f"[python-test] federated: timeout query unexpected HTTP status: {status}", file=sys.stderr)
+            return 1
+        if data.get("partial"):
+            break
+    else:
+        print(f"[python-test] federated: 1 ms deadline never produced a partial result: {data}", file=sys.stderr)
+        return 1
+    timed_out = data.get("timedOut", [])
+    if not timed_out or not set(timed_out) <= set(kb_ids):
+        print(f"[python-test] federated: partial result without valid timedOut: {data}", file=sys.stderr)
+        return 1
+    leaked = [r for r in data.get("results", []) if r.get("kbId") in timed_out]
+    if leaked:
+        print(f"[python-test] federated: results from timed-out kbs: {leaked}", file=sys.stderr)
+        return 1
+    print("[python-test] federated forced timeout passed:", json.dumps({"timedOut": len(timed_out)}))
+
+    # Invalid deadline is rejected
+    try:
+        query(dict(base, timeoutMs=0))
+        print("[python-test] federated: timeoutMs=0 expected 400", file=sys.stderr)
+        return 1
+    except urllib.error.HTTPError as he:
+        if he.code != 400:
+            print(f"[python-test] federated: timeoutMs=0 expected 400, got {he.code}", file=sys.stderr)
+            return 1
+    print("[python-test] federated invalid timeout passed")
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
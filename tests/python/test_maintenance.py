@@ -0,0 +1,106 @@
+#!/usr/bin/env python3
+import json
+import os
+import sys
+import time
+import urllib.error
+import urllib.request
+
+API = os.environ.get("KRAG_API", "http://localhost:8080")
+DOC_COUNT = 12
+TARGET_SEGMENTS = 4
+
+
+def request(method: str, path: str, data: bytes = None, content_type: str = None):
+    req = urllib.request.Request(f"{API}{path}", data=data, method=method)
+    if content_type:
+        req.add_header("Content-Type", content_type)
+    with urllib.request.urlopen(req, timeout=60) as resp:
+        return resp.getcode(), json.loads(resp.read().decode("utf-8"))
+
+
+def ingest(tenant: str, kb_id: str, key: str, text: str):
+    # durable=true commits every document, so each one tends to land in a segment of its own
+    return request("POST", f"/api/v1/ingest/text?tenantId={tenant}&kbId={kb_id}&filename={key}.txt"
+                           f"&sourceKey={key}&durable=true", text.encode("utf-8"), "text/plain")
+
+
+def consistent(label: str, stats: dict) -> bool:
+    segments = stats.get("segments", [])
+    if stats.get("segmentCount") != len(segments) \
+            or stats.get("docs") != sum(s["docs"] for s in segments) \
+            or stats.get("deletedDocs") != sum(s["deletedDocs"] for s in segments):
+        print(f"[python-test] maintenance: {label} stats do not add up: {stats}", file=sys.stderr)
+        return False
+    return True
+
+
+def main() -> int:
+    tenant = f"maint{int(time.time() * 1000)}"
+    kb_id = "kb1"
+    for i in range(DOC_COUNT):
+        status, _ = ingest(tenant, kb_id, f"doc{i}", f"Segment maintenance document {i}, first version.")
+        if status != 200:
+            print(f"[python-test] maintenance: ingest unexpected HTTP status: {status}", file=sys.stderr)
+            return 1
+    # Changed versions replace their chunks, leaving deleted documents in the older segments
+    for i in range(0, DOC_COUNT, 2):
+        status, data = ingest(tenant, kb_id, f"doc{i}", f"Segment maintenance document {i}, second version.")
+        if status != 200 or data.get("deleted") != 1:
+            print(f"[python-test] maintenance: re-ingest expected one deleted chunk: HTTP {status}, {data}", file=sys.stderr)
+            return 1
+
+    try:
+        status, seg = request("GET", f"/api/v1/kb/segments?tenantId={tenant}&kbId={kb_id}")
+    except Exception as e:
+        print(f"[python-test] maintenance: /kb/segments failed: {e}", file=sys.stderr)
+        return 1
+    stats = seg.get("stats", {})
+    if status != 200 or seg.get("tenantId") != tenant or seg.get("kbId") != kb_id or not consistent("segments", stats):
+        print(f"[python-test] maintenance: unexpected /kb/segments response: HTTP {status}, {seg}", file=sys.stderr)
+        return 1
+    # A shared pool's stats cover every namespace in it, so only a dedicated index counts exactly our chunks
+    if not stats.get("shared") and stats.get("docs") != DOC_COUNT:
+        print(f"[python-test] maintenance: expected {DOC_COUNT} live chunks: {stats}", file=sys.stderr)
+        return 1
+    print("[python-test] /kb/segments passed:", json.dumps({k: stats.get(k) for k in ("segmentCount", "docs", "deletedDocs", "shared")}))
+
+    try:
+        status, resp = request("POST", f"/api/v1/kb/maintenance?tenantId={tenant}&kbId={kb_id}")
+    except Exception as e:
+        print(f"[python-test] maintenance: /kb/maintenance failed: {e}", file=sys.stderr)
+        return 1
+    before, after = resp.get("before", {}), resp.get("after", {})
+    if status != 200 or not consistent("before", before) or not consistent("after", after):
+        print(f"[python-test] maintenance: unexpected /kb/maintenance response: HTTP {status}, {resp}", file=sys.stderr)
+        return 1
+    if after.get("segmentCount", 0) > max(TARGET_SEGMENTS, 1) or after.get("deletedDocs") != 0 \
+            or after.get("docs") != before.get("docs"):
+        print(f"[python-test] maintenance: merge did not compact the index: before={before}, after={after}", file=sys.stderr)
+        return 1
+
+    # Every document is still searchable after the merge
+    body = json.dumps({"tenantId": tenant, "kbId": kb_id, "query": "segment maintenance document",
+                       "mode": "keyword", "topK": DOC_COUNT}).encode("utf-8")
+    _, data = request("POST", "/api/v1/query", body, "application/json")
+    if len({r.get("docId") for r in data.get("results", [])}) != DOC_COUNT:
+        print(f"[python-test] maintenance: documents missing after merge: {data}", file=sys.stderr)
+        return 1
+    print("[python-test] /kb/maintenance passed:", json.dumps({
+        "segments": [before.get("segmentCount"), after.get("segmentCount")],
+        "deletedDocs": [before.get("deletedDocs"), after.get("deletedDocs")], "millis": resp.get("millis")}))
+
+    try:
+        request("GET", f"/api/v1/kb/segments?tenantId={tenant}&kbId=")
+        print("[python-test] maintenance: blank kbId expected 400", file=sys.stderr)
+        return 1
+    except urllib.error.HTTPError as he:
+        if he.code != 400:
+            print(f"[python-test] maintenance: blank kbId expected 400, got {he.code}", file=sys.stderr)
+            return 1
+    print("[python-test] /kb/segments invalid request passed")
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,122 @@
+#!/usr/bin/env python3
+import json
+import os
+import sys
+import time
+import urllib.error
+import urllib.request
+
+API = os.environ.get("KRAG_API", "http://localhost:8080")
+
+
+def request(method: str, url: str, data: bytes = None, content_type: str = None):
+    req = urllib.request.Request(url, data=data, method=method)
+    if content_type:
+        req.add_header("Content-Type", content_type)
+    if data is not None:
+        req.add_header("Content-Length", str(len(data)))
+    with urllib.request.urlopen(req, timeout=30) as resp:
+        return resp.getcode(), resp.read()
+
+
+def post_json(url: str, obj: dict):
+    status, payload = request("POST", url, json.dumps(obj).encode("utf-8"), "application/json")
+    return status, json.loads(payload.decode("utf-8"))
+
+
+def query(kb_id: str, text: str):
+    status, data = post_json(f"{API}/api/v1/query",
+                             {"tenantId": "tenant1", "kbId": kb_id, "query": text, "topK": 5, "minScore": 0.0})
+    if status != 200:
+        raise RuntimeError(f"/query on {kb_id} returned HTTP {status}")
+    return [(r.get("chunkId"), round(float(r.get("score")), 5), r.get("text")) for r in data.get("results", [])]
+
+
+def import_snapshot(kb_id: str, snapshot: bytes):
+    return request("POST", f"{API}/api/v1/kb/snapshot?tenantId=tenant1&kbId={kb_id}", snapshot,
+                   "application/octet-stream")
+
+
+def main() -> int:
+    suffix = str(int(time.time() * 1000))
+    src, copy, busy = f"snapsrc{suffix}", f"snapcopy{suffix}", f"snapbusy{suffix}"
+
+    docs = [
+        b"Lucene stores vectors next to the inverted index.\n\nSnapshots carry both without re-embedding.",
+        b"Tenants are isolated by namespace.\n\nEach knowledge base has its own settings.",
+    ]
+    for i, content in enumerate(docs):
+        try:
+            status, _ = request("POST", f"{API}/api/v1/ingest/text?tenantId=tenant1&kbId={src}&filename=snap{i}.txt",
+                                content, "text/plain")
+        except Exception as e:
+            print(f"[python-test] snapshot: ingest failed: {e}", file=sys.stderr)
+            return 1
+        if status != 200:
+            print(f"[python-test] snapshot: ingest unexpected HTTP status: {status}", file=sys.stderr)
+            return 1
+
+    try:
+        status, snapshot = request("GET", f"{API}/api/v1/kb/snapshot?tenantId=tenant1&kbId={src}")
+    except Exception as e:
+        print(f"[python-test] snapshot: export failed: {e}", file=sys.stderr)
+        return 1
+    if status != 200 or len(snapshot) == 0:
+        print(f"[python-test] snapshot: export unexpected response: HTTP {status}, {len(snapshot)} bytes", file=sys.stderr)
+        return 1
+
+    # Round trip: the restored namespace answers queries exactly like the source
+    try:
+        status, payload = import_snapshot(copy, snapshot)
+        imported = json.loads(payload.decode("utf-8"))
+    except Exception as e:
+        print(f"[python-test] snapshot: import failed: {e}", file=sys.stderr)
+        return 1
+    if status != 200 or imported.get("chunks", 0) <= 0:
+        print(f"[python-test] snapshot: import unexpected response: HTTP {status}, {imported}", file=sys.stderr)
+        return 1
+
+    for text in ["vectors and snapshots", "namespace settings"]:
+        expected, actual = query(src, text), query(copy, text)
+        if not expected or expected != actual:
+            print(f"[python-test] snapshot: results differ for '{text}': {expected} != {actual}", file=sys.stderr)
+            return 1
+    print("[python-test] snapshot round trip passed:", json.dumps({"bytes": len(snapshot), "chunks": imported["chunks"]}))
+
+    # Importing over a namespace with data is rejected and leaves that data alone
+    request("POST", f"{API}/api/v1/ingest/text?tenantId=tenant1&kbId={busy}&filename=keep.txt",
+            b"This document must survive a rejected snapshot import.", "text/plain")
+    before = query(busy, "survive rejected import")
+    try:
+        import_snapshot(busy, snapshot)
+        print("[python-test] snapshot: import over existing data expected 400", file=sys.stderr)
+        return 1
+    except urllib.error.HTTPError as he:
+        if he.code != 400:
+            print(f"[python-test] snapshot: import over existing data expected 400, got {he.code}", file=sys.stderr)
+            return 1
+    after = query(busy, "survive rejected import")
+    if not before or before != after:
+        print(f"[python-test] snapshot: existing data changed: {before} != {after}", file=sys.stderr)
+        return 1
+    print("[python-test] snapshot rejected import passed")
+
+    # A truncated snapshot is rejected and leaves the target empty
+    truncated_kb = f"snaptrunc{suffix}"
+    try:
+        import_snapshot(truncated_kb, snapshot[: len(snapshot) // 2])
+        print("[python-test] snapshot: truncated import expected 400", file=sys.stderr)
+        return 1
+    except urllib.error.HTTPError as he:
+        if he.code != 400:
+            print(f"[python-test] snapshot: truncated import expected 400, got {he.code}", file=sys.stderr)
+            return 1
+    if query(truncated_kb, "vectors and snapshots"):
+        print("[python-test] snapshot: truncated import left data behind", file=sys.stderr)
+        return 1
+    print("[python-test] snapshot truncated import passed")
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())